@@ -2,6 +2,14 @@
 package com.pluralsight;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 // Imports Java time classes for capturing the current date and time
 import java.time.LocalDate;
@@ -31,6 +39,20 @@ public class AddTransactionPanel extends JPanel {
     // Radio button for selecting a payment (debit)
     private final JRadioButton paymentRadio = new JRadioButton("Payment (Debit)");
 
+    // How many vendor suggestions the popup shows at most
+    private static final int MAX_SUGGESTIONS = 8;
+
+    // Known vendors, most used first; replaced once the background load finishes
+    private VendorTrie vendors = new VendorTrie();
+
+    // Popup list of vendor suggestions shown under the vendor field
+    private final DefaultListModel<String> suggestions = new DefaultListModel<>();
+    private final JList<String> suggestionList = new JList<>(suggestions);
+    private final JPopupMenu suggestionPopup = new JPopupMenu();
+
+    // True while we fill in the vendor field ourselves, so that doesn't reopen the popup
+    private boolean completing;
+
     // Constructor: runs when a new AddTransactionPanel is created
     // The LedgerTableModel is injected so we can update it when saving transactions
     public AddTransactionPanel(LedgerTableModel model) {
@@ -51,6 +73,117 @@ public class AddTransactionPanel extends JPanel {
 
         // Adds the help/instructions text to the center area
         add(buildHelp(), BorderLayout.CENTER);
+
+        // Suggest known vendors while typing, so the same vendor is spelled the same way
+        setUpVendorSuggestions();
+        loadVendors();
+    }
+
+    // Wires the suggestion popup to the vendor field (typing, arrow keys, Enter, Escape, clicks)
+    private void setUpVendorSuggestions() {
+
+        // The popup must never take the focus away from the field being typed in
+        suggestionPopup.setFocusable(false);
+        suggestionList.setFocusable(false);
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionPopup.add(suggestionList);
+
+        // Clicking a suggestion picks it
+        suggestionList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = suggestionList.locationToIndex(e.getPoint());
+                if (index >= 0) acceptSuggestion(suggestions.get(index));
+            }
+        });
+
+        // Refresh the suggestions on every change to the vendor text
+        vendorField.getDocument().addDocumentListener((SimpleDocumentListener) e -> showSuggestions());
+
+        // Up/Down move through the list, Enter picks, Escape closes
+        vendorField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!suggestionPopup.isVisible()) return;
+                int selected = suggestionList.getSelectedIndex();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN -> suggestionList.setSelectedIndex(Math.min(selected + 1, suggestions.size() - 1));
+                    case KeyEvent.VK_UP -> suggestionList.setSelectedIndex(Math.max(selected - 1, 0));
+                    case KeyEvent.VK_ENTER -> {
+                        if (selected < 0) return;
+                        acceptSuggestion(suggestions.get(selected));
+                    }
+                    case KeyEvent.VK_ESCAPE -> suggestionPopup.setVisible(false);
+                    default -> {
+                        return;
+                    }
+                }
+                e.consume();
+            }
+        });
+
+        // Close the popup when the user moves on to another field
+        vendorField.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                suggestionPopup.setVisible(false);
+            }
+        });
+    }
+
+    // Shows the most used vendors starting with what's typed so far
+    private void showSuggestions() {
+        if (completing) return;
+        String typed = vendorField.getText();
+        List<String> matches = typed.isBlank() ? List.of() : vendors.suggest(typed, MAX_SUGGESTIONS);
+
+        // Nothing to show, or the only match is exactly what's already typed
+        if (matches.isEmpty() || (matches.size() == 1 && matches.get(0).equalsIgnoreCase(typed.strip()))) {
+            suggestionPopup.setVisible(false);
+            return;
+        }
+
+        suggestions.clear();
+        suggestions.addAll(matches);
+        suggestionList.setVisibleRowCount(matches.size());
+        if (suggestionPopup.isVisible()) {
+            suggestionPopup.pack();
+        } else if (vendorField.isShowing()) {
+            suggestionPopup.show(vendorField, 0, vendorField.getHeight());
+        }
+    }
+
+    // Puts the chosen vendor in the field and closes the popup
+    private void acceptSuggestion(String vendor) {
+        completing = true;
+        try {
+            vendorField.setText(vendor);
+        } finally {
+            completing = false;
+        }
+        suggestionPopup.setVisible(false);
+        amountField.requestFocusInWindow();
+    }
+
+    // Builds the vendor trie from one GROUP BY query on a worker thread
+    private void loadVendors() {
+        new SwingWorker<VendorTrie, Void>() {
+            @Override
+            protected VendorTrie doInBackground() throws Exception {
+                VendorTrie loaded = new VendorTrie();
+                TransactionManager.forEachVendorCount(loaded::add);
+                return loaded;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    vendors = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Vendor suggestions not available: " + e.getMessage());
+                }
+            }
+        }.execute();
     }
 
     // Builds and returns the form section of the panel
@@ -215,8 +348,25 @@ public class AddTransactionPanel extends JPanel {
                 amount
         );
 
-        // Add the transaction to the ledger table model
-        model.addTransaction(t);
+        // Add the transaction to the ledger table model (unless it's already saved)
+        LedgerTableModel.SaveResult result = model.addTransaction(t);
+        if (result == LedgerTableModel.SaveResult.DUPLICATE) {
+            JOptionPane.showMessageDialog(this,
+                    "An identical transaction is already saved; this one was not added.",
+                    "Duplicate transaction",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (result == LedgerTableModel.SaveResult.FAILED) {
+            JOptionPane.showMessageDialog(this,
+                    "The transaction could not be saved. Please try again.",
+                    "Not saved",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // Count this vendor for future suggestions
+        vendors.add(vendor);
 
         // Clear input fields after saving
         descriptionField.setText("");
@@ -0,0 +1,101 @@
+package com.pluralsight;
+
+import java.util.List;
+
+/**
+ * Prefix sums of amounts (in cents) per day, as a Fenwick (binary indexed) tree.
+ *
+ * Adding an amount to a day and asking "balance at the end of day d" both take
+ * O(log days), so inserting a transaction never means re-summing the ledger. The
+ * tree covers a window of days with some slack on both sides; a date outside the
+ * window grows it (amortised, like an ArrayList).
+ */
+final class BalanceIndex {
+
+    private static final int SLACK_DAYS = 366;
+
+    private long origin;    // epoch day stored in slot 1
+    private long[] daily;   // plain per-day sums, kept so the tree can be regrown
+    private long[] tree;    // 1-based Fenwick array over daily
+    private long total;
+
+    BalanceIndex() {
+        clear();
+    }
+
+    void clear() {
+        origin = 0;
+        daily = new long[0];
+        tree = new long[1];
+        total = 0;
+    }
+
+    /** Rebuilds from scratch in O(n + days). */
+    void rebuild(List<LedgerRow> rows) {
+        clear();
+        if (rows.isEmpty()) return;
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (LedgerRow row : rows) {
+            min = Math.min(min, row.getEpochDay());
+            max = Math.max(max, row.getEpochDay());
+        }
+        origin = min - SLACK_DAYS;
+        daily = new long[(int) (max - min) + 1 + 2 * SLACK_DAYS];
+        for (LedgerRow row : rows) {
+            daily[(int) (row.getEpochDay() - origin)] += row.getCents();
+            total += row.getCents();
+        }
+        buildTree();
+    }
+
+    void add(long epochDay, long cents) {
+        ensureCovers(epochDay);
+        int i = (int) (epochDay - origin);
+        daily[i] += cents;
+        total += cents;
+        for (int k = i + 1; k < tree.length; k += k & -k) {
+            tree[k] += cents;
+        }
+    }
+
+    /** Sum of every amount dated on or before {@code epochDay}. */
+    long sumThrough(long epochDay) {
+        if (epochDay < origin) return 0;
+        if (epochDay - origin >= daily.length) return total;
+        long sum = 0;
+        for (int k = (int) (epochDay - origin) + 1; k > 0; k -= k & -k) {
+            sum += tree[k];
+        }
+        return sum;
+    }
+
+    long total() {
+        return total;
+    }
+
+    private void ensureCovers(long epochDay) {
+        if (daily.length > 0 && epochDay >= origin && epochDay - origin < daily.length) return;
+
+        long first = daily.length == 0 ? epochDay : Math.min(origin, epochDay);
+        long last = daily.length == 0 ? epochDay : Math.max(origin + daily.length - 1, epochDay);
+        long span = last - first + 1;
+        long newOrigin = first - Math.max(SLACK_DAYS, span / 2);
+        long[] grown = new long[(int) (span + 2 * Math.max(SLACK_DAYS, span / 2))];
+        if (daily.length > 0) System.arraycopy(daily, 0, grown, (int) (origin - newOrigin), daily.length);
+        origin = newOrigin;
+        daily = grown;
+        buildTree();
+    }
+
+    // O(days) bottom-up construction: each node pushes its sum to its parent.
+    private void buildTree() {
+        tree = new long[daily.length + 1];
+        for (int k = 1; k <= daily.length; k++) {
+            tree[k] += daily[k - 1];
+            int parent = k + (k & -k);
+            if (parent <= daily.length) tree[parent] += tree[k];
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.pluralsight;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Non-interactive entry point for scheduled (cron) reports.
+ *
+ * Each {@code --report=} starts a new job; the options after it apply to that job.
+ * All jobs run in parallel over the shared connection pool and stream their rows
+ * from the database straight into the output file. Never touches Swing.
+ *
+ * <pre>
+ * java -cp account-ledger.jar com.pluralsight.BatchReportMain \
+ *     --report=transactions --period=ytd --format=csv --out=reports/ytd.csv \
+ *     --report=transactions --period=prev-month --vendor=amazon --out=reports/amazon.txt \
+ *     --report=top-vendors --period=prev-year --limit=20 --out=reports/top-vendors.txt \
+ *     --report=reconcile --statement=bank/2024-05.csv --out=reports/reconcile-2024-05.csv
+ * </pre>
+ *
+ * Report types: transactions, top-vendors, heavy-hitters, reconcile (always CSV; see {@link Reconciliation}).
+ * Periods: mtd, prev-month, ytd, prev-year, all (default), or --from=YYYY-MM-DD / --to=YYYY-MM-DD.
+ * Formats: text (default), csv.
+ * Ledger: --ledger=ID runs the job against that ledger (default: the active one).
+ * Global: --threads=N (default: number of jobs, capped by the pool size).
+ *
+ * Exits with status 1 if any job fails, 2 on bad arguments.
+ */
+public class BatchReportMain {
+
+    /** One report to produce. */
+    static class Job {
+        String report;
+        String ledger;
+        ReportPeriod period = ReportPeriod.ALL;
+        LocalDate from;
+        LocalDate to;
+        String vendor;
+        String format = "text";
+        Path out;
+        int limit = 10;
+        Path statement;
+        int toleranceDays = 3;
+
+        String title() {
+            String t = switch (report) {
+                case "top-vendors" -> "TOP " + limit + " SPENDING VENDORS";
+                case "heavy-hitters" -> "HEAVY HITTER VENDORS (APPROX.)";
+                case "reconcile" -> "RECONCILIATION: " + statement;
+                default -> (from != null || to != null)
+                        ? "TRANSACTIONS " + (from == null ? "" : from) + ".." + (to == null ? "" : to)
+                        : period.getTitle();
+            };
+            return vendor == null ? t : t + " / VENDOR: " + vendor;
+        }
+
+        TransactionQuery query(LocalDate today) {
+            LocalDate start = from != null ? from : period.start(today);
+            LocalDate end = to != null ? to : period.end(today);
+            return new TransactionQuery(start, end, null, null, null, vendor);
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Job> jobs;
+        int threads;
+        try {
+            jobs = new ArrayList<>();
+            threads = parse(args, jobs);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        for (Job job : jobs) {
+            results.add(pool.submit(() -> Ledgers.withLedger(
+                    job.ledger != null ? job.ledger : Ledgers.current(), () -> {
+                        run(job, today);
+                        return null;
+                    })));
+        }
+
+        int failed = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            Job job = jobs.get(i);
+            try {
+                results.get(i).get();
+                System.out.println("OK    " + job.report + " -> " + job.out);
+            } catch (Exception e) {
+                failed++;
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("FAIL  " + job.report + " -> " + job.out + ": " + cause.getMessage());
+            }
+        }
+
+        pool.shutdown();
+        TransactionManager.shutdown();
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    static void run(Job job, LocalDate today) throws IOException, SQLException {
+        TransactionQuery query = job.query(today);
+        switch (job.report) {
+            case "transactions" -> {
+                try (ReportPrinter printer = job.format.equals("csv")
+                        ? ReportPrinter.toCsvFile(job.out)
+                        : ReportPrinter.toFile(job.out)) {
+                    printer.begin(job.title());
+                    TransactionManager.streamTransactions(query, printer::row);
+                }
+            }
+            case "top-vendors" -> {
+                List<String[]> rows = new ArrayList<>();
+                for (VendorTotal v : VendorRanking.topVendors(job.limit, query)) {
+                    rows.add(new String[]{v.getVendor(), Long.toString(v.getCount()), money(v.getSpent())});
+                }
+                writeTable(job, new String[]{"vendor", "payments", "spent"}, rows);
+            }
+            case "heavy-hitters" -> {
+                List<String[]> rows = new ArrayList<>();
+                for (HeavyHitters.Counter c : HeavyHitters.scanPayments(job.limit, query).getTop(job.limit)) {
+                    rows.add(new String[]{c.vendor, money(c.spent), money(c.error)});
+                }
+                writeTable(job, new String[]{"vendor", "est_spent", "error"}, rows);
+            }
+            case "reconcile" -> System.out.println("      " + Reconciliation.toCsv(job.statement, job.toleranceDays, job.out));
+            default -> throw new IllegalArgumentException("Unknown report type: " + job.report);
+        }
+    }
+
+    // Vendor reports are at most --limit rows, so a simple table writer is enough.
+    private static void writeTable(Job job, String[] header, List<String[]> rows) throws IOException {
+        Path parent = job.out.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        try (BufferedWriter w = Files.newBufferedWriter(job.out, StandardCharsets.UTF_8)) {
+            boolean csv = job.format.equals("csv");
+            if (!csv) {
+                w.write("========== " + job.title() + " ==========");
+                w.newLine();
+            }
+            writeRow(w, header, csv);
+            for (String[] row : rows) {
+                writeRow(w, row, csv);
+            }
+        }
+    }
+
+    private static void writeRow(BufferedWriter w, String[] cells, boolean csv) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < cells.length; i++) {
+            if (csv) {
+                if (i > 0) sb.append(',');
+                ReportPrinter.appendCsv(sb, cells[i]);
+            } else {
+                if (i > 0) sb.append(" | ");
+                ReportPrinter.appendPadded(sb, cells[i], i == 0 ? 25 : 12);
+            }
+        }
+        w.write(sb.toString());
+        w.newLine();
+    }
+
+    private static String money(double amount) {
+        StringBuilder sb = new StringBuilder();
+        ReportPrinter.appendAmount(sb, Math.round(amount * 100), 0);
+        return sb.toString();
+    }
+
+    /** Fills {@code jobs} from the arguments and returns the thread count. */
+    static int parse(String[] args, List<Job> jobs) {
+        Integer threads = null;
+        Job current = null;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+
+            if (name.equals("threads")) {
+                threads = Integer.parseInt(value);
+                continue;
+            }
+            if (name.equals("report")) {
+                current = new Job();
+                current.report = value.toLowerCase();
+                jobs.add(current);
+                continue;
+            }
+            if (current == null) {
+                throw new IllegalArgumentException("--" + name + " must come after a --report=...");
+            }
+            switch (name) {
+                case "period" -> current.period = ReportPeriod.parse(value);
+                case "from" -> current.from = LocalDate.parse(value);
+                case "to" -> current.to = LocalDate.parse(value);
+                case "vendor" -> current.vendor = value;
+                case "format" -> current.format = value.toLowerCase();
+                case "out" -> current.out = Path.of(value);
+                case "limit" -> current.limit = Integer.parseInt(value);
+                case "statement" -> current.statement = Path.of(value);
+                case "tolerance-days" -> current.toleranceDays = Integer.parseInt(value);
+                case "ledger" -> {
+                    if (!Ledgers.ids().contains(value)) {
+                        throw new IllegalArgumentException("Unknown ledger: " + value + " (configured: " + Ledgers.ids() + ")");
+                    }
+                    current.ledger = value;
+                }
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+
+        if (jobs.isEmpty()) throw new IllegalArgumentException("No --report given.");
+        for (Job job : jobs) {
+            if (!List.of("transactions", "top-vendors", "heavy-hitters", "reconcile").contains(job.report)) {
+                throw new IllegalArgumentException("Unknown report type: " + job.report);
+            }
+            if (!job.format.equals("text") && !job.format.equals("csv")) {
+                throw new IllegalArgumentException("Unknown format: " + job.format + " (use text or csv)");
+            }
+            if (job.out == null) {
+                throw new IllegalArgumentException("--out=FILE is required for --report=" + job.report);
+            }
+            if (job.report.equals("reconcile") && job.statement == null) {
+                throw new IllegalArgumentException("--statement=FILE is required for --report=reconcile");
+            }
+        }
+
+        int n = threads != null ? threads : Math.min(jobs.size(), DbConfig.getPoolSize());
+        return Math.max(1, n);
+    }
+
+    private static void printUsage() {
+        System.err.println("""
+                Usage: BatchReportMain [--threads=N] --report=TYPE [options] [--report=TYPE [options]] ...
+                  TYPE:      transactions | top-vendors | heavy-hitters | reconcile
+                  --period=  mtd | prev-month | ytd | prev-year | all   (default all)
+                  --from=YYYY-MM-DD  --to=YYYY-MM-DD                    (override the period)
+                  --vendor=  only vendors containing this text
+                  --format=  text | csv                                 (default text)
+                  --out=     output file (required)
+                  --limit=   rows for vendor reports                    (default 10)
+                  --ledger=  ledger id                                  (default: active ledger)
+                  --statement=       bank statement CSV (reconcile only)
+                  --tolerance-days=  days a posting may be off (reconcile, default 3)""");
+    }
+}
@@ -0,0 +1,474 @@
+package com.pluralsight;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Balance over time and monthly spending, for ledgers of any size.
+ *
+ * When the ledger changes, a snapshot of its rows is aggregated on a worker
+ * thread into per-day closing balances and per-month spending ({@link Series}).
+ * Painting never walks the whole ledger: the visible part of the day series is
+ * cut down to about one point per pixel column with {@link Downsampler#lttb}.
+ * Zoomed in far enough that the range holds at most {@link #DETAIL_ROWS}
+ * transactions, the balance after each transaction is drawn instead, read from
+ * that date range of the snapshot (two binary searches, see {@link DateIndex}).
+ * Months are merged into wider bars when they would be thinner than a few pixels.
+ *
+ * Mouse wheel zooms around the pointer, dragging pans, double-click shows everything.
+ */
+public class ChartsPanel extends JPanel {
+
+    private static final int DETAIL_ROWS = 50_000;
+    private static final int MIN_BAR_PIXELS = 4;
+    private static final long DAY = 86_400;
+    private static final long MIN_SPAN_SECONDS = 3_600;
+
+    private static final Color BALANCE = new Color(33, 99, 196);
+    private static final Color SPEND = new Color(205, 92, 72);
+    private static final Color GRID = new Color(225, 225, 225);
+
+    private final LedgerTableModel model;
+    private final ChartCanvas canvas = new ChartCanvas();
+    private final JLabel status = new JLabel(" ");
+    private final Timer rebuildTimer = new Timer(300, e -> rebuild());
+    private Series series;       // null until the first snapshot is built
+    private int generation;      // newest rebuild; older workers' results are dropped
+
+    public ChartsPanel(LedgerTableModel model) {
+        this.model = model;
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        top.add(new JLabel("Balance and monthly spending. Wheel: zoom, drag: pan, double-click: show all."));
+        JButton showAll = new JButton("Show All");
+        showAll.addActionListener(e -> canvas.showAll());
+        top.add(showAll);
+
+        add(top, BorderLayout.NORTH);
+        add(canvas, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+
+        // Edits can come in bursts; rebuild once they settle. (Table events miss rows the Ledger filter hides.)
+        rebuildTimer.setRepeats(false);
+        model.addRowsChangedListener(rebuildTimer::restart);
+        rebuild();
+    }
+
+    private void rebuild() {
+        // Rows are immutable, so a copy of the list is all the worker needs from the EDT.
+        List<LedgerRow> rows = new ArrayList<>(model.getRowsBetween(null, null));
+        int build = ++generation;
+        new SwingWorker<Series, Void>() {
+            @Override
+            protected Series doInBackground() {
+                return new Series(rows);
+            }
+
+            @Override
+            protected void done() {
+                if (build != generation) return;
+                try {
+                    series = get();
+                    canvas.dataChanged();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Error building charts: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /** Per-day and per-month aggregates of one snapshot of the ledger. */
+    static final class Series {
+        final List<LedgerRow> rows;   // newest first
+        final long[] days;            // epoch days that have transactions, ascending
+        final long[] closeCents;      // balance at the end of each of those days
+        final int firstMonth;         // months are numbered year * 12 + month - 1
+        final long[] monthSpendCents; // payments per month from firstMonth on, as positive cents
+
+        Series(List<LedgerRow> newestFirst) {
+            rows = newestFirst;
+            long[] d = new long[256];
+            long[] close = new long[256];
+            int n = 0;
+            long balance = 0;
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                LedgerRow row = newestFirst.get(i);
+                balance += row.getCents();
+                if (n == 0 || d[n - 1] != row.getEpochDay()) {
+                    if (n == d.length) {
+                        d = Arrays.copyOf(d, n * 2);
+                        close = Arrays.copyOf(close, n * 2);
+                    }
+                    d[n++] = row.getEpochDay();
+                }
+                close[n - 1] = balance;
+            }
+            days = Arrays.copyOf(d, n);
+            closeCents = Arrays.copyOf(close, n);
+
+            firstMonth = n == 0 ? 0 : month(days[0]);
+            monthSpendCents = new long[n == 0 ? 0 : month(days[n - 1]) - firstMonth + 1];
+            long day = Long.MIN_VALUE;
+            int m = 0;
+            for (LedgerRow row : newestFirst) {
+                if (row.getCents() >= 0) continue;
+                if (row.getEpochDay() != day) {
+                    day = row.getEpochDay();
+                    m = month(day) - firstMonth;
+                }
+                monthSpendCents[m] -= row.getCents();
+            }
+        }
+
+        static int month(long epochDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            return date.getYear() * 12 + date.getMonthValue() - 1;
+        }
+
+        static long monthStartSecond(int month) {
+            return LocalDate.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1).toEpochDay() * DAY;
+        }
+
+        /** Index of the first day on or after {@code day} (days.length if none). */
+        int dayIndex(long day) {
+            int i = Arrays.binarySearch(days, day);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        /** Balance at the end of the last day before {@code day}. */
+        long closeBefore(long day) {
+            int i = dayIndex(day) - 1;
+            return i < 0 ? 0 : closeCents[i];
+        }
+    }
+
+    /** Points chosen for one paint: x in epoch seconds, y in cents. */
+    private static final class Points {
+        double[] x;
+        double[] y;
+        int n;
+        int candidates;   // points in the range before downsampling
+        boolean perTransaction;
+
+        Points(int capacity) {
+            x = new double[capacity];
+            y = new double[capacity];
+        }
+
+        void add(double px, double py) {
+            x[n] = px;
+            y[n] = py;
+            n++;
+        }
+    }
+
+    private class ChartCanvas extends JComponent {
+        private double from;     // visible range, epoch seconds
+        private double to;
+        private boolean zoomed;  // false = follow the data's full range
+        private int dragX;
+        private double dragFrom;
+
+        ChartCanvas() {
+            setPreferredSize(new Dimension(900, 480));
+            setOpaque(true);
+
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    zoom(Math.pow(1.25, e.getPreciseWheelRotation()), secondsAt(e.getX()));
+                }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragX = e.getX();
+                    dragFrom = from;
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    double span = to - from;
+                    pan(dragFrom - (e.getX() - dragX) * span / plotWidth() - from);
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) showAll();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+
+        void dataChanged() {
+            if (zoomed) clampToData();
+            else showAll();
+            repaint();
+        }
+
+        void showAll() {
+            zoomed = false;
+            if (series == null || series.days.length == 0) return;
+            from = series.days[0] * DAY;
+            to = (series.days[series.days.length - 1] + 1) * DAY;
+            repaint();
+        }
+
+        private double dataStart() {
+            return series.days[0] * DAY;
+        }
+
+        private double dataEnd() {
+            return (series.days[series.days.length - 1] + 1) * DAY;
+        }
+
+        private void zoom(double factor, double center) {
+            if (series == null || series.days.length == 0) return;
+            double full = dataEnd() - dataStart();
+            double span = to - from;
+            double newSpan = Math.max(Math.min(span * factor, full), Math.min(MIN_SPAN_SECONDS, full));
+            from = center - (center - from) * newSpan / span;
+            to = from + newSpan;
+            zoomed = newSpan < full;
+            clampToData();
+            repaint();
+        }
+
+        private void pan(double seconds) {
+            if (series == null || series.days.length == 0 || !zoomed) return;
+            from += seconds;
+            to += seconds;
+            clampToData();
+            repaint();
+        }
+
+        private void clampToData() {
+            double span = Math.min(to - from, dataEnd() - dataStart());
+            if (from < dataStart()) from = dataStart();
+            if (from + span > dataEnd()) from = dataEnd() - span;
+            to = from + span;
+        }
+
+        // Plot area: room for the amount labels on the left.
+        private static final int LEFT = 90;
+        private static final int RIGHT = 16;
+        private static final int TOP = 12;
+        private static final int AXIS = 26;
+
+        private int plotWidth() {
+            return Math.max(1, getWidth() - LEFT - RIGHT);
+        }
+
+        private double secondsAt(int px) {
+            return from + (px - LEFT) * (to - from) / plotWidth();
+        }
+
+        private int pixelAt(double seconds) {
+            return LEFT + (int) Math.round((seconds - from) * plotWidth() / (to - from));
+        }
+
+        @Override
+        protected void paintComponent(Graphics graphics) {
+            long start = System.nanoTime();
+            Graphics2D g = (Graphics2D) graphics.create();
+            // Antialiased lines cost a few ms per thousand points; with one point per pixel they add little.
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, getWidth(), getHeight());
+            g.setColor(Color.GRAY);
+
+            if (series == null || series.days.length == 0) {
+                g.drawString(series == null ? "Loading..." : "No transactions yet.", LEFT, TOP + 20);
+                g.dispose();
+                return;
+            }
+
+            int plotHeight = getHeight() - TOP - 2 * AXIS;
+            int balanceHeight = plotHeight * 2 / 3;
+            int spendTop = TOP + balanceHeight + AXIS;
+            int spendHeight = plotHeight - balanceHeight;
+
+            Points points = balancePoints(plotWidth());
+            drawBalance(g, points, TOP, balanceHeight);
+            int bars = drawSpend(g, spendTop, spendHeight);
+            drawTimeAxis(g, TOP + balanceHeight);
+            g.dispose();
+
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            String text = String.format("Balance: %,d of %,d %s   Spending: %d bars   Drawn in %.1f ms",
+                    points.n, points.candidates, points.perTransaction ? "transactions" : "daily closes", bars, millis);
+            if (!text.equals(status.getText())) status.setText(text);
+        }
+
+        // The visible balance line, at most about one point per pixel column.
+        private Points balancePoints(int width) {
+            long firstDay = (long) Math.floor(from / DAY);
+            long lastDay = (long) Math.floor((to - 1) / DAY);
+            List<LedgerRow> slice = DateIndex.slice(series.rows, LedgerRow::getEpochDay,
+                    LocalDate.ofEpochDay(firstDay), LocalDate.ofEpochDay(lastDay));
+
+            Points all;
+            boolean perTransaction = slice.size() <= DETAIL_ROWS;
+            if (perTransaction) {
+                // Balance after each transaction, oldest first, starting from the day before's close.
+                all = new Points(slice.size() + 2);
+                long balance = series.closeBefore(firstDay);
+                all.add(firstDay * DAY, balance);
+                for (int i = slice.size() - 1; i >= 0; i--) {
+                    LedgerRow row = slice.get(i);
+                    balance += row.getCents();
+                    all.add(row.getEpochSecond(), balance);
+                }
+                all.add((lastDay + 1) * DAY, balance);
+            } else {
+                // Daily closes, plus one day either side so the line reaches both edges.
+                int lo = Math.max(0, series.dayIndex(firstDay) - 1);
+                int hi = Math.min(series.days.length, series.dayIndex(lastDay + 1) + 1);
+                all = new Points(hi - lo);
+                for (int i = lo; i < hi; i++) {
+                    all.add(series.days[i] * DAY + DAY - 1, series.closeCents[i]);
+                }
+            }
+
+            // Whole days were read; keep the visible points plus one either side for the edges.
+            int lo = Math.max(0, firstAtOrAfter(all, from) - 1);
+            int hi = Math.min(all.n, firstAtOrAfter(all, to) + 1);
+            double[] x = Arrays.copyOfRange(all.x, lo, hi);
+            double[] y = Arrays.copyOfRange(all.y, lo, hi);
+
+            int[] keep = Downsampler.lttb(x, y, x.length, Math.max(3, width));
+            Points shown = new Points(keep.length);
+            for (int i : keep) shown.add(x[i], y[i]);
+            shown.candidates = x.length;
+            shown.perTransaction = perTransaction;
+            return shown;
+        }
+
+        private static int firstAtOrAfter(Points p, double seconds) {
+            int lo = 0;
+            int hi = p.n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (p.x[mid] < seconds) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private void drawBalance(Graphics2D g, Points p, int top, int height) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = 0; i < p.n; i++) {
+                min = Math.min(min, p.y[i]);
+                max = Math.max(max, p.y[i]);
+            }
+            if (max - min < 100) {
+                min -= 50;
+                max += 50;
+            }
+            double pad = (max - min) * 0.05;
+            min -= pad;
+            max += pad;
+
+            // Four amount gridlines.
+            for (int i = 0; i <= 4; i++) {
+                double cents = min + (max - min) * i / 4;
+                int y = top + height - (int) Math.round((cents - min) * height / (max - min));
+                g.setColor(GRID);
+                g.drawLine(LEFT, y, LEFT + plotWidth(), y);
+                g.setColor(Color.DARK_GRAY);
+                g.drawString(String.format("%,.2f", cents / 100), 4, Math.min(y + 4, top + height - 2));
+            }
+
+            int[] xs = new int[p.n];
+            int[] ys = new int[p.n];
+            for (int i = 0; i < p.n; i++) {
+                xs[i] = pixelAt(p.x[i]);
+                ys[i] = top + height - (int) Math.round((p.y[i] - min) * height / (max - min));
+            }
+            Shape clip = g.getClip();
+            g.clipRect(LEFT, top, plotWidth() + 1, height + 1);
+            g.setColor(BALANCE);
+            g.drawPolyline(xs, ys, p.n);
+            g.setClip(clip);
+            g.setColor(Color.DARK_GRAY);
+            g.drawString("Balance", LEFT + 4, top + 12);
+        }
+
+        // Monthly spend bars; neighbouring months are summed when a bar would be too thin.
+        private int drawSpend(Graphics2D g, int top, int height) {
+            int firstVisible = Series.month((long) Math.floor(from / DAY)) - series.firstMonth;
+            int lastVisible = Series.month((long) Math.floor((to - 1) / DAY)) - series.firstMonth;
+            firstVisible = Math.max(0, firstVisible);
+            lastVisible = Math.min(series.monthSpendCents.length - 1, lastVisible);
+            int months = lastVisible - firstVisible + 1;
+            int group = Math.max(1, (int) Math.ceil((double) months * MIN_BAR_PIXELS / plotWidth()));
+
+            // Groups start at multiples of `group`, so bars don't shift while panning.
+            int firstGroup = Math.floorDiv(firstVisible, group) * group;
+            List<long[]> bars = new ArrayList<>();   // {first month, spend}
+            long max = 1;
+            for (int m = firstGroup; m <= lastVisible; m += group) {
+                long sum = 0;
+                for (int k = m; k < m + group && k < series.monthSpendCents.length; k++) {
+                    if (k >= 0) sum += series.monthSpendCents[k];
+                }
+                bars.add(new long[]{m, sum});
+                max = Math.max(max, sum);
+            }
+
+            int barArea = height - 16;   // room for the title above the tallest bar
+            Shape clip = g.getClip();
+            g.clipRect(LEFT, top, plotWidth() + 1, height + 1);
+            g.setColor(SPEND);
+            for (long[] bar : bars) {
+                int m = (int) bar[0] + series.firstMonth;
+                int x0 = pixelAt(Series.monthStartSecond(m));
+                int x1 = pixelAt(Series.monthStartSecond(m + group));
+                int h = (int) Math.round((double) bar[1] * barArea / max);
+                g.fillRect(x0 + 1, top + height - h, Math.max(1, x1 - x0 - 1), h);
+            }
+            g.setClip(clip);
+
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(String.format("%,.2f", max / 100.0), 4, top + height - barArea + 4);
+            g.drawString("0.00", 4, top + height);
+            g.drawString(group == 1 ? "Spending per month" : "Spending per " + group + " months", LEFT + 4, top + 12);
+            return bars.size();
+        }
+
+        private void drawTimeAxis(Graphics2D g, int y) {
+            double span = to - from;
+            DateTimeFormatter format = span > 400 * DAY ? DateTimeFormatter.ofPattern("MMM yyyy")
+                    : span > 3 * DAY ? DateTimeFormatter.ofPattern("MMM d, yyyy")
+                    : DateTimeFormatter.ofPattern("MMM d HH:mm");
+            int ticks = Math.max(2, plotWidth() / 150);
+            g.setColor(Color.DARK_GRAY);
+            g.drawLine(LEFT, y, LEFT + plotWidth(), y);
+            FontMetrics fm = g.getFontMetrics();
+            for (int i = 0; i <= ticks; i++) {
+                double seconds = from + span * i / ticks;
+                String label = LocalDateTime.ofEpochSecond((long) seconds, 0, ZoneOffset.UTC).format(format);
+                int x = pixelAt(seconds);
+                int w = fm.stringWidth(label);
+                int lx = Math.max(LEFT - w / 2, Math.min(x - w / 2, getWidth() - w - 2));
+                g.drawLine(x, y, x, y + 4);
+                g.drawString(label, lx, y + 4 + fm.getAscent());
+            }
+        }
+    }
+}
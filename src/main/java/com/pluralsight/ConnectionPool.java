@@ -0,0 +1,143 @@
+package com.pluralsight;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small fixed-size JDBC connection pool.
+ *
+ * {@link #getConnection()} hands out a wrapper whose {@code close()} puts the
+ * real connection back in the pool, so callers keep using try-with-resources.
+ * At most {@code maxSize} connections are open at once; extra callers wait.
+ * With the {@link QueryProfiler} on, the statements it creates are profiled too.
+ */
+public class ConnectionPool {
+
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final BlockingQueue<Connection> idle;
+    private final Semaphore permits;
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Connection getConnection() throws SQLException {
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+
+        try {
+            Connection real = idle.poll();
+            if (real == null || real.isClosed()) {
+                real = DriverManager.getConnection(url, user, password);
+            }
+            return wrap(real);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Closes every idle connection (borrowed ones close when returned). */
+    public void shutdown() {
+        Connection c;
+        while ((c = idle.poll()) != null) {
+            try {
+                c.close();
+            } catch (SQLException ignored) {
+                // Already broken; nothing more to do.
+            }
+        }
+    }
+
+    private Connection wrap(Connection real) {
+        boolean[] returned = {false};
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                release(real);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned[0] || real.isClosed();
+                        }
+                        case "unwrap", "isWrapperFor" -> {
+                            // fall through to the real connection
+                        }
+                        case "prepareStatement", "createStatement" -> {
+                            if (returned[0]) throw new SQLException("Connection already returned to the pool");
+                            if (QueryProfiler.isEnabled()) {
+                                String sql = method.getName().equals("prepareStatement") ? (String) args[0] : null;
+                                return QueryProfiler.wrap((Statement) invoke(method, real, args), sql, this);
+                            }
+                        }
+                        default -> {
+                            if (returned[0]) throw new SQLException("Connection already returned to the pool");
+                        }
+                    }
+                    return invoke(method, real, args);
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void release(Connection real) {
+        try {
+            if (!real.isClosed()) {
+                // Don't hand the next caller someone else's half-finished transaction.
+                if (!real.getAutoCommit()) {
+                    real.rollback();
+                    real.setAutoCommit(true);
+                }
+                if (!idle.offer(real)) real.close();
+            }
+        } catch (SQLException e) {
+            try {
+                real.close();
+            } catch (SQLException ignored) {
+                // Broken connection; just drop it.
+            }
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.pluralsight;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Month-to-date, previous month, year-to-date and previous year totals plus
+ * year-over-year comparisons, all from one pass over the rows.
+ *
+ * Every window is a day range with its own {@link PeriodTotal}; each row is
+ * added to the windows it falls in. The whole dashboard needs only the rows from
+ * the start of last year to the end of this year ({@link #getScanStart()} ..
+ * {@link #getScanEnd()}), read once, instead of one read per report.
+ */
+public class Dashboard {
+
+    /** One labelled date range and its totals. */
+    public static class Line {
+        public final String label;
+        public final LocalDate from;
+        public final LocalDate to;
+        public final PeriodTotal total = new PeriodTotal();
+        private final long fromDay;
+        private final long toDay;
+
+        Line(String label, LocalDate from, LocalDate to) {
+            this.label = label;
+            this.from = from;
+            this.to = to;
+            this.fromDay = from.toEpochDay();
+            this.toDay = to.toEpochDay();
+        }
+    }
+
+    /** This year's window against the same days a year earlier. */
+    public static class Comparison {
+        public final String label;
+        public final Line current;
+        public final Line previous;
+
+        Comparison(String label, Line current, Line previous) {
+            this.label = label;
+            this.current = current;
+            this.previous = previous;
+        }
+
+        public long getNetChangeCents() {
+            return current.total.getNetCents() - previous.total.getNetCents();
+        }
+
+        /** Change in net as a percentage of last year's, or null when last year's net was 0. */
+        public Double getNetChangePercent() {
+            long before = previous.total.getNetCents();
+            return before == 0 ? null : 100.0 * getNetChangeCents() / Math.abs(before);
+        }
+    }
+
+    private final List<Line> periods = new ArrayList<>();
+    private final List<Comparison> comparisons = new ArrayList<>();
+    private final Line[] windows;
+    private final LocalDate scanStart;
+    private final LocalDate scanEnd;
+    private long rowsScanned;
+
+    public Dashboard(LocalDate today) {
+        for (ReportPeriod p : new ReportPeriod[]{ReportPeriod.MONTH_TO_DATE, ReportPeriod.PREVIOUS_MONTH,
+                ReportPeriod.YEAR_TO_DATE, ReportPeriod.PREVIOUS_YEAR}) {
+            periods.add(new Line(p.getTitle(), p.start(today), p.end(today)));
+        }
+
+        // Year over year compares "so far" windows ending today with the same days last year.
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate yearStart = today.withDayOfYear(1);
+        comparisons.add(new Comparison("MONTH SO FAR vs LAST YEAR",
+                new Line("MONTH SO FAR", monthStart, today),
+                new Line("SAME DAYS LAST YEAR", monthStart.minusYears(1), today.minusYears(1))));
+        comparisons.add(new Comparison("YEAR SO FAR vs LAST YEAR",
+                new Line("YEAR SO FAR", yearStart, today),
+                new Line("SAME DAYS LAST YEAR", yearStart.minusYears(1), today.minusYears(1))));
+
+        List<Line> all = new ArrayList<>(periods);
+        for (Comparison c : comparisons) {
+            all.add(c.current);
+            all.add(c.previous);
+        }
+        windows = all.toArray(new Line[0]);
+
+        scanStart = yearStart.minusYears(1);
+        scanEnd = today.withDayOfYear(today.lengthOfYear());
+    }
+
+    /** Runs the dashboard with one streaming read of the current ledger. */
+    public static Dashboard scan(LocalDate today) throws SQLException {
+        Dashboard dashboard = new Dashboard(today);
+        TransactionManager.streamTransactions(
+                new TransactionQuery(dashboard.scanStart, dashboard.scanEnd, null, null, null, null),
+                dashboard::accept);
+        return dashboard;
+    }
+
+    public void accept(Transaction t) {
+        add(t.getDate().toEpochDay(), Math.round(t.getAmount() * 100));
+    }
+
+    public void add(long epochDay, long cents) {
+        rowsScanned++;
+        for (Line w : windows) {
+            if (epochDay >= w.fromDay && epochDay <= w.toDay) w.total.addCents(cents);
+        }
+    }
+
+    // Getters
+    public LocalDate getScanStart() { return scanStart; }
+    public LocalDate getScanEnd() { return scanEnd; }
+    public long getRowsScanned() { return rowsScanned; }
+    public List<Line> getPeriods() { return periods; }
+    public List<Comparison> getComparisons() { return comparisons; }
+}
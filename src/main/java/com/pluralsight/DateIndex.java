@@ -0,0 +1,42 @@
+package com.pluralsight;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Date-range lookups over a list that is kept sorted newest first.
+ *
+ * Any date range is a contiguous run of such a list, so a range is found with two
+ * binary searches on the epoch day and returned as a {@code subList} view: no
+ * scan, no copy, no per-row date objects.
+ *
+ * The returned view is only valid until the underlying list is next modified.
+ */
+final class DateIndex {
+
+    private DateIndex() {
+        // no instances
+    }
+
+    /**
+     * Rows dated from {@code from} to {@code to}, both inclusive (null = open end).
+     */
+    static <T> List<T> slice(List<T> newestFirst, ToLongFunction<T> epochDayOf, LocalDate from, LocalDate to) {
+        int start = to == null ? 0 : firstAtOrBefore(newestFirst, epochDayOf, to.toEpochDay());
+        int end = from == null ? newestFirst.size() : firstAtOrBefore(newestFirst, epochDayOf, from.toEpochDay() - 1);
+        return newestFirst.subList(start, Math.max(start, end));
+    }
+
+    // First index whose epoch day is <= day (size() if none).
+    private static <T> int firstAtOrBefore(List<T> newestFirst, ToLongFunction<T> epochDayOf, long day) {
+        int lo = 0;
+        int hi = newestFirst.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDayOf.applyAsLong(newestFirst.get(mid)) <= day) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+}
@@ -1,5 +1,9 @@
 package com.pluralsight;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Central place for DB connection settings.
  *
@@ -9,12 +13,82 @@ package com.pluralsight;
  * Provide credentials using either:
  *  - Environment variables: LEDGER_DB_USER and LEDGER_DB_PASSWORD (recommended), OR
  *  - JVM system properties: -Dledger.db.user=... -Dledger.db.password=...
+ *
+ * Multiple ledgers: list their ids in -Dledger.ids=main,ops (or LEDGER_IDS) and give
+ * each its own database or schema with -Dledger.ops.db.url=... (plus optional
+ * .db.user / .db.password). The "main" ledger falls back to -Dledger.db.url /
+ * LEDGER_DB_URL and then {@link #URL}. -Dledger.active=ops picks the ledger the
+ * app works on.
+ *
+ * Read replicas: -Dledger.db.replicas=url1,url2 (or LEDGER_DB_REPLICAS) for the main
+ * ledger, -Dledger.ops.db.replicas=... for others. Reports and loads are spread over
+ * the healthy replicas; saves always go to the ledger's URL (the primary).
  */
 public class DbConfig {
 
     // User-requested URL
     public static final String URL = "jdbc:mysql://localhost:3306/AccountLedger";
 
+    /** The ledger used when none is configured. */
+    public static final String DEFAULT_LEDGER = "main";
+
+    /** Ledger ids in configuration order (default: just "main"). */
+    public static List<String> getLedgerIds() {
+        String value = System.getProperty("ledger.ids", System.getenv("LEDGER_IDS"));
+        List<String> ids = new ArrayList<>();
+        if (value != null) {
+            for (String id : value.split(",")) {
+                if (!id.isBlank() && !ids.contains(id.trim())) ids.add(id.trim());
+            }
+        }
+        if (ids.isEmpty()) ids.add(DEFAULT_LEDGER);
+        return ids;
+    }
+
+    /** Ledger the app starts on: -Dledger.active=... or LEDGER_ACTIVE (default: the first id). */
+    public static String getActiveLedger() {
+        String value = System.getProperty("ledger.active", System.getenv("LEDGER_ACTIVE"));
+        return value == null || value.isBlank() ? getLedgerIds().get(0) : value.trim();
+    }
+
+    public static String getUrl(String ledgerId) {
+        String prop = System.getProperty("ledger." + ledgerId + ".db.url");
+        if (prop != null && !prop.isBlank()) return prop;
+
+        if (ledgerId.equals(DEFAULT_LEDGER)) {
+            String value = System.getProperty("ledger.db.url", System.getenv("LEDGER_DB_URL"));
+            if (value != null && !value.isBlank()) return value;
+            return URL;
+        }
+        throw new IllegalArgumentException("No URL configured for ledger '" + ledgerId
+                + "' (set -Dledger." + ledgerId + ".db.url=...)");
+    }
+
+    /** Read-replica URLs for a ledger (empty when reads should use the primary). */
+    public static List<String> getReplicaUrls(String ledgerId) {
+        String value = System.getProperty("ledger." + ledgerId + ".db.replicas");
+        if ((value == null || value.isBlank()) && ledgerId.equals(DEFAULT_LEDGER)) {
+            value = System.getProperty("ledger.db.replicas", System.getenv("LEDGER_DB_REPLICAS"));
+        }
+        List<String> urls = new ArrayList<>();
+        if (value != null) {
+            for (String url : value.split(",")) {
+                if (!url.isBlank()) urls.add(url.trim());
+            }
+        }
+        return urls;
+    }
+
+    public static String getUser(String ledgerId) {
+        String prop = System.getProperty("ledger." + ledgerId + ".db.user");
+        return prop != null && !prop.isBlank() ? prop : getUser();
+    }
+
+    public static String getPassword(String ledgerId) {
+        String prop = System.getProperty("ledger." + ledgerId + ".db.password");
+        return prop != null ? prop : getPassword();
+    }
+
     public static String getUser() {
         String prop = System.getProperty("ledger.db.user");
         if (prop != null && !prop.isBlank()) return prop;
@@ -37,6 +111,106 @@ public class DbConfig {
         return "";
     }
 
+    /** Max open connections: -Dledger.db.poolSize=... or LEDGER_DB_POOL_SIZE (default 8). */
+    public static int getPoolSize() {
+        String value = System.getProperty("ledger.db.poolSize", System.getenv("LEDGER_DB_POOL_SIZE"));
+        if (value != null && !value.isBlank()) {
+            try {
+                return Math.max(1, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // fall back to the default
+            }
+        }
+        return 8;
+    }
+
+    /**
+     * How long reads stay on the primary after a write, so a saved transaction shows
+     * up at once even if the replicas lag: -Dledger.db.readYourWritesMs=... or
+     * LEDGER_DB_READ_YOUR_WRITES_MS (default 5000).
+     */
+    public static long getReadYourWritesMillis() {
+        return getLong("ledger.db.readYourWritesMs", "LEDGER_DB_READ_YOUR_WRITES_MS", 5000);
+    }
+
+    /**
+     * Seconds any single statement may run before the driver cancels it:
+     * -Dledger.db.queryTimeoutSeconds=... (default 120, 0 = no limit).
+     */
+    public static int getQueryTimeoutSeconds() {
+        return (int) Math.min(Integer.MAX_VALUE, getLong("ledger.db.queryTimeoutSeconds", "LEDGER_DB_QUERY_TIMEOUT_SECONDS", 120));
+    }
+
+    /** Seconds between replica health checks: -Dledger.db.healthCheckSeconds=... (default 10). */
+    public static long getHealthCheckSeconds() {
+        return Math.max(1, getLong("ledger.db.healthCheckSeconds", "LEDGER_DB_HEALTH_CHECK_SECONDS", 10));
+    }
+
+    /**
+     * Connections used for the initial full load: -Dledger.load.partitions=...
+     * (default: one per CPU, capped by the pool size; 1 reads on a single connection).
+     */
+    public static int getLoadPartitions() {
+        long cpus = Runtime.getRuntime().availableProcessors();
+        return (int) Math.max(1, Math.min(64, getLong("ledger.load.partitions", "LEDGER_LOAD_PARTITIONS", cpus)));
+    }
+
+    /**
+     * Archived vendors a vendor report groups in memory at once before splitting the
+     * vendors into parts: -Dledger.archive.vendorsInMemory=... (default 100000).
+     */
+    public static int getArchivedVendorsInMemory() {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, getLong("ledger.archive.vendorsInMemory",
+                "LEDGER_ARCHIVE_VENDORS_IN_MEMORY", 100_000)));
+    }
+
+    private static long getLong(String property, String env, long defaultValue) {
+        String value = System.getProperty(property, System.getenv(env));
+        if (value != null && !value.isBlank()) {
+            try {
+                return Math.max(0, Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // fall back to the default
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Folder for a ledger's archived (cold) year segments:
+     * -Dledger.archive.dir=... or LEDGER_ARCHIVE_DIR (default ./archive).
+     * Ledgers other than "main" use a sub-folder named after the ledger.
+     */
+    public static Path getArchiveDir(String ledgerId) {
+        String value = System.getProperty("ledger.archive.dir", System.getenv("LEDGER_ARCHIVE_DIR"));
+        Path base = Path.of(value == null || value.isBlank() ? "archive" : value.trim());
+        return ledgerId.equals(DEFAULT_LEDGER) ? base : base.resolve(ledgerId);
+    }
+
+    /** Swing events slower than this are logged with a stack sample: -Dledger.edt.stallMs=... (default 250, 0 = off). */
+    public static long getEdtStallMillis() {
+        return getLong("ledger.edt.stallMs", "LEDGER_EDT_STALL_MS", 250);
+    }
+
+    /** Statement profiling for the Diagnostics tab and query log: -Dledger.db.profile=true (default off). */
+    public static boolean isQueryProfilerEnabled() {
+        String value = System.getProperty("ledger.db.profile", System.getenv("LEDGER_DB_PROFILE"));
+        return value != null && Boolean.parseBoolean(value.trim());
+    }
+
+    /** Profiled statements at least this slow get an EXPLAIN: -Dledger.db.slowQueryMs=... (default 500). */
+    public static long getSlowQueryMillis() {
+        return getLong("ledger.db.slowQueryMs", "LEDGER_DB_SLOW_QUERY_MS", 500);
+    }
+
+    /** Local cache files such as schema markers: -Dledger.cache.dir=... (default ~/.account-ledger). */
+    public static Path getCacheDir() {
+        String value = System.getProperty("ledger.cache.dir", System.getenv("LEDGER_CACHE_DIR"));
+        return value == null || value.isBlank()
+                ? Path.of(System.getProperty("user.home"), ".account-ledger")
+                : Path.of(value.trim());
+    }
+
     private DbConfig() {
         // no instances
     }
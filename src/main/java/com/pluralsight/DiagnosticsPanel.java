@@ -0,0 +1,159 @@
+package com.pluralsight;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recent statements from the {@link QueryProfiler}: time, duration, rows and SQL,
+ * newest first. Selecting a row shows its parameters and, for slow statements,
+ * the EXPLAIN output. The list refreshes on demand (and every few seconds while
+ * Auto refresh is ticked), never on its own per query.
+ */
+public class DiagnosticsPanel extends JPanel {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private final EntryTableModel entries = new EntryTableModel();
+    private final JTable table = new JTable(entries);
+    private final JTextArea details = new JTextArea(8, 80);
+    private final JCheckBox slowOnly = new JCheckBox("Slow only");
+    private final JCheckBox autoRefresh = new JCheckBox("Auto refresh");
+    private final Timer timer = new Timer(3000, e -> refresh());
+
+    public DiagnosticsPanel() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+
+        table.setFillsViewportHeight(true);
+        table.setRowHeight(22);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnModel().getColumn(4).setPreferredWidth(600);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) showDetails();
+        });
+
+        details.setEditable(false);
+        details.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(table), new JScrollPane(details));
+        split.setResizeWeight(0.7);
+
+        add(buildTop(), BorderLayout.NORTH);
+        add(split, BorderLayout.CENTER);
+
+        slowOnly.addActionListener(e -> refresh());
+        autoRefresh.addActionListener(e -> {
+            if (autoRefresh.isSelected()) timer.start();
+            else timer.stop();
+        });
+
+        refresh();
+    }
+
+    private JComponent buildTop() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        if (QueryProfiler.isEnabled()) {
+            panel.add(new JLabel("Statements (slow = " + QueryProfiler.getSlowQueryMillis() + " ms or more):"));
+        } else {
+            panel.add(new JLabel("Query profiler is off; start with -Dledger.db.profile=true."));
+        }
+        panel.add(slowOnly);
+        panel.add(autoRefresh);
+
+        JButton refresh = new JButton("Refresh");
+        refresh.addActionListener(e -> refresh());
+        panel.add(refresh);
+
+        JButton clear = new JButton("Clear");
+        clear.addActionListener(e -> {
+            QueryProfiler.clear();
+            refresh();
+        });
+        panel.add(clear);
+        return panel;
+    }
+
+    private void refresh() {
+        List<QueryProfiler.Entry> shown = new ArrayList<>();
+        for (QueryProfiler.Entry entry : QueryProfiler.recent()) {
+            if (!slowOnly.isSelected() || entry.isSlow()) shown.add(entry);
+        }
+        entries.setEntries(shown);
+        showDetails();
+    }
+
+    private void showDetails() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            details.setText("");
+            return;
+        }
+        QueryProfiler.Entry entry = entries.get(row);
+        StringBuilder sb = new StringBuilder();
+        sb.append(entry.getSql()).append("\n\nParameters: ").append(entry.getParams());
+        sb.append(String.format("%nLedger: %s   Time: %.1f ms   Rows: %d", entry.getLedger(), entry.getMillis(), entry.getRows()));
+        if (entry.getPlan() != null) {
+            sb.append("\n\nEXPLAIN:\n").append(entry.getPlan());
+        } else if (entry.isSlow()) {
+            sb.append("\n\nEXPLAIN: pending (Refresh to see it)");
+        }
+        details.setText(sb.toString());
+        details.setCaretPosition(0);
+    }
+
+    private static class EntryTableModel extends AbstractTableModel {
+        private static final String[] COLS = {"Time", "Ledger", "ms", "Rows", "SQL"};
+        private List<QueryProfiler.Entry> rows = List.of();
+
+        void setEntries(List<QueryProfiler.Entry> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        QueryProfiler.Entry get(int row) {
+            return rows.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return switch (columnIndex) {
+                case 2 -> Double.class;
+                case 3 -> Long.class;
+                default -> String.class;
+            };
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            QueryProfiler.Entry entry = rows.get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> TIME.format(entry.getTime());
+                case 1 -> entry.getLedger();
+                case 2 -> Math.round(entry.getMillis() * 10) / 10.0;
+                case 3 -> entry.getRows();
+                case 4 -> (entry.isSlow() ? "SLOW  " : "") + entry.getSql();
+                default -> null;
+            };
+        }
+    }
+}
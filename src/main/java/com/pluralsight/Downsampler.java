@@ -0,0 +1,71 @@
+package com.pluralsight;
+
+/**
+ * Largest-Triangle-Three-Buckets (LTTB) downsampling of a line series.
+ *
+ * Keeps the first and last point, splits the rest into {@code threshold - 2}
+ * equal buckets and from each keeps the point that forms the largest triangle
+ * with the point kept from the previous bucket and the average of the next
+ * bucket. Peaks and dips survive, unlike averaging or taking every n-th point.
+ * One pass, O(n).
+ */
+final class Downsampler {
+
+    private Downsampler() {
+        // no instances
+    }
+
+    /**
+     * Indexes of at most {@code threshold} points of {@code x[0..n)}, {@code y[0..n)}
+     * (x ascending) to draw instead of all {@code n}, in ascending order.
+     */
+    static int[] lttb(double[] x, double[] y, int n, int threshold) {
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            return all;
+        }
+
+        int[] kept = new int[threshold];
+        int k = 0;
+        kept[k++] = 0;
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;   // point kept from the previous bucket
+
+        for (int b = 0; b < threshold - 2; b++) {
+            int start = (int) (b * bucketSize) + 1;
+            int end = (int) ((b + 1) * bucketSize) + 1;
+
+            // Average of the next bucket (just the last point for the final bucket).
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((b + 2) * bucketSize) + 1, n);
+            if (b == threshold - 3) {
+                nextStart = n - 1;
+                nextEnd = n;
+            }
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            avgX /= nextEnd - nextStart;
+            avgY /= nextEnd - nextStart;
+
+            int best = start;
+            double bestArea = -1;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle's area; only the comparison matters.
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = i;
+                }
+            }
+            kept[k++] = best;
+            a = best;
+        }
+        kept[k++] = n - 1;
+        return kept;
+    }
+}
@@ -0,0 +1,109 @@
+package com.pluralsight;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Duplicate screening for inserts: a 64-bit fingerprint per transaction and a
+ * Bloom filter over the fingerprints already in a ledger's table.
+ *
+ * The fingerprint covers date, time (to the second, like the TIME column), vendor,
+ * amount in cents and description; vendor and description ignore case and extra
+ * spaces. It is stored in the table's unique {@code fingerprint} column, which is
+ * what actually keeps duplicates out.
+ *
+ * The filter only saves the lookups: "not present" is certain, so such rows are
+ * inserted without asking the database. "Maybe present" (about 1 in 100 new rows
+ * once the filter is loaded, plus every real duplicate) is confirmed with a query.
+ * Rows inserted by another process aren't in this filter; the unique column
+ * rejects those. Archived rows are in neither, so saves dated in an archived year
+ * are checked against that year's segment (see {@link LedgerArchive#fingerprints}).
+ */
+final class DuplicateFilter {
+
+    private static final int HASHES = 7;            // ~1% false positives at 10 bits per row
+    private static final int BITS_PER_ROW = 10;
+    private static final int MIN_CAPACITY = 100_000;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final long capacity;
+    private final AtomicLong added = new AtomicLong();
+
+    /** Sized for {@code rows} existing fingerprints plus as many new ones. */
+    DuplicateFilter(long rows) {
+        capacity = Math.max(MIN_CAPACITY, 2 * rows);
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (capacity * BITS_PER_ROW + 63) / 64);
+        words = new AtomicLongArray(wordCount);
+        bits = (long) wordCount * 64;
+    }
+
+    /** Fingerprint of the fields that make two transactions the same. */
+    static long fingerprint(Transaction t) {
+        long h = 0xcbf29ce484222325L;   // FNV-1a, then a final mix
+        h = mix(h, t.getDate().toEpochDay());
+        h = mix(h, t.getTime().toSecondOfDay());
+        h = mix(h, Math.round(t.getAmount() * 100));
+        h = mix(h, t.getVendor());
+        h = mix(h, t.getDescription());
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (value & 0xff)) * 0x100000001b3L;
+            value >>>= 8;
+        }
+        return h;
+    }
+
+    // Case-insensitive, leading/trailing spaces skipped and inner runs of spaces counted as one.
+    private static long mix(long h, String text) {
+        boolean space = false;
+        boolean started = false;
+        for (int i = 0; text != null && i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                space = started;
+                continue;
+            }
+            if (space) h = (h ^ ' ') * 0x100000001b3L;
+            h = (h ^ Character.toLowerCase(ch)) * 0x100000001b3L;
+            space = false;
+            started = true;
+        }
+        return (h ^ 0xff) * 0x100000001b3L;   // field separator
+    }
+
+    /** False means the fingerprint was never added. */
+    boolean mightContain(long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = (fingerprint >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    void add(long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = (fingerprint >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) words.getAndUpdate(word, w -> w | mask);
+        }
+        added.incrementAndGet();
+    }
+
+    /** Past its capacity the false-positive rate climbs; the ledger then loads a bigger one. */
+    boolean isFull() {
+        return added.get() > capacity;
+    }
+}
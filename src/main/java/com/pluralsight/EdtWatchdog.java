@@ -0,0 +1,202 @@
+package com.pluralsight;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Times every event the Swing event thread (EDT) dispatches.
+ *
+ * Installed as the system event queue, it records each event's duration in a
+ * log2 histogram (1 ms, 2 ms, 4 ms ... buckets) and reports any event that takes
+ * longer than the stall threshold, together with a stack sample of the EDT. The
+ * sample is taken by a watcher thread while the event is still running (once it
+ * passes the threshold), so it shows where the EDT was stuck rather than where it
+ * ended up. Numbers are published over JMX, see {@link EdtWatchdogMXBean}.
+ *
+ * Events that run a nested event loop (modal dialogs, JOptionPane) are not
+ * counted as stalls for the time the dialog was open.
+ */
+public class EdtWatchdog extends EventQueue implements EdtWatchdogMXBean {
+
+    private static final int BUCKETS = 16;   // <1 ms, <2 ms ... <32768 ms, then the rest
+    private static final int STACK_DEPTH = 25;
+
+    private final long thresholdNanos;
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS + 1);
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // EDT only: one frame per (possibly nested) dispatch.
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    // Shared with the watcher thread.
+    private volatile Thread edt;
+    private volatile long busySince;            // start of the innermost running event, 0 = idle
+    private volatile long sampledFor;           // busySince value the last sample belongs to
+    private volatile StackTraceElement[] sample;
+
+    private static class Frame {
+        long start;
+        boolean pumped;   // ran a nested event loop
+    }
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    /**
+     * Replaces the system event queue with a watchdog reporting events slower
+     * than {@code thresholdMillis}; 0 leaves the queue alone. Call once, before
+     * the first window is shown.
+     */
+    public static void install(long thresholdMillis) {
+        if (thresholdMillis <= 0) return;
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+
+        ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "edt-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(5, thresholdMillis / 4);
+        watcher.scheduleAtFixedRate(watchdog::sampleIfStuck, period, period, TimeUnit.MILLISECONDS);
+
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(watchdog, new ObjectName("com.pluralsight:type=EdtWatchdog"));
+        } catch (JMException e) {
+            System.out.println("EDT watchdog not published over JMX: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long start = System.nanoTime();
+        Frame outer = frames.peek();
+        if (outer != null) outer.pumped = true;
+        Frame frame = new Frame();
+        frame.start = start;
+        frames.push(frame);
+        edt = Thread.currentThread();
+        busySince = start;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            frames.pop();
+            long end = System.nanoTime();
+            if (!frame.pumped) record(event, frame.start, end - frame.start);
+            // The outer event carries on after a nested loop; time the rest of it from here.
+            if (outer != null) outer.start = end;
+            busySince = outer != null ? end : 0;
+        }
+    }
+
+    private void record(AWTEvent event, long start, long nanos) {
+        events.incrementAndGet();
+        histogram.incrementAndGet(bucket(nanos));
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        if (nanos < thresholdNanos) return;
+
+        stalls.incrementAndGet();
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("EDT stall: ").append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms in ").append(describe(event));
+        StackTraceElement[] stack = sampledFor == start ? sample : null;
+        if (stack != null) {
+            for (int i = 0; i < stack.length && i < STACK_DEPTH; i++) {
+                sb.append("\n    at ").append(stack[i]);
+            }
+        }
+        System.out.println(sb);
+    }
+
+    // Watcher thread: grab the EDT's stack once per event that runs past the threshold.
+    private void sampleIfStuck() {
+        long since = busySince;
+        Thread thread = edt;
+        if (since == 0 || thread == null || since == sampledFor) return;
+        if (System.nanoTime() - since < thresholdNanos) return;
+        sample = thread.getStackTrace();
+        sampledFor = since;
+    }
+
+    private static String describe(AWTEvent event) {
+        String name = event.getClass().getSimpleName();
+        if (event instanceof ActionEvent action) return name + " \"" + action.getActionCommand() + "\"";
+        return name;
+    }
+
+    // Bucket i holds durations below 2^i ms; the last one holds the rest.
+    private static int bucket(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int b = 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(b, BUCKETS);
+    }
+
+    private long percentile(double p) {
+        long total = 0;
+        for (int i = 0; i < histogram.length(); i++) total += histogram.get(i);
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            seen += histogram.get(i);
+            if (seen >= rank) return i < BUCKETS ? 1L << i : getMaxMillis();
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public long getEventCount() { return events.get(); }
+
+    @Override
+    public long getStallCount() { return stalls.get(); }
+
+    @Override
+    public long getStallThresholdMillis() { return TimeUnit.NANOSECONDS.toMillis(thresholdNanos); }
+
+    @Override
+    public long getMaxMillis() { return TimeUnit.NANOSECONDS.toMillis(maxNanos.get()); }
+
+    @Override
+    public long getP50Millis() { return percentile(0.50); }
+
+    @Override
+    public long getP99Millis() { return percentile(0.99); }
+
+    @Override
+    public long[] getHistogram() {
+        long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) counts[i] = histogram.get(i);
+        return counts;
+    }
+
+    @Override
+    public String[] getHistogramBuckets() {
+        String[] labels = new String[BUCKETS + 1];
+        for (int i = 0; i < BUCKETS; i++) labels[i] = "< " + (1L << i) + " ms";
+        labels[BUCKETS] = ">= " + (1L << (BUCKETS - 1)) + " ms";
+        return labels;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < histogram.length(); i++) histogram.set(i, 0);
+        events.set(0);
+        stalls.set(0);
+        maxNanos.set(0);
+    }
+}
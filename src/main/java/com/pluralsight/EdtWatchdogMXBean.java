@@ -0,0 +1,28 @@
+package com.pluralsight;
+
+/**
+ * EDT responsiveness numbers, published over JMX as {@code com.pluralsight:type=EdtWatchdog}
+ * (e.g. in JConsole or VisualVM).
+ */
+public interface EdtWatchdogMXBean {
+
+    long getEventCount();
+
+    long getStallCount();
+
+    long getStallThresholdMillis();
+
+    long getMaxMillis();
+
+    /** Upper bound of the bucket holding the 50th / 99th percentile event. */
+    long getP50Millis();
+
+    long getP99Millis();
+
+    /** Event counts per bucket; see {@link #getHistogramBuckets()} for the ranges. */
+    long[] getHistogram();
+
+    String[] getHistogramBuckets();
+
+    void reset();
+}
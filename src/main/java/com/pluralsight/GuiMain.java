@@ -1,9 +1,10 @@
 package com.pluralsight;
 
 import javax.swing.*;
+import java.awt.*;
 
 public class GuiMain {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         // Use the system look and feel so it looks native on each OS.
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -11,9 +12,51 @@ public class GuiMain {
             // If look & feel can't be set, Swing will fall back to default.
         }
 
+        // Logs UI freezes and keeps EDT latency numbers (JMX: com.pluralsight:type=EdtWatchdog).
+        EdtWatchdog.install(DbConfig.getEdtStallMillis());
+
+        if (args.length > 0 && args[0].equals("--cds-training")) {
+            cdsTraining();
+            return;
+        }
+
         SwingUtilities.invokeLater(() -> {
             LedgerAppFrame frame = new LedgerAppFrame();
             frame.setVisible(true);
         });
     }
+
+    /**
+     * Builds the whole UI once and exits, so a run with -XX:ArchiveClassesAtExit
+     * records every class a normal start loads (see the "cds" profile in pom.xml).
+     * The build must not touch the configured database, so the one ledger is pointed
+     * at an in-memory H2 database (where the H2 driver isn't packaged, its loads
+     * simply fail).
+     */
+    private static void cdsTraining() throws Exception {
+        String ledger = DbConfig.DEFAULT_LEDGER;
+        System.setProperty("ledger.ids", ledger);
+        System.setProperty("ledger.active", ledger);
+        System.setProperty("ledger." + ledger + ".db.url", "jdbc:h2:mem:cds-training;MODE=MySQL");
+        System.setProperty("ledger." + ledger + ".db.replicas", "");
+        System.setProperty("ledger.db.replicas", "");
+
+        SwingUtilities.invokeAndWait(() -> {
+            if (GraphicsEnvironment.isHeadless()) {
+                // No window on a build server; the panels alone still load most of Swing.
+                LedgerTableModel model = new LedgerTableModel();
+                new AddTransactionPanel(model);
+                new LedgerPanel(model);
+                new ReportsPanel(model);
+                new ChartsPanel(model);
+                new DiagnosticsPanel();
+            } else {
+                LedgerAppFrame frame = new LedgerAppFrame();
+                frame.buildAllTabs();
+                frame.setVisible(true);
+                frame.dispose();
+            }
+        });
+        System.exit(0);
+    }
 }
@@ -0,0 +1,132 @@
+package com.pluralsight;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate heavy-hitter vendors using the weighted Space-Saving algorithm.
+ *
+ * Keeps at most {@code capacity} counters no matter how many vendors stream past.
+ * When a new vendor arrives and every counter is taken, the smallest counter is
+ * handed over to it and its old value is remembered as the possible over-count.
+ * Any vendor whose true spend is above total / capacity is guaranteed to be kept.
+ *
+ * The counters also sit in a binary min-heap on their spend, so finding the
+ * smallest one is O(1) and every offer costs O(log capacity).
+ */
+public class HeavyHitters {
+
+    /** One tracked vendor; {@code spent - error} is a lower bound on the true spend. */
+    public static class Counter {
+        public final String vendor;
+        public double spent;
+        public double error;
+        private int slot;   // position in the heap
+
+        Counter(String vendor, double spent, double error) {
+            this.vendor = vendor;
+            this.spent = spent;
+            this.error = error;
+        }
+    }
+
+    /** Most vendors {@link #scanPayments} ranks; larger requests are cut to this. */
+    public static final int MAX_TOP = 1_000;
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private double total = 0;
+
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /** Adds {@code weight} to the vendor's running total. */
+    public void offer(String vendor, double weight) {
+        total += weight;
+
+        Counter c = counters.get(vendor);
+        if (c != null) {
+            c.spent += weight;
+            siftDown(c.slot);
+            return;
+        }
+        int size = counters.size();
+        if (size < capacity) {
+            c = new Counter(vendor, weight, 0);
+            counters.put(vendor, c);
+            place(c, size);
+            siftUp(size);
+            return;
+        }
+
+        // Evict the smallest counter (the heap's root) and let the new vendor inherit its count.
+        Counter min = heap[0];
+        counters.remove(min.vendor);
+        c = new Counter(vendor, min.spent + weight, min.spent);
+        counters.put(vendor, c);
+        place(c, 0);
+        siftDown(0);
+    }
+
+    private void place(Counter c, int slot) {
+        heap[slot] = c;
+        c.slot = slot;
+    }
+
+    private void siftUp(int i) {
+        Counter c = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[parent].spent <= c.spent) break;
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(c, i);
+    }
+
+    // Spend only ever grows, so a changed counter can only move down.
+    private void siftDown(int i) {
+        int size = counters.size();
+        Counter c = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1].spent < heap[child].spent) child++;
+            if (heap[child].spent >= c.spent) break;
+            place(heap[child], i);
+            i = child;
+        }
+        place(c, i);
+    }
+
+    /** Total weight offered so far (exact). */
+    public double getTotal() {
+        return total;
+    }
+
+    /** Tracked vendors, biggest estimated spend first. */
+    public List<Counter> getTop(int n) {
+        List<Counter> sorted = new ArrayList<>(counters.values());
+        sorted.sort((a, b) -> Double.compare(b.spent, a.spent));
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    /**
+     * Streams every payment in the query's range once and returns the approximate
+     * top N vendors by spend. Uses a few times N counters so the estimates for the
+     * top N stay tight; N is capped at {@link #MAX_TOP}.
+     */
+    public static HeavyHitters scanPayments(int n, TransactionQuery query) throws SQLException {
+        HeavyHitters hitters = new HeavyHitters(Math.max(16, Math.min(n, MAX_TOP) * 4));
+        TransactionManager.streamTransactions(query.payments(), t -> hitters.offer(t.getVendor(), -t.getAmount()));
+        return hitters;
+    }
+}
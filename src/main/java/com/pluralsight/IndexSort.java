@@ -0,0 +1,109 @@
+package com.pluralsight;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort of row indexes by a primitive {@code long} key per row.
+ *
+ * Used by {@link LedgerRowSorter}: comparing two longs is far cheaper than going
+ * through getValueAt and Comparable/Collator for every comparison. Large arrays
+ * are sorted with a fork/join merge sort across all cores.
+ */
+final class IndexSort {
+
+    private static final int INSERTION_SORT_MAX = 32;
+    private static final int PARALLEL_GRAIN = 1 << 14;
+
+    private IndexSort() {
+        // no instances
+    }
+
+    /**
+     * Sorts {@code idx} so that {@code keys[idx[i]]} is ascending (or descending).
+     * Rows with equal keys keep their current relative order.
+     */
+    static void sort(int[] idx, long[] keys, boolean descending, boolean parallel) {
+        int[] tmp = new int[idx.length];
+        if (parallel && idx.length > PARALLEL_GRAIN) {
+            ForkJoinPool.commonPool().invoke(new SortTask(idx, tmp, 0, idx.length, keys, descending));
+        } else {
+            mergeSort(idx, tmp, 0, idx.length, keys, descending);
+        }
+    }
+
+    private static final class SortTask extends RecursiveAction {
+        private final int[] a;
+        private final int[] tmp;
+        private final int lo;
+        private final int hi;
+        private final long[] keys;
+        private final boolean desc;
+
+        SortTask(int[] a, int[] tmp, int lo, int hi, long[] keys, boolean desc) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.keys = keys;
+            this.desc = desc;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_GRAIN) {
+                mergeSort(a, tmp, lo, hi, keys, desc);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(a, tmp, lo, mid, keys, desc),
+                    new SortTask(a, tmp, mid, hi, keys, desc));
+            merge(a, tmp, lo, mid, hi, keys, desc);
+        }
+    }
+
+    // Sorts a[lo, hi).
+    private static void mergeSort(int[] a, int[] tmp, int lo, int hi, long[] keys, boolean desc) {
+        if (hi - lo <= INSERTION_SORT_MAX) {
+            insertionSort(a, lo, hi, keys, desc);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(a, tmp, lo, mid, keys, desc);
+        mergeSort(a, tmp, mid, hi, keys, desc);
+        merge(a, tmp, lo, mid, hi, keys, desc);
+    }
+
+    private static void merge(int[] a, int[] tmp, int lo, int mid, int hi, long[] keys, boolean desc) {
+        // Already in order (common when the data is nearly sorted).
+        if (!before(a[mid], a[mid - 1], keys, desc)) return;
+
+        System.arraycopy(a, lo, tmp, lo, hi - lo);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && !before(tmp[j], tmp[i], keys, desc))) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    private static void insertionSort(int[] a, int lo, int hi, long[] keys, boolean desc) {
+        for (int i = lo + 1; i < hi; i++) {
+            int x = a[i];
+            int j = i;
+            while (j > lo && before(x, a[j - 1], keys, desc)) {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = x;
+        }
+    }
+
+    /** True if row x must come strictly before row y. */
+    static boolean before(int x, int y, long[] keys, boolean desc) {
+        return desc ? keys[x] > keys[y] : keys[x] < keys[y];
+    }
+}
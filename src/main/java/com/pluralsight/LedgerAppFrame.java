@@ -2,31 +2,65 @@ package com.pluralsight;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 public class LedgerAppFrame extends JFrame {
 
+    private final JTabbedPane tabs = new JTabbedPane();
+    private final LedgerTableModel sharedModel = new LedgerTableModel();
+
+    // Tab builders; an entry is cleared once its panel is built.
+    private final List<Supplier<JComponent>> pending;
+
     public LedgerAppFrame() {
-        super("Accounting Ledger (Swing)");
+        super(Ledgers.ids().size() > 1
+                ? "Accounting Ledger (Swing) - ledger: " + Ledgers.current()
+                : "Accounting Ledger (Swing)");
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(980, 640);
         setLocationRelativeTo(null);
 
-        JTabbedPane tabs = new JTabbedPane();
-        LedgerTableModel sharedModel = new LedgerTableModel();
-
-        AddTransactionPanel addPanel = new AddTransactionPanel(sharedModel);
-        LedgerPanel ledgerPanel = new LedgerPanel(sharedModel);
-        ReportsPanel reportsPanel = new ReportsPanel(sharedModel);
-
-        tabs.addTab("Add Transaction", addPanel);
-        tabs.addTab("Ledger", ledgerPanel);
-        tabs.addTab("Reports", reportsPanel);
+        // Panels are built the first time their tab is selected, so the window shows sooner.
+        pending = new ArrayList<>(List.of(
+                () -> new AddTransactionPanel(sharedModel),
+                () -> new LedgerPanel(sharedModel),
+                () -> new ReportsPanel(sharedModel),
+                () -> new ChartsPanel(sharedModel),
+                DiagnosticsPanel::new));
+        tabs.addTab("Add Transaction", new JPanel());
+        tabs.addTab("Ledger", new JPanel());
+        tabs.addTab("Reports", new JPanel());
+        tabs.addTab("Charts", new JPanel());
+        tabs.addTab("Diagnostics", new JPanel());
+        buildTab(0);
+        tabs.addChangeListener(e -> buildTab(tabs.getSelectedIndex()));
 
         setLayout(new BorderLayout());
         add(tabs, BorderLayout.CENTER);
 
         // Initial load.
-        sharedModel.reloadAll();
+        loadInBackground();
+    }
+
+    /** Builds every tab that hasn't been opened yet (used by the CDS training run). */
+    void buildAllTabs() {
+        for (int i = 0; i < pending.size(); i++) {
+            buildTab(i);
+        }
+    }
+
+    private void buildTab(int index) {
+        if (index < 0 || pending.get(index) == null) return;
+        tabs.setComponentAt(index, pending.get(index).get());
+        pending.set(index, null);
+    }
+
+    // Reads on a worker thread so the window paints before the rows arrive.
+    private void loadInBackground() {
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        sharedModel.reloadInBackground(new QueryCancellation(), () -> setCursor(Cursor.getDefaultCursor()));
     }
 }
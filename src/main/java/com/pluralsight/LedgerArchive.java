@@ -0,0 +1,504 @@
+package com.pluralsight;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for closed years.
+ *
+ * Archiving a year moves its rows out of the {@code transactions} table into one
+ * immutable, gzip-compressed segment file per year ({@code ledger-YYYY.seg}).
+ * Each segment starts with a small uncompressed summary block (row count, deposit
+ * and payment totals), so year totals never need to decompress anything. Rows are
+ * stored newest first, the same order the queries use, so they can be merged
+ * with the live rows as they stream.
+ *
+ * {@link TransactionManager} merges segments into every read, so callers see
+ * one ledger regardless of where the rows live. Each ledger has its own folder.
+ */
+public class LedgerArchive {
+
+    private static final int MAGIC = 0x4C534547; // "LSEG"
+    private static final int VERSION = 1;
+    private static final int SUMMARY_SIZE = 40;
+
+    /** Row count and totals for one year. */
+    public static class YearSummary {
+        public final int year;
+        public final long rowCount;
+        public final long depositCents;
+        public final long paymentCents;   // negative
+
+        public YearSummary(int year, long rowCount, long depositCents, long paymentCents) {
+            this.year = year;
+            this.rowCount = rowCount;
+            this.depositCents = depositCents;
+            this.paymentCents = paymentCents;
+        }
+
+        public double getDeposits() { return depositCents / 100.0; }
+        public double getPayments() { return paymentCents / 100.0; }
+        public double getNet() { return (depositCents + paymentCents) / 100.0; }
+
+        YearSummary plus(YearSummary other) {
+            return new YearSummary(year, rowCount + other.rowCount,
+                    depositCents + other.depositCents, paymentCents + other.paymentCents);
+        }
+    }
+
+    /** Archived rows, newest first. Close it to release a segment that wasn't read to the end. */
+    interface Rows extends Iterator<Transaction>, AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Rows NO_ROWS = new Rows() {
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public Transaction next() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private LedgerArchive() {
+        // no instances
+    }
+
+    static Path segmentFile(int year) {
+        return Ledgers.archiveDir().resolve("ledger-" + year + ".seg");
+    }
+
+    /** Archived years, newest first (from the file names; nothing is opened). */
+    public static List<Integer> archivedYears() {
+        Path dir = Ledgers.archiveDir();
+        List<Integer> years = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return years;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "ledger-*.seg")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                try {
+                    years.add(Integer.parseInt(name.substring(7, name.length() - 4)));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error listing archive: " + e.getMessage());
+        }
+        years.sort(Collections.reverseOrder());
+        return years;
+    }
+
+    /** Reads just the summary block of a year's segment. */
+    public static YearSummary readSummary(int year) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentFile(year), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(SUMMARY_SIZE);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) throw new EOFException("Truncated segment for " + year);
+            }
+            buf.flip();
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                throw new IOException("Not a ledger segment: " + segmentFile(year));
+            }
+            int y = buf.getInt();
+            buf.getInt(); // reserved
+            return new YearSummary(y, buf.getLong(), buf.getLong(), buf.getLong());
+        }
+    }
+
+    /**
+     * Totals per year, newest first: summary blocks for archived years plus a
+     * GROUP BY over the live table for everything else (and any late entries
+     * added to an archived year).
+     */
+    public static List<YearSummary> yearTotals() {
+        Map<Integer, YearSummary> byYear = new TreeMap<>(Collections.reverseOrder());
+        Lock archived = Ledgers.database().archiveLock().readLock();
+        archived.lock();
+        try {
+            for (YearSummary hot : TransactionManager.liveYearTotals()) {
+                byYear.put(hot.year, hot);
+            }
+            for (int year : archivedYears()) {
+                try {
+                    YearSummary cold = readSummary(year);
+                    byYear.merge(year, cold, YearSummary::plus);
+                } catch (IOException e) {
+                    System.out.println("Error reading archive summary for " + year + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            archived.unlock();
+        }
+        return new ArrayList<>(byYear.values());
+    }
+
+    /**
+     * Moves a closed year (before the current one) out of the database into its
+     * segment. If the year was archived before, the old segment's rows are merged
+     * in and the segment is replaced. The new segment is put in place just before
+     * the delete commits, with the old one kept aside; if the commit fails, the
+     * delete is rolled back and the old segment (or none) is put back.
+     *
+     * Reads in this process wait for that swap (see {@link LedgerDatabase#archiveLock()}),
+     * so they see the year either in the table or in the segment. Another process
+     * reading the same ledger in the moment between the two can count it twice.
+     */
+    public static YearSummary archiveYear(int year) throws IOException, SQLException {
+        if (year >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Only closed years (before " + LocalDate.now().getYear() + ") can be archived.");
+        }
+
+        Path target = segmentFile(year);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Path backup = target.resolveSibling(target.getFileName() + ".bak");
+        Files.createDirectories(target.getParent());
+
+        boolean hadSegment = Files.exists(target);
+        boolean[] installed = {false};
+        boolean committed = false;
+        Lock swap = Ledgers.database().archiveLock().writeLock();
+        boolean[] swapping = {false};
+
+        try (Rows oldRows = hadSegment ? readSegment(year) : NO_ROWS;
+             SegmentWriter writer = new SegmentWriter(tmp, year)) {
+            LocalDate from = LocalDate.of(year, 1, 1);
+            LocalDate to = LocalDate.of(year, 12, 31);
+            Transaction[] pending = {oldRows.hasNext() ? oldRows.next() : null};
+
+            TransactionManager.moveOutOfDatabase(from, to, hot -> {
+                // Merge the old segment's rows in, keeping newest first.
+                while (pending[0] != null && isNewer(pending[0], hot)) {
+                    writer.write(pending[0]);
+                    pending[0] = oldRows.hasNext() ? oldRows.next() : null;
+                }
+                writer.write(hot);
+            }, () -> {
+                while (pending[0] != null) {
+                    writer.write(pending[0]);
+                    pending[0] = oldRows.hasNext() ? oldRows.next() : null;
+                }
+                writer.finish();
+                swap.lock();
+                swapping[0] = true;
+                if (hadSegment) move(target, backup);
+                move(tmp, target);
+                installed[0] = true;
+            });
+            committed = true;
+            return writer.summary();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            try {
+                if (committed) {
+                    Files.deleteIfExists(backup);
+                } else if (hadSegment && Files.exists(backup)) {
+                    Files.move(backup, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } else if (!hadSegment && installed[0]) {
+                    Files.deleteIfExists(target);
+                }
+            } finally {
+                if (swapping[0]) swap.unlock();
+            }
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Totals of the archived rows matching the query. Years that lie entirely inside
+     * a date-only query come straight from their summary blocks; only partly covered
+     * years (or queries with amount/text criteria) are decompressed.
+     */
+    static PeriodTotal total(TransactionQuery query) throws IOException {
+        LocalDate from = query.getStartDate();
+        LocalDate to = query.getEndDate();
+        boolean datesOnly = !query.hasAmountCriteria() && !query.hasTextCriteria();
+        PeriodTotal total = new PeriodTotal();
+
+        for (int year : archivedYears()) {
+            if (from != null && year < from.getYear()) continue;
+            if (to != null && year > to.getYear()) continue;
+
+            boolean wholeYear = (from == null || !from.isAfter(LocalDate.of(year, 1, 1)))
+                    && (to == null || !to.isBefore(LocalDate.of(year, 12, 31)));
+            if (datesOnly && wholeYear) {
+                YearSummary s = readSummary(year);
+                total = total.plus(new PeriodTotal(s.rowCount, s.depositCents, s.paymentCents));
+            } else {
+                LocalDate start = LocalDate.of(year, 1, 1);
+                LocalDate end = LocalDate.of(year, 12, 31);
+                try (Rows it = rows(from != null && from.isAfter(start) ? from : start,
+                        to != null && to.isBefore(end) ? to : end)) {
+                    while (it.hasNext()) {
+                        Transaction t = it.next();
+                        if (query.asPredicate().test(t)) total.add(t);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Archived rows dated from..to (inclusive, null = open), newest first.
+     * Only segments overlapping the range are opened and decompressed, one at a time.
+     * Callers that may stop early must close it.
+     */
+    static Rows rows(LocalDate from, LocalDate to) {
+        List<Integer> years = new ArrayList<>();
+        for (int year : archivedYears()) {
+            if (from != null && year < from.getYear()) continue;
+            if (to != null && year > to.getYear()) continue;
+            years.add(year);
+        }
+        if (years.isEmpty()) return NO_ROWS;
+
+        return new Rows() {
+            private final Iterator<Integer> yearIt = years.iterator();
+            private Rows current = NO_ROWS;
+            private Transaction next = advance();
+
+            private Transaction advance() {
+                while (true) {
+                    while (current.hasNext()) {
+                        Transaction t = current.next();
+                        if (to != null && t.getDate().isAfter(to)) continue;
+                        if (from != null && t.getDate().isBefore(from)) {
+                            current.close(); // rest of this year is older
+                            current = NO_ROWS;
+                            break;
+                        }
+                        return t;
+                    }
+                    if (!yearIt.hasNext()) return null;
+                    try {
+                        current = readSegment(yearIt.next());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Transaction next() {
+                if (next == null) throw new NoSuchElementException();
+                Transaction t = next;
+                next = advance();
+                return t;
+            }
+
+            @Override
+            public void close() {
+                current.close();
+                current = NO_ROWS;
+                next = null;
+            }
+        };
+    }
+
+    /**
+     * Fingerprints (see {@link DuplicateFilter}) of those transactions that are already
+     * archived. Only the segments of their years are read, from the newest of their
+     * dates down to the oldest, so saves into live years cost just the directory listing.
+     */
+    static Set<Long> fingerprints(List<Transaction> transactions) throws IOException {
+        Set<Long> found = new HashSet<>();
+        List<Integer> years = archivedYears();
+        if (years.isEmpty()) return found;
+
+        Set<Long> wanted = new HashSet<>();
+        Map<Integer, LocalDate[]> rangeByYear = new TreeMap<>();
+        for (Transaction t : transactions) {
+            if (!years.contains(t.getDate().getYear())) continue;
+            wanted.add(DuplicateFilter.fingerprint(t));
+            LocalDate[] range = rangeByYear.computeIfAbsent(t.getDate().getYear(), y -> new LocalDate[]{t.getDate(), t.getDate()});
+            if (t.getDate().isBefore(range[0])) range[0] = t.getDate();
+            if (t.getDate().isAfter(range[1])) range[1] = t.getDate();
+        }
+
+        try {
+            for (LocalDate[] range : rangeByYear.values()) {
+                try (Rows it = rows(range[0], range[1])) {
+                    while (it.hasNext()) {
+                        long f = DuplicateFilter.fingerprint(it.next());
+                        if (wanted.contains(f)) found.add(f);
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return found;
+    }
+
+    /** True if a sorts before b in newest-first order. */
+    static boolean isNewer(Transaction a, Transaction b) {
+        int c = a.getDate().compareTo(b.getDate());
+        if (c == 0) c = a.getTime().compareTo(b.getTime());
+        return c > 0;
+    }
+
+    // Streams a segment's rows; the file is closed once the last row has been read, or on close().
+    private static Rows readSegment(int year) throws IOException {
+        long count = readSummary(year).rowCount;
+        if (count == 0) return NO_ROWS;
+        InputStream file = Files.newInputStream(segmentFile(year));
+        DataInputStream in;
+        try {
+            file.skipNBytes(SUMMARY_SIZE);
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(file, 1 << 16), 1 << 16));
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+
+        return new Rows() {
+            private long remaining = count;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Transaction next() {
+                if (remaining <= 0) throw new NoSuchElementException();
+                try {
+                    LocalDate date = LocalDate.ofEpochDay(in.readInt());
+                    LocalTime time = LocalTime.ofSecondOfDay(in.readInt());
+                    long cents = in.readLong();
+                    String description = in.readUTF();
+                    String vendor = in.readUTF();
+                    if (--remaining == 0) in.close();
+                    return new Transaction(date, time, description, vendor, cents / 100.0);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void close() {
+                if (remaining == 0) return;
+                remaining = 0;
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static void move(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Writes the gzip body after a reserved summary block, then fills the summary in. */
+    private static class SegmentWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final GZIPOutputStream gzip;
+        private final DataOutputStream out;
+        private final int year;
+        private long rows = 0;
+        private long depositCents = 0;
+        private long paymentCents = 0;
+
+        SegmentWriter(Path file, int year) throws IOException {
+            this.year = year;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(SUMMARY_SIZE);
+            this.gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            this.out = new DataOutputStream(new BufferedOutputStream(gzip, 1 << 16));
+        }
+
+        void write(Transaction t) {
+            long cents = Math.round(t.getAmount() * 100);
+            try {
+                out.writeInt((int) t.getDate().toEpochDay());
+                out.writeInt(t.getTime().toSecondOfDay());
+                out.writeLong(cents);
+                out.writeUTF(t.getDescription());
+                out.writeUTF(t.getVendor());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+            if (cents >= 0) depositCents += cents;
+            else paymentCents += cents;
+        }
+
+        void finish() {
+            try {
+                out.flush();
+                gzip.finish();
+
+                ByteBuffer buf = ByteBuffer.allocate(SUMMARY_SIZE);
+                buf.putInt(MAGIC).putInt(VERSION).putInt(year).putInt(0)
+                        .putLong(rows).putLong(depositCents).putLong(paymentCents);
+                buf.flip();
+                channel.write(buf, 0);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        YearSummary summary() {
+            return new YearSummary(year, rows, depositCents, paymentCents);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.pluralsight;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumnModel;
+import javax.swing.table.TableModel;
+import java.awt.*;
+
+/**
+ * Renders every ledger/report column from the text cached in the model's rows,
+ * so painting a cell doesn't format or allocate anything.
+ *
+ * Amount cells are right-aligned and coloured green (deposit) or red (payment).
+ */
+public class LedgerCellRenderer extends DefaultTableCellRenderer {
+
+    // Shared colours (no new Color per cell).
+    public static final Color POSITIVE = new Color(0, 128, 0);
+    public static final Color NEGATIVE = Color.RED.darker();
+
+    /** Implemented by table models that can hand out pre-formatted cell text. */
+    public interface DisplayTextModel extends TableModel {
+        String getDisplayText(int modelRow, int modelColumn);
+    }
+
+    /**
+     * Installs the renderer on every column of the table.
+     * Amount columns get their own instance: DefaultTableCellRenderer remembers the
+     * last foreground set on it, and the red/green must not leak into text columns.
+     */
+    public static void install(JTable table) {
+        LedgerCellRenderer text = new LedgerCellRenderer();
+        LedgerCellRenderer amounts = new LedgerCellRenderer();
+        TableColumnModel columns = table.getColumnModel();
+        for (int i = 0; i < columns.getColumnCount(); i++) {
+            int modelColumn = columns.getColumn(i).getModelIndex();
+            boolean isAmount = Number.class.isAssignableFrom(table.getModel().getColumnClass(modelColumn));
+            columns.getColumn(i).setCellRenderer(isAmount ? amounts : text);
+        }
+    }
+
+    public static Color colorFor(double amount) {
+        return amount >= 0 ? POSITIVE : NEGATIVE;
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        // Let the base class set colours/borders/selection; we set the text ourselves.
+        super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+
+        TableModel model = table.getModel();
+        if (model instanceof DisplayTextModel display) {
+            setText(display.getDisplayText(table.convertRowIndexToModel(row),
+                    table.convertColumnIndexToModel(column)));
+        } else {
+            setText(value == null ? "" : value.toString());
+        }
+
+        if (value instanceof Double amount) {
+            setHorizontalAlignment(SwingConstants.RIGHT);
+            if (!isSelected) setForeground(colorFor(amount));
+        } else {
+            setHorizontalAlignment(SwingConstants.LEFT);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,219 @@
+package com.pluralsight;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One ledger's database: a primary for writes plus optional read replicas.
+ *
+ * Reads are spread round-robin over the replicas that passed their last health
+ * check; a replica that fails to hand out a connection is taken out of rotation
+ * until a later check finds it working again. With no healthy replica, reads use
+ * the primary. For a short window after each write, reads also go to the primary,
+ * so what was just saved is visible even if the replicas are behind.
+ *
+ * The primary's table check runs in the background ({@link SchemaCheck}); the
+ * first connections wait for it only when it hasn't succeeded on an earlier run.
+ * After that the ledger's {@link DuplicateFilter} is loaded in the background too.
+ */
+public class LedgerDatabase {
+
+    private static final int VALID_TIMEOUT_SECONDS = 2;
+
+    private static final ScheduledExecutorService HEALTH_CHECKS = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replica-health-check");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long readYourWritesNanos;
+    private final ScheduledFuture<?> healthCheck;
+    private final Object schemaLock = new Object();
+    private volatile CompletableFuture<Void> schemaReady;
+
+    private final Object duplicatesLock = new Object();
+    private DuplicateFilter duplicates;
+
+    private final ReadWriteLock archiveLock = new ReentrantReadWriteLock();
+
+    private volatile long lastWriteNanos;
+    private volatile boolean written;
+
+    public LedgerDatabase(String ledgerId) {
+        String user = DbConfig.getUser(ledgerId);
+        String password = DbConfig.getPassword(ledgerId);
+        int size = DbConfig.getPoolSize();
+
+        primary = new ConnectionPool(DbConfig.getUrl(ledgerId), user, password, size);
+        for (String url : DbConfig.getReplicaUrls(ledgerId)) {
+            replicas.add(new Replica(new ConnectionPool(url, user, password, size)));
+        }
+        readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(DbConfig.getReadYourWritesMillis());
+        // Replicas get the table through replication.
+        schemaReady = SchemaCheck.start(primary);
+        // Ready before the first save in the usual case; otherwise that save loads it.
+        schemaReady.thenRunAsync(() -> {
+            try {
+                duplicates();
+            } catch (SQLException e) {
+                System.out.println("Duplicate filter not loaded yet: " + e.getMessage());
+            }
+        });
+
+        if (replicas.isEmpty()) {
+            healthCheck = null;
+        } else {
+            long period = DbConfig.getHealthCheckSeconds();
+            healthCheck = HEALTH_CHECKS.scheduleWithFixedDelay(this::checkReplicas, 0, period, TimeUnit.SECONDS);
+        }
+    }
+
+    public ConnectionPool getPrimary() {
+        return primary;
+    }
+
+    /** Connection for inserts, updates and deletes; starts the read-your-writes window. */
+    public Connection writeConnection() throws SQLException {
+        awaitSchema();
+        markWritten();
+        return primary.getConnection();
+    }
+
+    /** Connection for queries: a healthy replica when there is one, otherwise the primary. */
+    public Connection readConnection() throws SQLException {
+        awaitSchema();
+        if (replicas.isEmpty() || recentlyWritten()) {
+            return primary.getConnection();
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) continue;
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // A failed check fails this call and is started again for the next one (e.g. the database was down).
+    private void awaitSchema() throws SQLException {
+        CompletableFuture<Void> check = schemaReady;
+        try {
+            check.join();
+        } catch (CompletionException e) {
+            synchronized (schemaLock) {
+                if (schemaReady == check) schemaReady = SchemaCheck.start(primary);
+            }
+            throw new SQLException("Schema check failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * The Bloom filter of fingerprints saved in this ledger, loaded from the primary
+     * on first use and again when it has filled up (or after {@link #reloadDuplicates}).
+     */
+    DuplicateFilter duplicates() throws SQLException {
+        awaitSchema();
+        synchronized (duplicatesLock) {
+            if (duplicates == null || duplicates.isFull()) {
+                duplicates = TransactionManager.loadDuplicateFilter(primary);
+            }
+            return duplicates;
+        }
+    }
+
+    /** Drops the filter (e.g. it missed rows another process saved); the next use reloads it. */
+    void reloadDuplicates() {
+        synchronized (duplicatesLock) {
+            duplicates = null;
+        }
+    }
+
+    /**
+     * Reads that combine the table with the archive hold the read lock; archiving a
+     * year holds the write lock from putting its segment in place until the delete
+     * has committed (or been undone), so no read in this process sees those rows twice.
+     */
+    ReadWriteLock archiveLock() {
+        return archiveLock;
+    }
+
+    /** Number of replicas currently taking reads. */
+    public int getHealthyReplicaCount() {
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) count++;
+        }
+        return count;
+    }
+
+    /** Call again after a write that finishes later (e.g. a long commit) to restart the window. */
+    void markWritten() {
+        lastWriteNanos = System.nanoTime();
+        written = true;
+    }
+
+    private boolean recentlyWritten() {
+        return written && System.nanoTime() - lastWriteNanos < readYourWritesNanos;
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean ok;
+            try (Connection c = replica.pool.getConnection()) {
+                ok = c.isValid(VALID_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                ok = false;
+            }
+            if (ok && !replica.healthy) {
+                System.out.println("Read replica back in rotation: " + replica.pool.getUrl());
+            } else if (!ok && replica.healthy) {
+                System.out.println("Read replica failed its health check: " + replica.pool.getUrl());
+            }
+            replica.healthy = ok;
+        }
+    }
+
+    public void shutdown() {
+        if (healthCheck != null) healthCheck.cancel(false);
+        primary.shutdown();
+        for (Replica replica : replicas) {
+            replica.pool.shutdown();
+        }
+    }
+
+    private static class Replica {
+        final ConnectionPool pool;
+        // Optimistic until the first check; a failed borrow takes it out right away.
+        volatile boolean healthy = true;
+
+        Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        void markDown(SQLException e) {
+            if (healthy) {
+                healthy = false;
+                System.out.println("Read replica unavailable (" + pool.getUrl() + "): " + e.getMessage());
+            }
+        }
+    }
+}
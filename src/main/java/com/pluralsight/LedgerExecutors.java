@@ -0,0 +1,32 @@
+package com.pluralsight;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for short blocking tasks (HTTP requests, parallel range reads).
+ *
+ * The project targets Java 17, so virtual threads are looked up at run time: on
+ * Java 21+ every task gets its own virtual thread, on older JVMs a fixed pool of
+ * daemon platform threads is used instead. Either way the connection pool is what
+ * limits how many tasks hit the database at once.
+ */
+public class LedgerExecutors {
+
+    private LedgerExecutors() {
+        // no instances
+    }
+
+    /** One virtual thread per task if available, otherwise {@code fallbackThreads} platform threads. */
+    public static ExecutorService perTask(int fallbackThreads, String threadName) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(1, fallbackThreads), r -> {
+                Thread t = new Thread(r, threadName);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.pluralsight;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cross-ledger reports.
+ *
+ * The same query runs against every ledger in parallel (one task per ledger, each
+ * routed with {@link Ledgers#withLedger}), and the partial aggregates each ledger
+ * returns are merged here. Only aggregates cross the wire, never all the rows.
+ */
+public class LedgerFanOut {
+
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "ledger-fan-out");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private LedgerFanOut() {
+        // no instances
+    }
+
+    /** Totals for the query per ledger (configuration order). */
+    public static Map<String, PeriodTotal> periodTotals(TransactionQuery query) throws SQLException {
+        return fanOut(() -> TransactionManager.periodTotal(query));
+    }
+
+    /** Adds per-ledger totals together. */
+    public static PeriodTotal combine(Map<String, PeriodTotal> perLedger) {
+        PeriodTotal total = new PeriodTotal();
+        for (PeriodTotal t : perLedger.values()) total = total.plus(t);
+        return total;
+    }
+
+    /**
+     * Exact top N spending vendors over all ledgers. Each ledger returns its full
+     * per-vendor totals (a vendor can be small in each ledger but big overall),
+     * which are summed before picking the top N.
+     */
+    public static List<VendorTotal> topVendors(int n, TransactionQuery query) throws SQLException {
+        Map<String, Map<String, VendorTotal>> partials = fanOut(() -> {
+            Map<String, VendorTotal> totals = new HashMap<>();
+            TransactionManager.forEachVendorSpend(query, v -> totals.put(v.getVendor(), v));
+            return totals;
+        });
+
+        Map<String, VendorTotal> merged = new HashMap<>();
+        for (Map<String, VendorTotal> partial : partials.values()) {
+            for (VendorTotal v : partial.values()) {
+                merged.merge(v.getVendor(), v, VendorTotal::plus);
+            }
+        }
+        return VendorRanking.topOf(n, merged.values());
+    }
+
+    // Runs the task once per ledger in parallel; fails if any ledger fails.
+    private static <T> Map<String, T> fanOut(Callable<T> task) throws SQLException {
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        for (String id : Ledgers.ids()) {
+            futures.put(id, WORKERS.submit(() -> Ledgers.withLedger(id, task)));
+        }
+
+        Map<String, T> results = new LinkedHashMap<>();
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Future<T>> e : futures.entrySet()) {
+            try {
+                results.put(e.getKey(), e.getValue().get());
+            } catch (ExecutionException ex) {
+                failures.add(e.getKey() + ": " + ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for ledger " + e.getKey(), ex);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new SQLException("Ledger query failed: " + String.join("; ", failures));
+        }
+        return results;
+    }
+}
@@ -1,10 +1,11 @@
 package com.pluralsight;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.Locale;
 
 //Displays the transaction ledger with filters + totals.
@@ -15,10 +16,14 @@ public class LedgerPanel extends JPanel {
 
     private final JComboBox<String> typeFilter = new JComboBox<>(new String[]{"All", "Deposits", "Payments"});
     private final JTextField vendorSearch = new JTextField(18);
+    private final JComboBox<String> periodFilter = new JComboBox<>(new String[]{
+            "All time", "Month To Date", "Previous Month", "Year To Date", "Previous Year"});
 
     private final JLabel incomeLabel = new JLabel();
     private final JLabel expensesLabel = new JLabel();
     private final JLabel netLabel = new JLabel();
+    private final JLabel balanceLabel = new JLabel();
+    private LocalDate periodEnd;   // null = all time
 
     private final NumberFormat money = NumberFormat.getCurrencyInstance(Locale.US);
 
@@ -30,10 +35,10 @@ public class LedgerPanel extends JPanel {
         table = new JTable(model);
         table.setFillsViewportHeight(true);
         table.setRowHeight(22);
-        table.setAutoCreateRowSorter(true);
+        table.setRowSorter(new LedgerRowSorter(model));
 
-        // Amount column rendering (green for +, red for -)
-        table.getColumnModel().getColumn(4).setCellRenderer(new AmountRenderer());
+        // Cached cell text; amount column green for +, red for -
+        LedgerCellRenderer.install(table);
 
         add(buildTopBar(), BorderLayout.NORTH);
         add(new JScrollPane(table), BorderLayout.CENTER);
@@ -41,8 +46,14 @@ public class LedgerPanel extends JPanel {
 
         // React to UI events
         typeFilter.addActionListener(e -> applyFilters());
+        periodFilter.addActionListener(e -> applyPeriod());
         vendorSearch.getDocument().addDocumentListener((SimpleDocumentListener) e -> applyFilters());
 
+        // Filters, reloads and added rows all fire model events; balance-only updates don't change totals.
+        model.addTableModelListener(e -> {
+            if (e.getColumn() != LedgerTableModel.BALANCE_COLUMN) refreshTotals();
+        });
+
         // Initial totals
         refreshTotals();
     }
@@ -67,29 +78,137 @@ public class LedgerPanel extends JPanel {
         panel.add(vendorSearch, gbc);
 
         gbc.gridx = 4;
+        panel.add(new JLabel("Period:"), gbc);
+
+        gbc.gridx = 5;
+        panel.add(periodFilter, gbc);
+
+        gbc.gridx = 6;
         gbc.weightx = 1;
         gbc.fill = GridBagConstraints.HORIZONTAL;
         panel.add(Box.createHorizontalGlue(), gbc);
 
-        gbc.gridx = 5;
+        gbc.gridx = 7;
         gbc.weightx = 0;
         gbc.fill = GridBagConstraints.NONE;
+        JButton edit = new JButton("Edit...");
+        edit.addActionListener(e -> editSelected());
+        panel.add(edit, gbc);
+
+        gbc.gridx = 8;
+        JButton delete = new JButton("Delete");
+        delete.addActionListener(e -> deleteSelected());
+        panel.add(delete, gbc);
+
+        gbc.gridx = 9;
         JButton refresh = new JButton("Refresh");
         refresh.addActionListener(e -> {
-            model.reloadAll();
-            applyFilters();
+            // Off the EDT; the button stays off until the rows are in.
+            refresh.setEnabled(false);
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            model.reloadInBackground(new QueryCancellation(), () -> {
+                refresh.setEnabled(true);
+                setCursor(Cursor.getDefaultCursor());
+                applyFilters();
+            });
         });
         panel.add(refresh, gbc);
 
         return panel;
     }
 
+    // Selected transaction (model row via the sorter), or null after telling the user why not.
+    private Transaction selectedTransaction() {
+        int viewRow = table.getSelectedRow();
+        if (viewRow < 0) {
+            JOptionPane.showMessageDialog(this, "Select a transaction first.", "Nothing selected",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+        Transaction t = model.getTransactionAt(table.convertRowIndexToModel(viewRow));
+        if (t.getId() <= 0) {
+            JOptionPane.showMessageDialog(this, "Archived transactions can't be changed.", "Read only",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+        return t;
+    }
+
+    private void editSelected() {
+        Transaction t = selectedTransaction();
+        if (t == null) return;
+
+        JTextField date = new JTextField(t.getDate().toString(), 12);
+        JTextField time = new JTextField(t.getTime().withNano(0).toString(), 12);
+        JTextField description = new JTextField(t.getDescription(), 18);
+        JTextField vendor = new JTextField(t.getVendor(), 18);
+        JTextField amount = new JTextField(String.format(Locale.US, "%.2f", t.getAmount()), 10);
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 6, 6));
+        form.add(new JLabel("Date (YYYY-MM-DD):"));
+        form.add(date);
+        form.add(new JLabel("Time (HH:MM:SS):"));
+        form.add(time);
+        form.add(new JLabel("Description:"));
+        form.add(description);
+        form.add(new JLabel("Vendor:"));
+        form.add(vendor);
+        form.add(new JLabel("Amount (payments negative):"));
+        form.add(amount);
+
+        int choice = JOptionPane.showConfirmDialog(this, form, "Edit Transaction",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) return; // cancelled
+
+        Transaction updated;
+        try {
+            if (description.getText().isBlank() || vendor.getText().isBlank()) {
+                throw new IllegalArgumentException("Please fill out Description and Vendor.");
+            }
+            updated = new Transaction(t.getId(),
+                    LocalDate.parse(date.getText().trim()),
+                    LocalTime.parse(time.getText().trim()),
+                    description.getText().trim(),
+                    vendor.getText().trim(),
+                    Double.parseDouble(amount.getText().trim()));
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Dates must look like YYYY-MM-DD and times like HH:MM:SS.",
+                    "Invalid transaction", JOptionPane.ERROR_MESSAGE);
+            return;
+        } catch (IllegalArgumentException ex) {
+            String message = ex instanceof NumberFormatException
+                    ? "Amount must be a valid number (example: -12.50)." : ex.getMessage();
+            JOptionPane.showMessageDialog(this, message, "Invalid transaction", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        if (!model.updateTransaction(updated)) {
+            JOptionPane.showMessageDialog(this, "The transaction could not be saved (it may have been deleted,\nor an identical one is already saved).",
+                    "Not saved", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void deleteSelected() {
+        Transaction t = selectedTransaction();
+        if (t == null) return;
+
+        int choice = JOptionPane.showConfirmDialog(this, "Delete this transaction?\n" + t,
+                "Delete Transaction", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) return;
+
+        if (!model.deleteTransaction(t.getId())) {
+            JOptionPane.showMessageDialog(this, "The transaction could not be deleted.",
+                    "Not deleted", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private JComponent buildTotalsBar() {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 18, 6));
         panel.add(new JLabel("Totals (visible rows):"));
         panel.add(incomeLabel);
         panel.add(expensesLabel);
         panel.add(netLabel);
+        panel.add(balanceLabel);
         return panel;
     }
 
@@ -106,8 +225,20 @@ public class LedgerPanel extends JPanel {
             }
             return true;
         });
+    }
 
-        refreshTotals();
+    // The model slices the date range out of its newest-first rows; no scan needed.
+    private void applyPeriod() {
+        ReportPeriod period = switch (periodFilter.getSelectedIndex()) {
+            case 1 -> ReportPeriod.MONTH_TO_DATE;
+            case 2 -> ReportPeriod.PREVIOUS_MONTH;
+            case 3 -> ReportPeriod.YEAR_TO_DATE;
+            case 4 -> ReportPeriod.PREVIOUS_YEAR;
+            default -> ReportPeriod.ALL;
+        };
+        LocalDate today = LocalDate.now();
+        periodEnd = period.end(today);
+        model.setDateRange(period.start(today), periodEnd);
     }
 
     private void refreshTotals() {
@@ -115,20 +246,8 @@ public class LedgerPanel extends JPanel {
         incomeLabel.setText("Deposits: " + money.format(totals.income));
         expensesLabel.setText("Payments: " + money.format(totals.expenses));
         netLabel.setText("Net: " + money.format(totals.net));
-    }
-
-    private static class AmountRenderer extends DefaultTableCellRenderer {
-        private final NumberFormat money = NumberFormat.getCurrencyInstance(Locale.US);
-
-        @Override
-        protected void setValue(Object value) {
-            if (value instanceof Number n) {
-                double amt = n.doubleValue();
-                setText(money.format(amt));
-                setForeground(amt >= 0 ? new Color(0, 128, 0) : Color.RED.darker());
-            } else {
-                super.setValue(value);
-            }
-        }
+        // Balance over the whole ledger, not just the filtered rows.
+        balanceLabel.setText((periodEnd == null ? "Balance: " : "Balance as of " + periodEnd + ": ")
+                + money.format(model.getBalanceAsOf(periodEnd)));
     }
 }
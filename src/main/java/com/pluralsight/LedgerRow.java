@@ -0,0 +1,100 @@
+package com.pluralsight;
+
+import java.text.NumberFormat;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * One transaction as shown in a JTable.
+ *
+ * Holds the typed cell values (so getValueAt just returns fields) and caches the
+ * formatted text the first time the row is painted, so scrolling back and forth
+ * doesn't create new strings. Text is only formatted for rows that are actually
+ * painted, which keeps loading a huge ledger cheap.
+ *
+ * The text getters are meant for the Swing event thread (the shared formatters
+ * aren't thread-safe).
+ */
+public class LedgerRow {
+
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final NumberFormat MONEY = NumberFormat.getCurrencyInstance(Locale.US);
+
+    private final Transaction transaction;
+    private final LocalTime time;     // truncated to whole seconds
+    private final Double amount;      // boxed once, not on every paint
+
+    // Primitive sort keys (see LedgerRowSorter).
+    private final long epochSecond;   // date + time, local
+    private final long cents;
+
+    private String dateText;
+    private String timeText;
+    private String amountText;
+
+    // This row plus the older rows of its day; kept up to date by the table model.
+    private long dayBalanceCents;
+
+    // Last running balance handed out for this row, with its boxed value and text.
+    private long balanceCents;
+    private Double balance;
+    private String balanceText;
+
+    public LedgerRow(Transaction transaction) {
+        this.transaction = transaction;
+        this.time = transaction.getTime().withNano(0);
+        this.amount = transaction.getAmount();
+        this.epochSecond = transaction.getDate().toEpochDay() * 86_400 + time.toSecondOfDay();
+        this.cents = Math.round(transaction.getAmount() * 100);
+    }
+
+    public Transaction getTransaction() { return transaction; }
+    public long getId() { return transaction.getId(); }
+    public LocalTime getTime() { return time; }
+    public Double getAmount() { return amount; }
+    public long getEpochSecond() { return epochSecond; }
+    public long getEpochDay() { return Math.floorDiv(epochSecond, 86_400); }
+    public int getSecondOfDay() { return time.toSecondOfDay(); }
+    public long getCents() { return cents; }
+    long getDayBalanceCents() { return dayBalanceCents; }
+    void setDayBalanceCents(long cents) { dayBalanceCents = cents; }
+
+    /** Drops the cached balance value and text only if the balance actually changed. */
+    void setBalanceCents(long cents) {
+        if (cents == balanceCents) return;
+        balanceCents = cents;
+        balance = null;
+        balanceText = null;
+    }
+
+    public Double getBalance() {
+        if (balance == null) balance = balanceCents / 100.0;
+        return balance;
+    }
+
+    public String getDateText() {
+        if (dateText == null) dateText = transaction.getDate().toString();
+        return dateText;
+    }
+
+    public String getTimeText() {
+        if (timeText == null) timeText = time.format(TIME_FMT);
+        return timeText;
+    }
+
+    public String getAmountText() {
+        if (amountText == null) amountText = MONEY.format(transaction.getAmount());
+        return amountText;
+    }
+
+    public String getBalanceText() {
+        if (balanceText == null) balanceText = formatMoney(balanceCents);
+        return balanceText;
+    }
+
+    /** Same format as the amount column, for values that aren't cached (e.g. report totals). */
+    static String formatMoney(long cents) {
+        return MONEY.format(cents / 100.0);
+    }
+}
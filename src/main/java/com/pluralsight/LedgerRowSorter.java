@@ -0,0 +1,318 @@
+package com.pluralsight;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row sorter for the ledger table that sorts on primitive keys.
+ *
+ * - Date/time/amount columns use a {@code long} key straight from the model
+ *   (epoch-second, second-of-day, cents) instead of Comparable objects.
+ * - Text columns are mapped to their rank in a sorted dictionary of the distinct
+ *   values, so the strings are compared once per distinct value, not per row pair.
+ * - If the rows are already in the requested order (the model keeps them newest
+ *   first), no sort happens at all; big tables are sorted in parallel.
+ * - Inserted rows are placed with a binary search into the current order instead
+ *   of re-sorting everything.
+ *
+ * Only the first sort key is used; rows with equal keys keep the model's order.
+ * Filtering is left to the model.
+ */
+public class LedgerRowSorter extends RowSorter<TableModel> {
+
+    /** Table models that can give a primitive sort key for their non-text columns. */
+    public interface KeyedModel extends TableModel {
+        long getSortKey(int modelRow, int column);
+    }
+
+    private static final int PARALLEL_THRESHOLD = 50_000;
+
+    private final KeyedModel model;
+    private List<SortKey> sortKeys = List.of();
+
+    // Both null while unsorted (view order == model order).
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    private long[] keys;                      // per model row, for the sorted column
+    private Map<String, Integer> dictionary;  // text column ranks, null for other columns
+
+    public LedgerRowSorter(KeyedModel model) {
+        this.model = model;
+    }
+
+    @Override
+    public TableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        SortOrder order = SortOrder.ASCENDING;
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column
+                && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            order = SortOrder.DESCENDING;
+        }
+        setSortKeys(List.of(new SortKey(column, order)));
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        this.sortKeys = (keys == null || keys.isEmpty()) ? List.of() : List.of(keys.get(0));
+        fireSortOrderChanged();
+        sort();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        checkIndex(index);
+        return viewToModel == null ? index : viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        checkIndex(index);
+        return modelToView == null ? index : modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        sortKeys = List.of();
+        fireSortOrderChanged();
+        sort();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        sort();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        if (!isSorted()) return;
+
+        int count = endRow - firstRow + 1;
+        int oldSize = viewToModel.length;
+        if (count > oldSize / 8) {
+            // Cheaper to sort the whole thing than to insert one by one.
+            sort();
+            return;
+        }
+
+        long[] newKeys = new long[oldSize + count];
+        System.arraycopy(keys, 0, newKeys, 0, firstRow);
+        System.arraycopy(keys, firstRow, newKeys, endRow + 1, oldSize - firstRow);
+        for (int m = firstRow; m <= endRow; m++) {
+            if (!tryKeyFor(m, newKeys)) {
+                // New text value not in the dictionary yet: ranks change, so re-sort.
+                sort();
+                return;
+            }
+        }
+        keys = newKeys;
+
+        int[] old = viewToModel;
+        int[] v = new int[oldSize + count];
+        for (int i = 0; i < oldSize; i++) {
+            int m = old[i];
+            v[i] = m >= firstRow ? m + count : m;
+        }
+
+        boolean desc = isDescending();
+        int size = oldSize;
+        for (int m = firstRow; m <= endRow; m++) {
+            int pos = insertionPoint(v, size, keys[m], desc);
+            System.arraycopy(v, pos, v, pos + 1, size - pos);
+            v[pos] = m;
+            size++;
+        }
+
+        viewToModel = v;
+        rebuildModelToView();
+        fireRowSorterChanged(old);
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        if (!isSorted()) return;
+
+        int count = endRow - firstRow + 1;
+        int newSize = viewToModel.length - count;
+
+        long[] newKeys = new long[newSize];
+        System.arraycopy(keys, 0, newKeys, 0, firstRow);
+        System.arraycopy(keys, endRow + 1, newKeys, firstRow, keys.length - endRow - 1);
+        keys = newKeys;
+
+        int[] old = viewToModel;
+        int[] v = new int[newSize];
+        int size = 0;
+        for (int m : old) {
+            if (m < firstRow) v[size++] = m;
+            else if (m > endRow) v[size++] = m - count;
+        }
+
+        viewToModel = v;
+        rebuildModelToView();
+        fireRowSorterChanged(old);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        if (!isSorted()) return;
+
+        for (int m = firstRow; m <= endRow; m++) {
+            long before = keys[m];
+            if (!tryKeyFor(m, keys) || keys[m] != before) {
+                sort();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        if (isSorted() && column == sortKeys.get(0).getColumn()) {
+            rowsUpdated(firstRow, endRow);
+        }
+    }
+
+    // --- sorting ---
+
+    private boolean isSorted() {
+        return viewToModel != null;
+    }
+
+    private boolean isDescending() {
+        return sortKeys.get(0).getSortOrder() == SortOrder.DESCENDING;
+    }
+
+    private void sort() {
+        int[] old = viewToModel;
+        int n = model.getRowCount();
+
+        if (sortKeys.isEmpty() || sortKeys.get(0).getSortOrder() == SortOrder.UNSORTED) {
+            viewToModel = null;
+            modelToView = null;
+            keys = null;
+            dictionary = null;
+            fireRowSorterChanged(old);
+            return;
+        }
+
+        int column = sortKeys.get(0).getColumn();
+        boolean desc = isDescending();
+
+        keys = new long[n];
+        if (model.getColumnClass(column) == String.class) {
+            buildDictionary(column, n);
+            for (int m = 0; m < n; m++) keys[m] = dictionary.get(text(m, column));
+        } else {
+            dictionary = null;
+            for (int m = 0; m < n; m++) keys[m] = model.getSortKey(m, column);
+        }
+
+        int[] v = new int[n];
+        if (isOrdered(keys, desc, false)) {
+            // Already in this order (e.g. newest first straight from reloadAll).
+            for (int i = 0; i < n; i++) v[i] = i;
+        } else if (isOrdered(keys, !desc, true)) {
+            // Reversing is only stable when no two keys are equal.
+            for (int i = 0; i < n; i++) v[i] = n - 1 - i;
+        } else {
+            for (int i = 0; i < n; i++) v[i] = i;
+            IndexSort.sort(v, keys, desc, n >= PARALLEL_THRESHOLD);
+        }
+
+        viewToModel = v;
+        rebuildModelToView();
+        fireRowSorterChanged(old);
+    }
+
+    private static boolean isOrdered(long[] keys, boolean desc, boolean strict) {
+        for (int i = 1; i < keys.length; i++) {
+            if (strict && keys[i] == keys[i - 1]) return false;
+            if (desc ? keys[i] > keys[i - 1] : keys[i] < keys[i - 1]) return false;
+        }
+        return true;
+    }
+
+    // First position in v[0, size) whose key sorts after {@code key}; equal keys stay ahead.
+    private int insertionPoint(int[] v, int size, long key, boolean desc) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = keys[v[mid]];
+            boolean after = desc ? k < key : k > key;
+            if (after) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    private void rebuildModelToView() {
+        if (modelToView == null || modelToView.length != viewToModel.length) {
+            modelToView = new int[viewToModel.length];
+        }
+        for (int i = 0; i < viewToModel.length; i++) {
+            modelToView[viewToModel[i]] = i;
+        }
+    }
+
+    /** Fills target[m] with the key for model row m; false if a text value has no rank yet. */
+    private boolean tryKeyFor(int m, long[] target) {
+        int column = sortKeys.get(0).getColumn();
+        if (dictionary == null) {
+            target[m] = model.getSortKey(m, column);
+            return true;
+        }
+        Integer rank = dictionary.get(text(m, column));
+        if (rank == null) return false;
+        target[m] = rank;
+        return true;
+    }
+
+    private void buildDictionary(int column, int n) {
+        Map<String, Integer> distinct = new HashMap<>();
+        for (int m = 0; m < n; m++) distinct.putIfAbsent(text(m, column), 0);
+
+        String[] values = distinct.keySet().toArray(new String[0]);
+        Arrays.sort(values, String.CASE_INSENSITIVE_ORDER.thenComparing(s -> s));
+        for (int rank = 0; rank < values.length; rank++) {
+            distinct.put(values[rank], rank);
+        }
+        dictionary = distinct;
+    }
+
+    private String text(int modelRow, int column) {
+        Object value = model.getValueAt(modelRow, column);
+        return value == null ? "" : value.toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= model.getRowCount()) {
+            throw new IndexOutOfBoundsException("Invalid row index: " + index);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.pluralsight;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless JSON server over the ledger data, for other internal tools.
+ *
+ * <pre>
+ * java -cp account-ledger.jar:mysql-connector-j.jar com.pluralsight.LedgerServer --port=8080
+ * </pre>
+ *
+ * Endpoints (GET only; every one accepts ledger=ID):
+ * <pre>
+ *   /api/ledgers
+ *   /api/transactions?period=|from=&amp;to=&amp;min=&amp;max=&amp;description=&amp;vendor=&amp;limit=&amp;cursor=
+ *   /api/reports/summary?period=|from=&amp;to=&amp;vendor=
+ *   /api/reports/top-vendors?period=|from=&amp;to=&amp;vendor=&amp;limit=
+ * </pre>
+ *
+ * Transactions come back in pages of {@code limit} rows (default 500, limit=all for
+ * everything) plus a {@code next} cursor for the following page. Rows are written
+ * to the response as they stream from the database, so even limit=all never holds
+ * the whole result in memory. Database work goes through the shared connection
+ * pool (-Dledger.db.poolSize), which caps how many requests hit the database at once.
+ */
+public class LedgerServer {
+
+    private static final int DEFAULT_PAGE = 500;
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int threads = 200;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring(7));
+            else if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring(10));
+            else {
+                System.err.println("Usage: LedgerServer [--port=8080] [--threads=200]");
+                System.exit(2);
+            }
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/api/ledgers", handler(LedgerServer::ledgers));
+        server.createContext("/api/transactions", handler(LedgerServer::transactions));
+        server.createContext("/api/reports/summary", handler(LedgerServer::summary));
+        server.createContext("/api/reports/top-vendors", handler(LedgerServer::topVendors));
+        // One virtual thread per request on Java 21+, otherwise a fixed pool of platform threads.
+        server.setExecutor(LedgerExecutors.perTask(threads, "ledger-http"));
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            TransactionManager.shutdown();
+        }));
+        System.out.println("Ledger server listening on port " + port);
+    }
+
+    private interface Endpoint {
+        void handle(HttpExchange exchange, Map<String, String> params) throws Exception;
+    }
+
+    // Method check, ledger routing and error responses shared by every endpoint.
+    private static HttpHandler handler(Endpoint endpoint) {
+        return exchange -> {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    sendError(exchange, 405, "Only GET is supported");
+                    return;
+                }
+                try {
+                    Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                    String ledger = params.getOrDefault("ledger", Ledgers.current());
+                    if (!Ledgers.ids().contains(ledger)) {
+                        throw new IllegalArgumentException("Unknown ledger: " + ledger);
+                    }
+                    Ledgers.withLedger(ledger, () -> {
+                        endpoint.handle(exchange, params);
+                        return null;
+                    });
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    sendError(exchange, 400, e.getMessage());
+                } catch (IOException | UncheckedIOException e) {
+                    System.out.println("HTTP " + exchange.getRequestURI() + ": " + e.getMessage());
+                    // Before the headers it's ours (e.g. an unreadable archive segment); after them
+                    // it's usually the client going away mid-stream, and there's nothing useful to send.
+                    if (exchange.getResponseCode() == -1) sendError(exchange, 500, e.getMessage());
+                } catch (Exception e) {
+                    System.out.println("HTTP " + exchange.getRequestURI() + " failed: " + e.getMessage());
+                    sendError(exchange, 500, e.getMessage());
+                }
+            }
+        };
+    }
+
+    private static void ledgers(HttpExchange exchange, Map<String, String> params) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"active\":");
+        appendString(sb, Ledgers.current());
+        sb.append(",\"ledgers\":[");
+        List<String> ids = Ledgers.ids();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) sb.append(',');
+            appendString(sb, ids.get(i));
+        }
+        sb.append("]}");
+        sendJson(exchange, sb);
+    }
+
+    private static void transactions(HttpExchange exchange, Map<String, String> params) throws IOException, SQLException {
+        TransactionQuery query = TransactionQuery.parse(
+                params.get("from"), params.get("to"), params.get("min"), params.get("max"),
+                params.get("description"), params.get("vendor"));
+        query = withPeriod(query, params);
+
+        String limitParam = params.get("limit");
+        int limit = limitParam == null ? DEFAULT_PAGE
+                : limitParam.equals("all") ? Integer.MAX_VALUE : Integer.parseInt(limitParam);
+        if (limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+        PageCursor after = params.containsKey("cursor") ? PageCursor.decode(params.get("cursor")) : null;
+
+        // Headers go out before the first row, so a database error after that just cuts the response.
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0); // 0 = chunked
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("{\"transactions\":[");
+            StringBuilder sb = new StringBuilder(160);
+            boolean[] first = {true};
+            PageCursor next = TransactionManager.streamPage(query, after, limit, t -> {
+                sb.setLength(0);
+                if (!first[0]) sb.append(',');
+                first[0] = false;
+                appendTransaction(sb, t);
+                try {
+                    out.append(sb);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.write("],\"next\":");
+            if (next == null) out.write("null");
+            else out.write('"' + next.encode() + '"');
+            out.write('}');
+        }
+    }
+
+    private static void summary(HttpExchange exchange, Map<String, String> params) throws IOException, SQLException {
+        TransactionQuery query = reportQuery(params);
+        PeriodTotal total = TransactionManager.periodTotal(query);
+
+        StringBuilder sb = new StringBuilder("{\"query\":");
+        appendString(sb, query.toString());
+        sb.append(",\"count\":").append(total.getRowCount());
+        sb.append(",\"deposits\":");
+        ReportPrinter.appendAmount(sb, total.getDepositCents(), 0);
+        sb.append(",\"payments\":");
+        ReportPrinter.appendAmount(sb, total.getPaymentCents(), 0);
+        sb.append(",\"net\":");
+        ReportPrinter.appendAmount(sb, total.getNetCents(), 0);
+        sb.append('}');
+        sendJson(exchange, sb);
+    }
+
+    private static void topVendors(HttpExchange exchange, Map<String, String> params) throws IOException, SQLException {
+        TransactionQuery query = reportQuery(params);
+        int limit = Integer.parseInt(params.getOrDefault("limit", "10"));
+        if (limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+
+        StringBuilder sb = new StringBuilder("{\"vendors\":[");
+        List<VendorTotal> top = VendorRanking.topVendors(limit, query);
+        for (int i = 0; i < top.size(); i++) {
+            VendorTotal v = top.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"vendor\":");
+            appendString(sb, v.getVendor());
+            sb.append(",\"payments\":").append(v.getCount());
+            sb.append(",\"spent\":");
+            ReportPrinter.appendAmount(sb, Math.round(v.getSpent() * 100), 0);
+            sb.append('}');
+        }
+        sb.append("]}");
+        sendJson(exchange, sb);
+    }
+
+    // Reports take a period (default all) or an explicit from/to, plus an optional vendor.
+    private static TransactionQuery reportQuery(Map<String, String> params) {
+        TransactionQuery query = TransactionQuery.parse(params.get("from"), params.get("to"),
+                null, null, null, params.get("vendor"));
+        return withPeriod(query, params);
+    }
+
+    private static TransactionQuery withPeriod(TransactionQuery query, Map<String, String> params) {
+        String period = params.get("period");
+        if (period == null) return query;
+        if (query.getStartDate() != null || query.getEndDate() != null) {
+            throw new IllegalArgumentException("Use either period= or from=/to=, not both");
+        }
+        LocalDate today = LocalDate.now();
+        ReportPeriod p = ReportPeriod.parse(period);
+        return new TransactionQuery(p.start(today), p.end(today), query.getMinAmount(), query.getMaxAmount(),
+                params.get("description"), params.get("vendor"));
+    }
+
+    private static void appendTransaction(StringBuilder sb, Transaction t) {
+        sb.append("{\"id\":").append(t.getId());
+        sb.append(",\"date\":\"");
+        ReportPrinter.appendDate(sb, t.getDate());
+        sb.append("\",\"time\":\"");
+        ReportPrinter.appendTime(sb, t.getTime());
+        sb.append("\",\"description\":");
+        appendString(sb, t.getDescription());
+        sb.append(",\"vendor\":");
+        appendString(sb, t.getVendor());
+        sb.append(",\"amount\":");
+        ReportPrinter.appendAmount(sb, Math.round(t.getAmount() * 100), 0);
+        sb.append('}');
+    }
+
+    static void appendString(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static void sendJson(HttpExchange exchange, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            StringBuilder sb = new StringBuilder("{\"error\":");
+            appendString(sb, message);
+            sb.append('}');
+            byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException | IllegalStateException ignored) {
+            // Headers were already sent (error mid-stream) or the client is gone.
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!value.isBlank()) params.put(name, value);
+        }
+        return params;
+    }
+}
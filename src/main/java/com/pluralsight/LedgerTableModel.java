@@ -1,10 +1,15 @@
 package com.pluralsight;
 
+import javax.swing.SwingWorker;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Predicate;
 
 /**
@@ -13,55 +18,176 @@ import java.util.function.Predicate;
  * It supports:
  * - Reloading from transactions.csv
  * - Applying a filter predicate (e.g., deposits only)
+ * - Date ranges via binary search over the newest-first rows (see {@link DateIndex})
  * - Basic totals (income/expenses/net)
+ * - Editing and deleting rows in place, found through an id index
+ * - A running balance column and balance-as-of-date over all rows, whatever the filter:
+ *   per-day prefix sums (see {@link BalanceIndex}) plus each row's offset within its day
+ *
+ * Columns are typed (LocalDate, LocalTime, String, String, Double, Double) and the display
+ * text comes from each row's cache (see {@link LedgerRow} / {@link LedgerCellRenderer}).
  */
-public class LedgerTableModel extends AbstractTableModel {
+public class LedgerTableModel extends AbstractTableModel
+        implements LedgerCellRenderer.DisplayTextModel, LedgerRowSorter.KeyedModel {
+
+    private static final String[] COLS = {"Date", "Time", "Description", "Vendor", "Amount", "Balance"};
+
+    /** Model index of the running balance column. */
+    public static final int BALANCE_COLUMN = 5;
 
-    private static final String[] COLS = {"Date", "Time", "Description", "Vendor", "Amount"};
-    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    /** Outcome of {@link #addTransaction}. */
+    public enum SaveResult { SAVED, DUPLICATE, FAILED }
 
-    private final List<Transaction> all = new ArrayList<>();
-    private final List<Transaction> visible = new ArrayList<>();
+    private final List<LedgerRow> all = new ArrayList<>();
+    private final List<LedgerRow> visible = new ArrayList<>();
     private Predicate<Transaction> filter = t -> true;
+    private LocalDate rangeFrom;   // inclusive, null = open
+    private LocalDate rangeTo;     // inclusive, null = open
+    private final BalanceIndex balances = new BalanceIndex();
+    private final Map<Long, LedgerRow> byId = new HashMap<>();   // saved rows (archived rows have no id)
+    private final List<Runnable> rowsChangedListeners = new ArrayList<>();
 
     public void reloadAll() {
-        all.clear();
-        all.addAll(TransactionManager.loadTransactions());
+        replaceAll(loadAll());
+    }
+
+    /**
+     * {@link #reloadAll()} without blocking the EDT: the rows are read on a worker
+     * thread under {@code load}, then swapped in and {@code done} runs, on the EDT.
+     * A cancelled load changes nothing and skips {@code done}.
+     */
+    public void reloadInBackground(QueryCancellation load, Runnable done) {
+        new SwingWorker<List<Transaction>, Void>() {
+            @Override
+            protected List<Transaction> doInBackground() throws Exception {
+                return load.run(LedgerTableModel::loadAll);
+            }
+
+            @Override
+            protected void done() {
+                if (load.isCancelled()) return;
+                try {
+                    replaceAll(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Error loading transactions: " + e.getMessage());
+                }
+                done.run();
+            }
+        }.execute();
+    }
 
-        // Sort newest first (date + time)
-        all.sort(Comparator.comparing(Transaction::getDate)
-                .thenComparing(Transaction::getTime)
-                .reversed());
+    /** Reads every transaction for {@link #replaceAll}; safe to call off the EDT. */
+    public static List<Transaction> loadAll() {
+        // Already newest first (date, time, id), merged from parallel id-range reads
+        return ParallelLoad.loadTransactions(DbConfig.getLoadPartitions());
+    }
+
+    /** Shows {@code loaded} (newest first, as from {@link #loadAll()}) instead of the current rows. */
+    public void replaceAll(List<Transaction> loaded) {
+        all.clear();
+        byId.clear();
+        for (Transaction t : loaded) {
+            LedgerRow row = new LedgerRow(t);
+            all.add(row);
+            if (t.getId() > 0) byId.put(t.getId(), row);
+        }
+        balances.rebuild(all);
+        long dayCents = 0;
+        for (int i = all.size() - 1; i >= 0; i--) {
+            LedgerRow row = all.get(i);
+            boolean newDay = i == all.size() - 1 || all.get(i + 1).getEpochDay() != row.getEpochDay();
+            dayCents = (newDay ? 0 : dayCents) + row.getCents();
+            row.setDayBalanceCents(dayCents);
+        }
 
         applyFilter(filter);
+        fireRowsChanged();
+    }
+
+    /**
+     * Called after every change to the rows themselves (reload, add, edit, delete),
+     * including rows the current filter or date range hides, which get no table event.
+     */
+    public void addRowsChangedListener(Runnable listener) {
+        rowsChangedListeners.add(listener);
+    }
+
+    private void fireRowsChanged() {
+        for (Runnable listener : rowsChangedListeners) listener.run();
     }
 
     public void applyFilter(Predicate<Transaction> filter) {
         this.filter = (filter == null) ? (t -> true) : filter;
 
         visible.clear();
-        for (Transaction t : all) {
-            if (this.filter.test(t)) {
-                visible.add(t);
+        for (LedgerRow row : getRowsBetween(rangeFrom, rangeTo)) {
+            if (this.filter.test(row.getTransaction())) {
+                visible.add(row);
             }
         }
         fireTableDataChanged();
     }
 
+    /** Limits the visible rows to a date range (null = open end) and re-applies the filter. */
+    public void setDateRange(LocalDate from, LocalDate to) {
+        this.rangeFrom = from;
+        this.rangeTo = to;
+        applyFilter(filter);
+    }
+
+    /**
+     * All rows dated from..to (inclusive, null = open end), newest first.
+     * Two binary searches and a sub-list view; valid until this model next changes.
+     */
+    public List<LedgerRow> getRowsBetween(LocalDate from, LocalDate to) {
+        return DateIndex.slice(all, LedgerRow::getEpochDay, from, to);
+    }
+
     public List<Transaction> getVisibleTransactions() {
-        return new ArrayList<>(visible);
+        List<Transaction> list = new ArrayList<>(visible.size());
+        for (LedgerRow row : visible) list.add(row.getTransaction());
+        return list;
     }
 
     public Totals getTotalsForVisible() {
         double income = 0;
         double expenses = 0;
-        for (Transaction t : visible) {
+        for (LedgerRow row : visible) {
+            Transaction t = row.getTransaction();
             if (t.getAmount() >= 0) income += t.getAmount();
             else expenses += t.getAmount();
         }
         return new Totals(income, expenses);
     }
 
+    /** Balance at the end of {@code date} (null = everything), over all rows. O(log days). */
+    public double getBalanceAsOf(LocalDate date) {
+        long cents = date == null ? balances.total() : balances.sumThrough(date.toEpochDay());
+        return cents / 100.0;
+    }
+
+    /**
+     * Balance just after this row: everything up to the previous day from the prefix
+     * sums (O(log days)) plus the row's offset within its day. The row keeps the
+     * boxed value and text for as long as the balance stays the same.
+     */
+    private long runningBalanceCents(LedgerRow row) {
+        long cents = balances.sumThrough(row.getEpochDay() - 1) + row.getDayBalanceCents();
+        row.setBalanceCents(cents);
+        return cents;
+    }
+
+    // Offsets within one day after a row of that day was added or removed; O(log n + rows that day).
+    private void updateDayBalances(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        List<LedgerRow> day = getRowsBetween(date, date);
+        long cents = 0;
+        for (int i = day.size() - 1; i >= 0; i--) {
+            cents += day.get(i).getCents();
+            day.get(i).setDayBalanceCents(cents);
+        }
+    }
+
     @Override
     public int getRowCount() {
         return visible.size();
@@ -81,32 +207,216 @@ public class LedgerTableModel extends AbstractTableModel {
     public Class<?> getColumnClass(int columnIndex) {
         // Helps sorting/renderers.
         return switch (columnIndex) {
-            case 0 -> String.class;
-            case 1 -> String.class;
+            case 0 -> LocalDate.class;
+            case 1 -> LocalTime.class;
             case 2 -> String.class;
             case 3 -> String.class;
-            case 4 -> Double.class;
+            case 4, 5 -> Double.class;
             default -> Object.class;
         };
     }
 
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        Transaction t = visible.get(rowIndex);
+        LedgerRow row = visible.get(rowIndex);
+        Transaction t = row.getTransaction();
         return switch (columnIndex) {
-            case 0 -> t.getDate().toString();
-            case 1 -> t.getTime().withNano(0).format(TIME_FMT);
+            case 0 -> t.getDate();
+            case 1 -> row.getTime();
             case 2 -> t.getDescription();
             case 3 -> t.getVendor();
-            case 4 -> t.getAmount();
+            case 4 -> row.getAmount();
+            case 5 -> {
+                runningBalanceCents(row);
+                yield row.getBalance();
+            }
             default -> null;
         };
     }
 
-    /** Adds a transaction (persist + refresh). */
-    public void addTransaction(Transaction transaction) {
-        TransactionManager.saveTransaction(transaction);
-        reloadAll();
+    @Override
+    public String getDisplayText(int rowIndex, int columnIndex) {
+        LedgerRow row = visible.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> row.getDateText();
+            case 1 -> row.getTimeText();
+            case 2 -> row.getTransaction().getDescription();
+            case 3 -> row.getTransaction().getVendor();
+            case 4 -> row.getAmountText();
+            case 5 -> {
+                runningBalanceCents(row);
+                yield row.getBalanceText();
+            }
+            default -> "";
+        };
+    }
+
+    @Override
+    public long getSortKey(int rowIndex, int columnIndex) {
+        LedgerRow row = visible.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> row.getEpochSecond();
+            case 1 -> row.getSecondOfDay();
+            case 4 -> row.getCents();
+            case 5 -> runningBalanceCents(row);
+            default -> 0;
+        };
+    }
+
+    /** The transaction shown at a model row (convert view rows with the table first). */
+    public Transaction getTransactionAt(int rowIndex) {
+        return visible.get(rowIndex).getTransaction();
+    }
+
+    /** The loaded transaction with this database id, or null. */
+    public Transaction getTransactionById(long id) {
+        LedgerRow row = byId.get(id);
+        return row == null ? null : row.getTransaction();
+    }
+
+    /**
+     * Adds a transaction (persist + insert in place).
+     * The row goes straight into its newest-first position and the table gets a
+     * single rows-inserted event, so an active sort isn't redone from scratch.
+     *
+     * @return SAVED, or DUPLICATE / FAILED if an identical transaction is already
+     *         saved or the insert failed (nothing is added either way)
+     */
+    public SaveResult addTransaction(Transaction transaction) {
+        long id = TransactionManager.saveTransaction(transaction);
+        if (id == TransactionManager.DUPLICATE) return SaveResult.DUPLICATE;
+        if (id <= 0) return SaveResult.FAILED;
+        transaction = new Transaction(id, transaction.getDate(), transaction.getTime(),
+                transaction.getDescription(), transaction.getVendor(), transaction.getAmount());
+
+        LedgerRow row = new LedgerRow(transaction);
+        insert(row);
+
+        if (isShown(transaction)) {
+            int pos = insertVisible(row);
+            fireTableRowsInserted(pos, pos);
+        }
+        fireBalancesChanged(row);
+        fireRowsChanged();
+        return SaveResult.SAVED;
+    }
+
+    /**
+     * Saves new values for an existing row (same id) and updates it in place: the
+     * id index finds the row, two binary searches move it if its date changed, and
+     * the table gets one rows-updated event (or deleted + inserted if it moved or
+     * left the filter).
+     *
+     * @return false if the id isn't loaded or the database update failed
+     */
+    public boolean updateTransaction(Transaction updated) {
+        LedgerRow old = byId.get(updated.getId());
+        if (old == null || !TransactionManager.updateTransaction(updated)) return false;
+
+        LedgerRow row = new LedgerRow(updated);
+        remove(old);
+        insert(row);
+
+        int oldPos = indexOf(visible, old);
+        if (oldPos >= 0) visible.remove(oldPos);
+        int newPos = -1;
+        if (isShown(updated)) newPos = insertVisible(row);
+
+        if (oldPos >= 0 && oldPos == newPos) {
+            fireTableRowsUpdated(newPos, newPos);
+        } else {
+            if (oldPos >= 0) fireTableRowsDeleted(oldPos, oldPos);
+            if (newPos >= 0) fireTableRowsInserted(newPos, newPos);
+        }
+        // Balances change from the older of the two positions upwards.
+        fireBalancesChanged(isNewer(old, row) ? row : old);
+        fireRowsChanged();
+        return true;
+    }
+
+    /**
+     * Deletes a row by id from the database and the model, firing one rows-deleted event.
+     *
+     * @return false if the id isn't loaded or the database delete failed
+     */
+    public boolean deleteTransaction(long id) {
+        LedgerRow old = byId.get(id);
+        if (old == null || !TransactionManager.deleteTransaction(id)) return false;
+
+        remove(old);
+        int pos = indexOf(visible, old);
+        if (pos >= 0) {
+            visible.remove(pos);
+            fireTableRowsDeleted(pos, pos);
+        }
+        fireBalancesChanged(old);
+        fireRowsChanged();
+        return true;
+    }
+
+    private void insert(LedgerRow row) {
+        all.add(firstNotNewer(all, row.getEpochSecond(), row.getId()), row);
+        if (row.getId() > 0) byId.put(row.getId(), row);
+        balances.add(row.getEpochDay(), row.getCents());
+        updateDayBalances(row.getEpochDay());
+    }
+
+    private void remove(LedgerRow row) {
+        all.remove(indexOf(all, row));
+        byId.remove(row.getId());
+        balances.add(row.getEpochDay(), -row.getCents());
+        updateDayBalances(row.getEpochDay());
+    }
+
+    private int insertVisible(LedgerRow row) {
+        int pos = firstNotNewer(visible, row.getEpochSecond(), row.getId());
+        visible.add(pos, row);
+        return pos;
+    }
+
+    // Every visible row newer than {@code changed} has a new balance.
+    private void fireBalancesChanged(LedgerRow changed) {
+        int end = firstNotNewer(visible, changed.getEpochSecond(), changed.getId());
+        if (end > 0) fireTableChanged(new TableModelEvent(this, 0, end - 1, BALANCE_COLUMN));
+    }
+
+    private boolean isShown(Transaction t) {
+        return filter.test(t) && inRange(t.getDate());
+    }
+
+    private boolean inRange(LocalDate date) {
+        return (rangeFrom == null || !date.isBefore(rangeFrom))
+                && (rangeTo == null || !date.isAfter(rangeTo));
+    }
+
+    // Newest-first order is (date + time, id) descending; archived rows (id 0) go after saved ones.
+    private static boolean isNewer(LedgerRow a, LedgerRow b) {
+        if (a.getEpochSecond() != b.getEpochSecond()) return a.getEpochSecond() > b.getEpochSecond();
+        return a.getId() > b.getId();
+    }
+
+    // Index of the first row that isn't newer than (epochSecond, id); binary search.
+    private static int firstNotNewer(List<LedgerRow> rows, long epochSecond, long id) {
+        int lo = 0;
+        int hi = rows.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            LedgerRow r = rows.get(mid);
+            boolean newer = r.getEpochSecond() > epochSecond || (r.getEpochSecond() == epochSecond && r.getId() > id);
+            if (newer) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Position of this exact row, or -1: binary search, then a short scan over rows with the same key.
+    private static int indexOf(List<LedgerRow> rows, LedgerRow row) {
+        for (int i = firstNotNewer(rows, row.getEpochSecond(), row.getId()); i < rows.size(); i++) {
+            LedgerRow r = rows.get(i);
+            if (r == row) return i;
+            if (r.getEpochSecond() != row.getEpochSecond() || r.getId() != row.getId()) break;
+        }
+        return -1;
     }
 
     /**
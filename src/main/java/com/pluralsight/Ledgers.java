@@ -0,0 +1,78 @@
+package com.pluralsight;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Routes data access to the right ledger's database.
+ *
+ * Each ledger id (see {@link DbConfig}) gets its own {@link LedgerDatabase} (primary
+ * plus any read replicas), created on first use (which is also when its table
+ * check starts, see {@link SchemaCheck}). Code normally works on the
+ * active ledger; {@link #withLedger} runs a piece of work against another ledger
+ * on the current thread only, which is how cross-ledger reports fan out.
+ */
+public class Ledgers {
+
+    private static final Map<String, LedgerDatabase> DATABASES = new HashMap<>();
+    private static final ThreadLocal<String> SCOPED = new ThreadLocal<>();
+    private static volatile String active = DbConfig.getActiveLedger();
+
+    private Ledgers() {
+        // no instances
+    }
+
+    public static List<String> ids() {
+        return DbConfig.getLedgerIds();
+    }
+
+    /** The ledger the current thread is working on. */
+    public static String current() {
+        String scoped = SCOPED.get();
+        return scoped != null ? scoped : active;
+    }
+
+    public static void setActive(String ledgerId) {
+        DbConfig.getUrl(ledgerId); // fail fast on unknown ids
+        active = ledgerId;
+    }
+
+    /** Runs {@code work} with the current thread routed to {@code ledgerId}. */
+    public static <T> T withLedger(String ledgerId, Callable<T> work) throws Exception {
+        String previous = SCOPED.get();
+        SCOPED.set(ledgerId);
+        try {
+            return work.call();
+        } finally {
+            if (previous == null) SCOPED.remove();
+            else SCOPED.set(previous);
+        }
+    }
+
+    static LedgerDatabase database() {
+        return database(current());
+    }
+
+    static synchronized LedgerDatabase database(String ledgerId) {
+        LedgerDatabase db = DATABASES.get(ledgerId);
+        if (db == null) {
+            db = new LedgerDatabase(ledgerId);
+            DATABASES.put(ledgerId, db);
+        }
+        return db;
+    }
+
+    static Path archiveDir() {
+        return DbConfig.getArchiveDir(current());
+    }
+
+    /** Closes idle connections of every ledger. */
+    static synchronized void shutdownAll() {
+        for (LedgerDatabase db : DATABASES.values()) {
+            db.shutdown();
+        }
+    }
+}
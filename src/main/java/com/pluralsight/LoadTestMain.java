@@ -0,0 +1,238 @@
+package com.pluralsight;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * End-to-end load test of the data layer with synthetic data (see {@link WorkloadGenerator}).
+ *
+ * Runs only against a throw-away embedded database (a {@code jdbc:h2:} or in-memory
+ * URL) unless {@code --allow-real-db} is given, so it never fills a real ledger by accident:
+ * <pre>
+ * mvn -Pembedded-db compile exec:java -Dexec.mainClass=com.pluralsight.LoadTestMain \
+ *     -Dledger.db.url="jdbc:h2:./target/h2/load" -Dledger.archive.dir=target/h2/archive \
+ *     -Dexec.args="--rows=1000000 --writers=4 --readers=8 --seconds=30"
+ * </pre>
+ * (Leave MODE=MySQL off for this one: H2's MySQL mode hands out duplicate ids when
+ * several writers insert at once. The schema and queries work in plain H2.)
+ *
+ * Phases:
+ *  1. fill    - writers bulk-insert --rows generated transactions
+ *  2. reload  - times loadTransactions() and LedgerTableModel.reloadAll() over the full ledger
+ *  3. mixed   - for --seconds, writers call saveTransaction() while readers run the reports
+ *
+ * Prints throughput and p50/p99/max latency per operation.
+ */
+public class LoadTestMain {
+
+    private static final int FILL_CHUNK = 5000;
+    private static final int RELOAD_RUNS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int rows = 100_000;
+        int writers = 4;
+        int readers = 8;
+        int seconds = 20;
+        long seed = 1;
+        boolean allowRealDb = false;
+        try {
+            for (String arg : args) {
+                if (arg.equals("--allow-real-db")) {
+                    allowRealDb = true;
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+                String value = arg.substring(eq + 1);
+                switch (arg.substring(2, eq)) {
+                    case "rows" -> rows = Integer.parseInt(value);
+                    case "writers" -> writers = Integer.parseInt(value);
+                    case "readers" -> readers = Integer.parseInt(value);
+                    case "seconds" -> seconds = Integer.parseInt(value);
+                    case "seed" -> seed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (rows < 0 || writers < 1 || readers < 0 || seconds < 0) {
+                throw new IllegalArgumentException("Counts must not be negative (and --writers at least 1)");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LoadTestMain [--rows=100000] [--writers=4] [--readers=8] [--seconds=20] [--seed=1]"
+                    + " [--allow-real-db]");
+            System.exit(2);
+            return;
+        }
+
+        String url = DbConfig.getUrl(Ledgers.current());
+        if (!allowRealDb && !isThrowAway(url)) {
+            System.err.println("Refusing to write synthetic rows to " + url);
+            System.err.println("Point -Dledger.db.url at an embedded database (jdbc:h2:...) or pass --allow-real-db.");
+            System.exit(2);
+            return;
+        }
+
+        System.out.println("Database: " + url);
+        ExecutorService workers = Executors.newFixedThreadPool(writers + readers);
+        try {
+            fill(workers, rows, writers, seed);
+            reload();
+            mixed(workers, writers, readers, seconds, seed);
+        } finally {
+            workers.shutdownNow();
+            TransactionManager.shutdown();
+        }
+    }
+
+    // Embedded H2 (file or in-memory) or any in-memory database.
+    static boolean isThrowAway(String url) {
+        return url != null && (url.startsWith("jdbc:h2:") || url.contains(":mem:"));
+    }
+
+    private static void fill(ExecutorService workers, int rows, int writers, long seed) throws Exception {
+        if (rows == 0) return;
+        System.out.println();
+        System.out.println("== fill: " + rows + " rows, " + writers + " writers ==");
+
+        Map<String, LatencyStats> stats = new TreeMap<>();
+        LatencyStats batches = stats.computeIfAbsent("saveTransactions x" + FILL_CHUNK, k -> new LatencyStats());
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int share = rows / writers + (w < rows % writers ? 1 : 0);
+            WorkloadGenerator gen = WorkloadGenerator.typical(seed + w);
+            tasks.add(() -> {
+                List<Transaction> chunk = new ArrayList<>(FILL_CHUNK);
+                for (int done = 0; done < share; done += chunk.size()) {
+                    chunk.clear();
+                    for (int i = 0; i < Math.min(FILL_CHUNK, share - done); i++) chunk.add(gen.next());
+                    long start = System.nanoTime();
+                    TransactionManager.saveTransactions(chunk);
+                    batches.record(System.nanoTime() - start);
+                }
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Future<Void> f : workers.invokeAll(tasks)) f.get();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d rows in %.1f s = %,.0f rows/s%n", rows, elapsed, rows / elapsed);
+        print(stats, elapsed);
+    }
+
+    private static void reload() {
+        System.out.println();
+        System.out.println("== reload: full ledger, " + RELOAD_RUNS + " runs each ==");
+
+        Map<String, LatencyStats> stats = new TreeMap<>();
+        LedgerTableModel model = new LedgerTableModel();
+        long begin = System.nanoTime();
+        int size = 0;
+        for (int i = 0; i < RELOAD_RUNS; i++) {
+            long start = System.nanoTime();
+            size = TransactionManager.loadTransactions().size();
+            stats.computeIfAbsent("loadTransactions", k -> new LatencyStats()).record(System.nanoTime() - start);
+
+            start = System.nanoTime();
+            model.reloadAll();
+            stats.computeIfAbsent("LedgerTableModel.reloadAll", k -> new LatencyStats()).record(System.nanoTime() - start);
+        }
+        System.out.printf("%,d rows in the ledger%n", size);
+        print(stats, (System.nanoTime() - begin) / 1e9);
+    }
+
+    private static void mixed(ExecutorService workers, int writers, int readers, int seconds, long seed) throws Exception {
+        if (seconds == 0) return;
+        System.out.println();
+        System.out.println("== mixed: " + writers + " writers, " + readers + " readers, " + seconds + " s ==");
+
+        Map<String, LatencyStats> stats = new TreeMap<>();
+        String[] ops = {"periodTotal(ytd)", "topVendors(10, prev-month)", "findTransactions(vendor, mtd)", "streamPage(100)"};
+        LatencyStats saves = new LatencyStats();
+        stats.put("saveTransaction", saves);
+        LatencyStats[] opStats = new LatencyStats[ops.length];
+        for (int i = 0; i < ops.length; i++) {
+            opStats[i] = new LatencyStats();
+            stats.put(ops[i], opStats[i]);
+        }
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<?>> running = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            WorkloadGenerator gen = WorkloadGenerator.typical(seed + 1000 + w);
+            running.add(workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    Transaction t = gen.next();
+                    long start = System.nanoTime();
+                    TransactionManager.saveTransaction(t);
+                    saves.record(System.nanoTime() - start);
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            Random random = new Random(seed + 2000 + r);
+            WorkloadGenerator names = WorkloadGenerator.typical(seed);
+            int first = r;
+            running.add(workers.submit(() -> {
+                LocalDate today = LocalDate.now();
+                for (int n = first; System.nanoTime() < deadline; n++) {
+                    int op = n % ops.length;
+                    long start = System.nanoTime();
+                    switch (op) {
+                        case 0 -> TransactionManager.periodTotal(ReportPeriod.YEAR_TO_DATE.toQuery(today, null));
+                        case 1 -> VendorRanking.topVendors(10, ReportPeriod.PREVIOUS_MONTH.toQuery(today, null));
+                        case 2 -> TransactionManager.findTransactions(ReportPeriod.MONTH_TO_DATE.toQuery(today,
+                                names.getVendor(random.nextInt(Math.min(50, names.getVendorCount())))));
+                        default -> TransactionManager.streamPage(ReportPeriod.ALL.toQuery(today, null), null, 100, t -> { });
+                    }
+                    opStats[op].record(System.nanoTime() - start);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : running) f.get();
+        print(stats, seconds);
+    }
+
+    private static void print(Map<String, LatencyStats> stats, double seconds) {
+        System.out.printf("%-32s %9s %10s %10s %10s %10s%n", "operation", "count", "ops/s", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, LatencyStats> e : stats.entrySet()) {
+            LatencyStats s = e.getValue();
+            System.out.printf("%-32s %9d %10.1f %10.2f %10.2f %10.2f%n", e.getKey(), s.count(),
+                    s.count() / seconds, s.percentile(50) / 1e6, s.percentile(99) / 1e6, s.percentile(100) / 1e6);
+        }
+    }
+
+    /** Every recorded latency (nanoseconds); percentiles are exact. */
+    static class LatencyStats {
+        private long[] samples = new long[1024];
+        private int count;
+
+        synchronized void record(long nanos) {
+            if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+            samples[count++] = nanos;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        /** Nearest-rank percentile (0 when nothing was recorded). */
+        synchronized long percentile(double p) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(p / 100.0 * count);
+            return sorted[Math.max(0, Math.min(count, rank) - 1)];
+        }
+    }
+}
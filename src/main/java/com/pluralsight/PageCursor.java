@@ -0,0 +1,85 @@
+package com.pluralsight;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset pagination position in the newest-first ledger order
+ * (date DESC, time DESC, id DESC).
+ *
+ * A page continues strictly after the last row of the previous page, so paging
+ * stays cheap and stable while rows are being added. Archived rows have no id
+ * (0), so several of them can share a key; {@code skip} counts how many rows with
+ * exactly the cursor's key were already returned.
+ */
+public class PageCursor {
+    private final LocalDate date;
+    private final LocalTime time;
+    private final long id;
+    private final int skip;
+
+    public PageCursor(LocalDate date, LocalTime time, long id, int skip) {
+        this.date = date;
+        this.time = time;
+        this.id = id;
+        this.skip = skip;
+    }
+
+    // Getters
+    public LocalDate getDate() { return date; }
+    public LocalTime getTime() { return time; }
+    public long getId() { return id; }
+    public int getSkip() { return skip; }
+
+    /** Negative if {@code t} sorts before (is newer than) the cursor, 0 on the same key, positive after. */
+    int compareTo(Transaction t) {
+        int c = date.compareTo(t.getDate());
+        if (c == 0) c = time.compareTo(t.getTime());
+        if (c == 0) c = Long.compare(id, t.getId());
+        return c;
+    }
+
+    boolean sameKey(Transaction t) {
+        return compareTo(t) == 0;
+    }
+
+    /** Adds "at or after the cursor" to a WHERE clause built by {@link TransactionQuery#whereClause}. */
+    String addKeysetCondition(String where, List<Object> params) {
+        String keyset = "(tx_date < ? OR (tx_date = ? AND (tx_time < ? OR (tx_time = ? AND id <= ?))))";
+        java.sql.Date d = java.sql.Date.valueOf(date);
+        java.sql.Time t = java.sql.Time.valueOf(time);
+        params.add(d);
+        params.add(d);
+        params.add(t);
+        params.add(t);
+        params.add(id);
+        return where.isEmpty() ? "WHERE " + keyset : where + " AND " + keyset;
+    }
+
+    /** Opaque, URL-safe form handed to clients. */
+    public String encode() {
+        String raw = date + "|" + time + "|" + id + "|" + skip;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4) throw new IllegalArgumentException("Invalid cursor: " + value);
+            return new PageCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]),
+                    Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+        } catch (DateTimeParseException e) {
+            // IllegalArgumentException covers bad Base64 and numbers already.
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+    }
+
+    public String toString() {
+        return date + " " + time + " #" + id + (skip > 1 ? " +" + skip : "");
+    }
+}
@@ -0,0 +1,137 @@
+package com.pluralsight;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Full ledger load split across several connections.
+ *
+ * The live table is cut into equal {@code id} ranges; each range is read on its
+ * own pooled connection (virtual threads where available, see
+ * {@link LedgerExecutors}) and decoded into its own list, already sorted newest
+ * first by the database. Archived years are read alongside as one more run. The
+ * sorted runs are then k-way merged with a small heap, giving the same order as
+ * {@link TransactionManager#loadTransactions()}.
+ *
+ * Small ledgers aren't worth the extra connections and just use the single stream.
+ */
+public class ParallelLoad {
+
+    /** Below this many live rows the single-stream load is used. */
+    static final int MIN_PARALLEL_ROWS = 50_000;
+
+    private ParallelLoad() {
+        // no instances
+    }
+
+    /**
+     * Loads every transaction of the current ledger (newest first) using up to
+     * {@code partitions} connections. Errors are reported and give an empty list,
+     * like {@link TransactionManager#loadTransactions()}.
+     */
+    public static List<Transaction> loadTransactions(int partitions) {
+        try {
+            return load(partitions);
+        } catch (SQLException e) {
+            QueryCancellation.checkpoint(); // a cancelled load fails too; report that instead
+            System.out.println("Error loading transactions: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    static List<Transaction> load(int partitions) throws SQLException {
+        int k = Math.min(partitions, DbConfig.getPoolSize());
+        long[] bounds = TransactionManager.idBounds();
+        long minId = bounds[0];
+        long maxId = bounds[1];
+        long count = bounds[2];
+        if (k <= 1 || count < MIN_PARALLEL_ROWS) {
+            return TransactionManager.loadTransactions();
+        }
+
+        // Worker threads don't inherit the caller's ledger scope or cancellation token, so pass them on.
+        String ledger = Ledgers.current();
+        QueryCancellation token = QueryCancellation.current();
+        long span = maxId - minId + 1;
+        int expected = (int) Math.min(Integer.MAX_VALUE - 8, count / k + 1024);
+
+        List<Callable<List<Transaction>>> tasks = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            long from = minId + span * i / k;
+            long to = minId + span * (i + 1) / k - 1;
+            tasks.add(() -> onWorker(ledger, token, () -> TransactionManager.readIdRange(from, to, expected)));
+        }
+        tasks.add(() -> onWorker(ledger, token, ParallelLoad::readArchive));
+
+        // Held here for the workers too, so no run sees a year that is being archived.
+        Lock archived = Ledgers.database().archiveLock().readLock();
+        archived.lock();
+        ExecutorService workers = LedgerExecutors.perTask(tasks.size(), "ledger-load");
+        List<List<Transaction>> runs = new ArrayList<>();
+        try {
+            for (Future<List<Transaction>> f : workers.invokeAll(tasks)) {
+                runs.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading transactions", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sql) throw sql;
+            throw new SQLException("Error loading transactions: " + cause.getMessage(), cause);
+        } finally {
+            workers.shutdown();
+            archived.unlock();
+        }
+        return merge(runs);
+    }
+
+    private static <T> T onWorker(String ledger, QueryCancellation token, Callable<T> work) throws Exception {
+        Callable<T> scoped = () -> Ledgers.withLedger(ledger, work);
+        return token == null ? scoped.call() : token.run(scoped);
+    }
+
+    private static List<Transaction> readArchive() {
+        List<Transaction> rows = new ArrayList<>();
+        try (LedgerArchive.Rows it = LedgerArchive.rows(null, null)) {
+            while (it.hasNext()) rows.add(it.next());
+        }
+        return rows;
+    }
+
+    /** K-way merge of newest-first runs into one newest-first list. */
+    static List<Transaction> merge(List<List<Transaction>> runs) {
+        int total = 0;
+        for (List<Transaction> run : runs) total += run.size();
+        List<Transaction> merged = new ArrayList<>(total);
+
+        // Heap entry: {run index, position in run}; the newest head comes out first.
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) ->
+                compareNewestFirst(runs.get(a[0]).get(a[1]), runs.get(b[0]).get(b[1])));
+        for (int r = 0; r < runs.size(); r++) {
+            if (!runs.get(r).isEmpty()) heads.add(new int[]{r, 0});
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<Transaction> run = runs.get(head[0]);
+            merged.add(run.get(head[1]));
+            if (++head[1] < run.size()) heads.add(head);
+        }
+        return merged;
+    }
+
+    // Same order as the SQL: date, time, id all descending (archived rows, id 0, last on ties).
+    private static int compareNewestFirst(Transaction a, Transaction b) {
+        int c = b.getDate().compareTo(a.getDate());
+        if (c == 0) c = b.getTime().compareTo(a.getTime());
+        if (c == 0) c = Long.compare(b.getId(), a.getId());
+        return c;
+    }
+}
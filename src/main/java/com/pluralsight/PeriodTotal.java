@@ -0,0 +1,50 @@
+package com.pluralsight;
+
+/**
+ * Row count plus deposit and payment totals (in cents) for some set of transactions.
+ * Partial totals from different sources (ledgers, archive, live table) are combined with {@link #plus}.
+ */
+public class PeriodTotal {
+    private long rowCount;
+    private long depositCents;
+    private long paymentCents;   // negative
+
+    public PeriodTotal() {
+    }
+
+    public PeriodTotal(long rowCount, long depositCents, long paymentCents) {
+        this.rowCount = rowCount;
+        this.depositCents = depositCents;
+        this.paymentCents = paymentCents;
+    }
+
+    /** Adds one transaction (accumulator use). */
+    public void add(Transaction t) {
+        addCents(Math.round(t.getAmount() * 100));
+    }
+
+    /** Adds one transaction given as cents. */
+    public void addCents(long cents) {
+        rowCount++;
+        if (cents >= 0) depositCents += cents;
+        else paymentCents += cents;
+    }
+
+    public PeriodTotal plus(PeriodTotal other) {
+        return new PeriodTotal(rowCount + other.rowCount,
+                depositCents + other.depositCents, paymentCents + other.paymentCents);
+    }
+
+    // Getters
+    public long getRowCount() { return rowCount; }
+    public long getDepositCents() { return depositCents; }
+    public long getPaymentCents() { return paymentCents; }
+    public long getNetCents() { return depositCents + paymentCents; }
+    public double getDeposits() { return depositCents / 100.0; }
+    public double getPayments() { return paymentCents / 100.0; }
+    public double getNet() { return getNetCents() / 100.0; }
+
+    public String toString() {
+        return String.format("%8d | %12.2f | %12.2f | %12.2f", rowCount, getDeposits(), getPayments(), getNet());
+    }
+}
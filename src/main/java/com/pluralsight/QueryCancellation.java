@@ -0,0 +1,82 @@
+package com.pluralsight;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets one piece of database work (e.g. a report in the GUI) be stopped from another thread.
+ *
+ * Work started through {@link #run} registers every statement {@link TransactionManager}
+ * executes on that thread. {@link #cancel()} then calls {@code Statement.cancel()} on
+ * them, so the server stops too, and row loops give up at their next row with a
+ * {@link CancellationException}. Threads without a token (batch jobs, the JSON
+ * server) are unaffected.
+ */
+public final class QueryCancellation {
+
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    // Statements stay here until the last thread working under this token is done;
+    // cancelling a closed one is harmless.
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    /**
+     * Runs {@code work} on the current thread with this token in effect. Work split
+     * over several threads runs each part through the same token.
+     */
+    public <T> T run(Callable<T> work) throws Exception {
+        QueryCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        running.incrementAndGet();
+        try {
+            return work.call();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+            if (running.decrementAndGet() == 0) statements.clear();
+        }
+    }
+
+    /** The current thread's token, or null (to pass on to worker threads). */
+    static QueryCancellation current() {
+        return CURRENT.get();
+    }
+
+    /** Stops the running statements; safe to call from any thread, more than once. */
+    public void cancel() {
+        cancelled = true;
+        for (Statement s : statements) {
+            try {
+                s.cancel();
+            } catch (SQLException ignored) {
+                // Already finished or closed.
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Registers a statement about to run on the current thread (no-op without a token). */
+    static void track(Statement statement) {
+        QueryCancellation current = CURRENT.get();
+        if (current == null) return;
+        current.statements.add(statement);
+        // cancel() may have run just before the add and missed this statement.
+        if (current.cancelled) throw new CancellationException("Query cancelled");
+    }
+
+    /** Throws CancellationException if the current thread's work was cancelled; call once per row. */
+    static void checkpoint() {
+        QueryCancellation current = CURRENT.get();
+        if (current != null && current.cancelled) throw new CancellationException("Query cancelled");
+    }
+}
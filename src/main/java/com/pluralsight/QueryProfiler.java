@@ -0,0 +1,286 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in statement profiler (-Dledger.db.profile=true).
+ *
+ * {@link ConnectionPool} hands every statement it prepares to {@link #wrap}, which
+ * returns a proxy recording the SQL, bound parameters, time and rows (rows read
+ * for queries, update counts otherwise). A query's time runs until its result set
+ * is closed, so streamed reads include the fetching. Each statement goes to a
+ * rotating log ({@link DbConfig#getCacheDir()}/query-profile-N.log) and to an
+ * in-memory list of recent entries for the Diagnostics tab.
+ *
+ * Statements slower than -Dledger.db.slowQueryMs also get the server's EXPLAIN
+ * output. The EXPLAIN runs afterwards on a background thread with its own pooled
+ * connection, so the slow query's caller doesn't wait for it.
+ */
+public class QueryProfiler {
+
+    private static final int RECENT = 500;
+    private static final int LOG_FILE_BYTES = 5 * 1024 * 1024;
+    private static final int LOG_FILES = 5;
+
+    private static final boolean ENABLED = DbConfig.isQueryProfilerEnabled();
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(DbConfig.getSlowQueryMillis());
+    private static final Deque<Entry> RECENT_ENTRIES = new ArrayDeque<>();
+    private static final Logger LOG = ENABLED ? openLog() : null;
+
+    // The EXPLAIN thread's own statements aren't profiled.
+    private static final ThreadLocal<Boolean> EXPLAINING = ThreadLocal.withInitial(() -> false);
+    private static final ExecutorService EXPLAINS = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "query-profiler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private QueryProfiler() {
+        // no instances
+    }
+
+    /** One profiled statement. */
+    public static class Entry {
+        private final LocalDateTime time = LocalDateTime.now();
+        private final String ledger = Ledgers.current();
+        private final String sql;
+        private final String params;
+        private final long nanos;
+        private final long rows;
+        private volatile String plan;   // filled in later for slow statements
+
+        Entry(String sql, String params, long nanos, long rows) {
+            this.sql = sql;
+            this.params = params;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+
+        // Getters
+        public LocalDateTime getTime() { return time; }
+        public String getLedger() { return ledger; }
+        public String getSql() { return sql; }
+        public String getParams() { return params; }
+        public double getMillis() { return nanos / 1_000_000.0; }
+        public long getRows() { return rows; }
+        public String getPlan() { return plan; }
+        public boolean isSlow() { return nanos >= SLOW_NANOS; }
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static long getSlowQueryMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(SLOW_NANOS);
+    }
+
+    /** The most recent entries, newest first. */
+    public static List<Entry> recent() {
+        synchronized (RECENT_ENTRIES) {
+            return new ArrayList<>(RECENT_ENTRIES);
+        }
+    }
+
+    public static void clear() {
+        synchronized (RECENT_ENTRIES) {
+            RECENT_ENTRIES.clear();
+        }
+    }
+
+    /**
+     * Profiling proxy for a statement the pool's connection just created
+     * ({@code sql} is null for plain Statements, whose SQL comes with each execute).
+     */
+    static Statement wrap(Statement statement, String sql, ConnectionPool pool) {
+        if (!ENABLED || EXPLAINING.get()) return statement;
+        Class<?> type = statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        StatementProfile profile = new StatementProfile(sql, pool);
+
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (isParameterSetter(method, args)) {
+                        // setNull(index, sqlType[, typeName]) binds null; the others bind args[1].
+                        profile.params.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        profile.params.clear();
+                    } else if (name.equals("addBatch")) {
+                        profile.batched++;
+                    }
+                    if (!name.startsWith("execute")) return invoke(method, statement, args);
+
+                    String run = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                    long start = System.nanoTime();
+                    Object result = invoke(method, statement, args);
+                    switch (name) {
+                        case "executeQuery" -> {
+                            return countRows((ResultSet) result, profile, run, start);
+                        }
+                        case "executeUpdate", "executeLargeUpdate" ->
+                                profile.finish(run, start, ((Number) result).longValue());
+                        case "executeBatch", "executeLargeBatch" -> {
+                            long rows = 0;
+                            int n = Array.getLength(result);
+                            for (int k = 0; k < n; k++) rows += ((Number) Array.get(result, k)).longValue();
+                            profile.finish(run, start, rows);
+                            profile.batched = 0;
+                        }
+                        default -> profile.finish(run, start, statement.getUpdateCount());
+                    }
+                    return result;
+                });
+    }
+
+    // Counts next() calls; the entry is written when the result set is closed.
+    private static ResultSet countRows(ResultSet rs, StatementProfile profile, String sql, long start) {
+        long[] rows = {0};
+        boolean[] finished = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(method, rs, args);
+                    if (method.getName().equals("next") && (Boolean) result) rows[0]++;
+                    else if (method.getName().equals("close") && !finished[0]) {
+                        finished[0] = true;
+                        profile.finish(sql, start, rows[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** What a statement proxy knows between executes. */
+    private static class StatementProfile {
+        final String sql;
+        final ConnectionPool pool;
+        final Map<Integer, Object> params = new TreeMap<>();
+        int batched;
+
+        StatementProfile(String sql, ConnectionPool pool) {
+            this.sql = sql;
+            this.pool = pool;
+        }
+
+        void finish(String run, long start, long rows) {
+            long nanos = System.nanoTime() - start;
+            String text = run == null ? "" : run.strip().replaceAll("\\s+", " ");
+            String shown = batched > 0 ? batched + " batched rows, last " + params : params.toString();
+            Entry entry = new Entry(text, shown, nanos, rows);
+            synchronized (RECENT_ENTRIES) {
+                RECENT_ENTRIES.addFirst(entry);
+                if (RECENT_ENTRIES.size() > RECENT) RECENT_ENTRIES.removeLast();
+            }
+            LOG.info(format(entry));
+
+            if (entry.isSlow() && explainable(text)) {
+                Map<Integer, Object> bound = new TreeMap<>(params);
+                EXPLAINS.execute(() -> explain(entry, run, bound, pool));
+            }
+        }
+    }
+
+    private static boolean explainable(String sql) {
+        String head = sql.length() < 7 ? sql : sql.substring(0, 7).toUpperCase();
+        return head.startsWith("SELECT") || head.startsWith("UPDATE") || head.startsWith("DELETE");
+    }
+
+    // PreparedStatement.setXxx(parameterIndex, value[, ...]), not Statement settings like setFetchSize.
+    private static boolean isParameterSetter(Method method, Object[] args) {
+        return method.getDeclaringClass() == PreparedStatement.class && method.getName().startsWith("set")
+                && args != null && args.length >= 2 && args[0] instanceof Integer;
+    }
+
+    private static void explain(Entry entry, String sql, Map<Integer, Object> params, ConnectionPool pool) {
+        EXPLAINING.set(true);
+        StringBuilder plan = new StringBuilder();
+        try (Connection c = pool.getConnection();
+             PreparedStatement ps = c.prepareStatement("EXPLAIN " + sql)) {
+            for (Map.Entry<Integer, Object> p : params.entrySet()) {
+                ps.setObject(p.getKey(), p.getValue());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    if (plan.length() > 0) plan.append('\n');
+                    // One column (e.g. H2's PLAN) is shown as is, MySQL's table as name=value pairs.
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        if (meta.getColumnCount() > 1) {
+                            if (i > 1) plan.append(", ");
+                            plan.append(meta.getColumnLabel(i)).append('=');
+                        }
+                        plan.append(rs.getString(i));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plan.append("EXPLAIN failed: ").append(e.getMessage());
+        } finally {
+            EXPLAINING.set(false);
+        }
+        entry.plan = plan.toString();
+        LOG.info("plan for the " + String.format("%.1f", entry.getMillis()) + " ms statement above ("
+                + entry.getSql() + "):\n  " + entry.plan.replace("\n", "\n  "));
+    }
+
+    private static String format(Entry e) {
+        return String.format("[%s] %9.1f ms %8d rows  %s  params=%s%s",
+                e.getLedger(), e.getMillis(), e.getRows(), e.getSql(), e.getParams(), e.isSlow() ? "  SLOW" : "");
+    }
+
+    private static Logger openLog() {
+        Logger log = Logger.getLogger("com.pluralsight.queries");
+        log.setUseParentHandlers(false);
+        try {
+            Path dir = DbConfig.getCacheDir();
+            Files.createDirectories(dir);
+            FileHandler file = new FileHandler(dir.resolve("query-profile-%g.log").toString(),
+                    LOG_FILE_BYTES, LOG_FILES, true);
+            file.setFormatter(new Formatter() {
+                @Override
+                public String format(LogRecord r) {
+                    return r.getInstant() + " " + r.getMessage() + System.lineSeparator();
+                }
+            });
+            log.addHandler(file);
+            System.out.println("Query profiler on; log: " + dir.resolve("query-profile-0.log"));
+        } catch (IOException e) {
+            System.out.println("Query profiler log not available: " + e.getMessage());
+            log.setLevel(Level.OFF);
+        }
+        return log;
+    }
+}
@@ -0,0 +1,560 @@
+package com.pluralsight;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reconciles a bank statement export against the ledger.
+ *
+ * <ol>
+ *   <li>A quick scan of the statement finds its date range; the ledger rows for that
+ *       range (widened by the tolerance) are read with one range query and indexed
+ *       in a hash table on (day, amount in cents).</li>
+ *   <li>The statement is streamed and each line probes its own day for an unmatched
+ *       ledger row with exactly the same amount (a hash join). Matches are written
+ *       out right away. Lines without one then probe up to {@code toleranceDays}
+ *       either side, where the most similar vendor wins; a pair whose vendors don't
+ *       look alike at all is reported as suspicious.</li>
+ *   <li>Lines left over get a second, fuzzy pass: a ledger row within the same days,
+ *       with the same sign and a similar vendor (character trigrams), is paired as
+ *       suspicious, e.g. a tip added at the bank.</li>
+ * </ol>
+ *
+ * Memory holds the ledger side of the range plus the statement lines that found no
+ * exact match; matched statement lines are never kept.
+ *
+ * Statement files are CSV (or pipe separated). With a header row the columns are
+ * found by name (date, description/payee/memo, amount or debit/credit); without
+ * one the first column is the date, the last the amount and the ones between the
+ * description.
+ */
+public class Reconciliation {
+
+    public enum Status { MATCHED, SUSPICIOUS, UNMATCHED_STATEMENT, UNMATCHED_LEDGER }
+
+    // Fuzzy-pass pairs need at least this much vendor similarity (0..1).
+    private static final double FUZZY_VENDOR_SIMILARITY = 0.45;
+    // A match on another day with a vendor this different is flagged as suspicious.
+    private static final double SHIFTED_DAY_MIN_SIMILARITY = 0.2;
+
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("M/d/yyyy"),
+            DateTimeFormatter.ofPattern("M/d/yy"),
+            DateTimeFormatter.ofPattern("yyyy/M/d"),
+    };
+
+    /** One line of the statement file. */
+    public static class StatementLine {
+        public final long lineNumber;
+        public final LocalDate date;
+        public final String description;
+        public final long cents;
+
+        StatementLine(long lineNumber, LocalDate date, String description, long cents) {
+            this.lineNumber = lineNumber;
+            this.date = date;
+            this.description = description;
+            this.cents = cents;
+        }
+    }
+
+    /** One output row: a statement line, a ledger row, or both. */
+    public static class Match {
+        public final Status status;
+        public final StatementLine line;     // null for UNMATCHED_LEDGER
+        public final Transaction ledger;     // null for UNMATCHED_STATEMENT
+        public final String note;
+
+        Match(Status status, StatementLine line, Transaction ledger, String note) {
+            this.status = status;
+            this.line = line;
+            this.ledger = ledger;
+            this.note = note;
+        }
+    }
+
+    /** Counts per status plus lines that couldn't be read. */
+    public static class Summary {
+        private final long[] counts = new long[Status.values().length];
+        private long statementLines;
+        private long skippedLines;
+        private long ledgerRows;
+        private LocalDate from;
+        private LocalDate to;
+
+        void count(Status status) {
+            counts[status.ordinal()]++;
+        }
+
+        public long getCount(Status status) { return counts[status.ordinal()]; }
+        public long getStatementLines() { return statementLines; }
+        public long getSkippedLines() { return skippedLines; }
+        public long getLedgerRows() { return ledgerRows; }
+        public LocalDate getFrom() { return from; }
+        public LocalDate getTo() { return to; }
+
+        @Override
+        public String toString() {
+            return String.format("%d statement lines (%s .. %s) against %d ledger rows: %d matched, "
+                            + "%d suspicious, %d only on the statement, %d only in the ledger, %d unreadable",
+                    statementLines, from, to, ledgerRows, getCount(Status.MATCHED), getCount(Status.SUSPICIOUS),
+                    getCount(Status.UNMATCHED_STATEMENT), getCount(Status.UNMATCHED_LEDGER), skippedLines);
+        }
+    }
+
+    private Reconciliation() {
+        // no instances
+    }
+
+    /** Reconciles and writes every {@link Match} to a CSV file. */
+    public static Summary toCsv(Path statement, int toleranceDays, Path out) throws IOException, SQLException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write("status,statement_line,statement_date,statement_description,statement_amount,"
+                    + "ledger_id,ledger_date,ledger_vendor,ledger_amount,note");
+            w.newLine();
+            StringBuilder sb = new StringBuilder(256);
+            return reconcile(statement, toleranceDays, m -> {
+                sb.setLength(0);
+                sb.append(m.status).append(',');
+                if (m.line != null) {
+                    sb.append(m.line.lineNumber).append(',');
+                    ReportPrinter.appendDate(sb, m.line.date);
+                    sb.append(',');
+                    ReportPrinter.appendCsv(sb, m.line.description);
+                    sb.append(',');
+                    ReportPrinter.appendAmount(sb, m.line.cents, 0);
+                } else {
+                    sb.append(",,,");
+                }
+                sb.append(',');
+                if (m.ledger != null) {
+                    sb.append(m.ledger.getId()).append(',');
+                    ReportPrinter.appendDate(sb, m.ledger.getDate());
+                    sb.append(',');
+                    ReportPrinter.appendCsv(sb, m.ledger.getVendor());
+                    sb.append(',');
+                    ReportPrinter.appendAmount(sb, Math.round(m.ledger.getAmount() * 100), 0);
+                } else {
+                    sb.append(",,,");
+                }
+                sb.append(',');
+                ReportPrinter.appendCsv(sb, m.note);
+                try {
+                    w.append(sb);
+                    w.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reconciles {@code statement} against the current ledger. Matches go to
+     * {@code out} as they are found; ledger rows nobody claimed come last.
+     */
+    public static Summary reconcile(Path statement, int toleranceDays, Consumer<Match> out)
+            throws IOException, SQLException {
+        if (toleranceDays < 0) throw new IllegalArgumentException("Tolerance must be 0 days or more");
+        Summary summary = new Summary();
+
+        // Pass 0: the statement's date range.
+        long[] range = {Long.MAX_VALUE, Long.MIN_VALUE};
+        readStatement(statement, null, line -> {
+            range[0] = Math.min(range[0], line.date.toEpochDay());
+            range[1] = Math.max(range[1], line.date.toEpochDay());
+        });
+        if (range[0] > range[1]) {
+            throw new IllegalArgumentException("No readable lines in " + statement);
+        }
+        summary.from = LocalDate.ofEpochDay(range[0]);
+        summary.to = LocalDate.ofEpochDay(range[1]);
+
+        LedgerSide ledger = LedgerSide.load(summary.from.minusDays(toleranceDays), summary.to.plusDays(toleranceDays));
+        summary.ledgerRows = ledger.size();
+
+        // Pass 1: same day, same amount. Most lines end here and are never kept.
+        List<StatementLine> leftover = new ArrayList<>();
+        readStatement(statement, summary, line -> {
+            summary.statementLines++;
+            int i = ledger.claimSameDay(line.date.toEpochDay(), line.cents, line.description);
+            if (i >= 0) emit(out, summary, new Match(Status.MATCHED, line, ledger.get(i), ""));
+            else leftover.add(line);
+        });
+
+        // Pass 1b: same amount a few days off (only now, so no same-day pair gets taken apart).
+        List<StatementLine> unmatched = new ArrayList<>();
+        for (StatementLine line : leftover) {
+            QueryCancellation.checkpoint();
+            int[] grams = trigrams(line.description);
+            int i = ledger.claimShifted(line.date.toEpochDay(), line.cents, grams, toleranceDays);
+            if (i < 0) {
+                unmatched.add(line);
+                continue;
+            }
+            Transaction t = ledger.get(i);
+            String note = "posted " + Math.abs(line.date.toEpochDay() - t.getDate().toEpochDay()) + " day(s) apart";
+            if (dice(grams, ledger.ledgerTrigrams(i)) >= SHIFTED_DAY_MIN_SIMILARITY) {
+                emit(out, summary, new Match(Status.MATCHED, line, t, note));
+            } else {
+                emit(out, summary, new Match(Status.SUSPICIOUS, line, t, note + ", vendor differs"));
+            }
+        }
+
+        // Pass 2: similar vendor on a nearby day, amount differs.
+        ledger.indexUnclaimedByDay();
+        for (StatementLine line : unmatched) {
+            QueryCancellation.checkpoint();
+            int i = ledger.claimFuzzy(line, toleranceDays);
+            if (i < 0) {
+                emit(out, summary, new Match(Status.UNMATCHED_STATEMENT, line, null, "no ledger row"));
+            } else {
+                Transaction t = ledger.get(i);
+                long diff = line.cents - Math.round(t.getAmount() * 100);
+                emit(out, summary, new Match(Status.SUSPICIOUS, line, t,
+                        "same vendor, amount differs by " + LedgerRow.formatMoney(diff)));
+            }
+        }
+
+        for (int i = ledger.nextUnclaimed(0); i >= 0; i = ledger.nextUnclaimed(i + 1)) {
+            emit(out, summary, new Match(Status.UNMATCHED_LEDGER, null, ledger.get(i), "not on the statement"));
+        }
+        return summary;
+    }
+
+    private static void emit(Consumer<Match> out, Summary summary, Match match) {
+        summary.count(match.status);
+        out.accept(match);
+    }
+
+    /**
+     * The ledger rows of the date range, with a (day, cents) hash index whose
+     * buckets are chained through an int array instead of per-key lists.
+     */
+    private static class LedgerSide {
+        private final List<Transaction> rows = new ArrayList<>();
+        private final Map<Long, Integer> firstByKey = new HashMap<>();
+        private int[] nextSameKey = new int[1024];
+        private final BitSet claimed = new BitSet();
+        private final Map<Long, List<Integer>> unclaimedByDay = new HashMap<>();
+        private final Map<Integer, int[]> trigramCache = new HashMap<>();
+
+        static LedgerSide load(LocalDate from, LocalDate to) throws SQLException {
+            LedgerSide side = new LedgerSide();
+            TransactionManager.streamTransactions(new TransactionQuery(from, to, null, null, null, null), side::add);
+            return side;
+        }
+
+        private void add(Transaction t) {
+            int i = rows.size();
+            rows.add(t);
+            if (i == nextSameKey.length) nextSameKey = Arrays.copyOf(nextSameKey, i * 2);
+            Integer previous = firstByKey.put(key(t.getDate().toEpochDay(), Math.round(t.getAmount() * 100)), i);
+            nextSameKey[i] = previous == null ? -1 : previous;
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        Transaction get(int i) {
+            return rows.get(i);
+        }
+
+        int nextUnclaimed(int from) {
+            int i = claimed.nextClearBit(from);
+            return i < rows.size() ? i : -1;
+        }
+
+        /** Claims the unclaimed row with this day and amount (the most similar vendor on ties); -1 if none. */
+        int claimSameDay(long day, long cents, String description) {
+            Integer first = firstByKey.get(key(day, cents));
+            if (first == null) return -1;
+            int best = -1;
+            int[] grams = null;
+            double bestScore = -1;
+            for (int i = first; i >= 0; i = nextSameKey[i]) {
+                if (claimed.get(i)) continue;
+                if (best < 0 && !hasUnclaimedAfter(i)) {
+                    best = i;   // the usual case: one candidate, no vendor comparison needed
+                    break;
+                }
+                if (grams == null) grams = trigrams(description);
+                double score = dice(grams, ledgerTrigrams(i));
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            if (best >= 0) claimed.set(best);
+            return best;
+        }
+
+        /**
+         * Claims an unclaimed row with this amount 1..toleranceDays away: the most
+         * similar vendor wins, the nearer day on ties; -1 if none.
+         */
+        int claimShifted(long day, long cents, int[] grams, int toleranceDays) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int offset = 1; offset <= toleranceDays; offset++) {
+                for (long d : new long[]{day - offset, day + offset}) {
+                    Integer first = firstByKey.get(key(d, cents));
+                    for (int i = first == null ? -1 : first; i >= 0; i = nextSameKey[i]) {
+                        if (claimed.get(i)) continue;
+                        double score = dice(grams, ledgerTrigrams(i)) - offset * 1e-3;
+                        if (score > bestScore) {
+                            bestScore = score;
+                            best = i;
+                        }
+                    }
+                }
+            }
+            if (best >= 0) claimed.set(best);
+            return best;
+        }
+
+        private boolean hasUnclaimedAfter(int i) {
+            for (int j = nextSameKey[i]; j >= 0; j = nextSameKey[j]) {
+                if (!claimed.get(j)) return true;
+            }
+            return false;
+        }
+
+        void indexUnclaimedByDay() {
+            for (int i = nextUnclaimed(0); i >= 0; i = nextUnclaimed(i + 1)) {
+                unclaimedByDay.computeIfAbsent(rows.get(i).getDate().toEpochDay(), d -> new ArrayList<>()).add(i);
+            }
+        }
+
+        /** Claims the unclaimed row with the same sign and the most similar vendor nearby; -1 if none. */
+        int claimFuzzy(StatementLine line, int toleranceDays) {
+            long day = line.date.toEpochDay();
+            int[] wanted = trigrams(line.description);
+            int best = -1;
+            double bestScore = FUZZY_VENDOR_SIMILARITY;
+            for (long d = day - toleranceDays; d <= day + toleranceDays; d++) {
+                List<Integer> candidates = unclaimedByDay.get(d);
+                if (candidates == null) continue;
+                for (int i : candidates) {
+                    if (claimed.get(i)) continue;
+                    if ((rows.get(i).getAmount() < 0) != (line.cents < 0)) continue;
+                    double score = dice(wanted, ledgerTrigrams(i));
+                    if (score >= bestScore) {
+                        bestScore = score;
+                        best = i;
+                    }
+                }
+            }
+            if (best >= 0) claimed.set(best);
+            return best;
+        }
+
+        int[] ledgerTrigrams(int i) {
+            return trigramCache.computeIfAbsent(i, k -> trigrams(rows.get(k).getVendor()));
+        }
+
+        // Day in the high bits, cents (two's complement, well under 2^40) in the low ones.
+        private static long key(long epochDay, long cents) {
+            return (epochDay << 40) ^ (cents & 0xFF_FFFF_FFFFL);
+        }
+    }
+
+    /**
+     * Sorted, distinct character trigrams of a vendor name after dropping digits and
+     * punctuation ("AMZN Mktp US*2K3" and "Amazon #12" both keep only the letters).
+     */
+    static int[] trigrams(String s) {
+        StringBuilder norm = new StringBuilder(s.length() + 2).append(' ');
+        for (int i = 0; i < s.length(); i++) {
+            char c = Character.toLowerCase(s.charAt(i));
+            if (Character.isLetter(c)) norm.append(c);
+            else if (norm.charAt(norm.length() - 1) != ' ') norm.append(' ');
+        }
+        if (norm.charAt(norm.length() - 1) != ' ') norm.append(' ');
+        if (norm.length() < 3) return new int[0];
+
+        int[] grams = new int[norm.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (norm.charAt(i) << 16) ^ (norm.charAt(i + 1) << 8) ^ norm.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int n = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) grams[n++] = grams[i];
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    /** Dice coefficient of two sorted trigram sets: 1 = same letters, 0 = nothing in common. */
+    static double dice(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) return 0;
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * common / (a.length + b.length);
+    }
+
+    // Streams the statement; unreadable lines are counted (when summary != null) and reported.
+    private static void readStatement(Path file, Summary summary, Consumer<StatementLine> consumer) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            long lineNumber = 0;
+            char delimiter = 0;
+            int[] columns = null;   // date, description, amount, debit, credit (-1 = absent)
+
+            while ((text = in.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) continue;
+                if (delimiter == 0) {
+                    delimiter = text.indexOf('|') >= 0 && text.indexOf(',') < 0 ? '|' : ',';
+                }
+                List<String> cells = split(text, delimiter);
+                if (columns == null) {
+                    columns = headerColumns(cells);
+                    if (columns != null) continue;
+                    columns = new int[]{-1, -1, -1, -1, -1};   // positional
+                }
+
+                StatementLine line = parseLine(lineNumber, cells, columns);
+                if (line != null) {
+                    consumer.accept(line);
+                } else if (summary != null) {
+                    if (summary.skippedLines++ < 5) {
+                        System.out.println("Skipping unreadable statement line " + lineNumber + ": " + text);
+                    }
+                }
+            }
+        }
+    }
+
+    // Column positions from a header row, or null if the row isn't a header.
+    private static int[] headerColumns(List<String> cells) {
+        int[] cols = {-1, -1, -1, -1, -1};
+        for (int i = 0; i < cells.size(); i++) {
+            String name = cells.get(i).trim().toLowerCase(Locale.ROOT);
+            if (cols[0] < 0 && name.contains("date")) cols[0] = i;
+            else if (cols[1] < 0 && (name.contains("description") || name.contains("payee")
+                    || name.contains("memo") || name.contains("vendor") || name.equals("name"))) cols[1] = i;
+            // Before "amount", so "Debit Amount" / "Credit Amount" are read as split columns.
+            else if (cols[3] < 0 && (name.contains("debit") || name.contains("withdrawal"))) cols[3] = i;
+            else if (cols[4] < 0 && (name.contains("credit") || name.contains("deposit"))) cols[4] = i;
+            else if (cols[2] < 0 && name.contains("amount")) cols[2] = i;
+        }
+        // A single amount column is only used when there are no split ones.
+        if (cols[3] >= 0 || cols[4] >= 0) cols[2] = -1;
+        boolean hasAmount = cols[2] >= 0 || cols[3] >= 0 || cols[4] >= 0;
+        return cols[0] >= 0 && hasAmount ? cols : null;
+    }
+
+    private static StatementLine parseLine(long lineNumber, List<String> cells, int[] cols) {
+        try {
+            if (cols[0] < 0) {
+                // Positional: date, description..., amount
+                if (cells.size() < 3) return null;
+                String description = String.join(" ", cells.subList(1, cells.size() - 1)).trim();
+                return new StatementLine(lineNumber, parseDate(cells.get(0)), description,
+                        parseCents(cells.get(cells.size() - 1)));
+            }
+            LocalDate date = parseDate(cells.get(cols[0]));
+            String description = cols[1] >= 0 ? cells.get(cols[1]).trim() : "";
+            long cents;
+            if (cols[2] >= 0) {
+                cents = parseCents(cells.get(cols[2]));
+            } else {
+                // Separate columns: money out (debit) is negative, money in (credit) positive.
+                String debit = cols[3] >= 0 ? cells.get(cols[3]) : "";
+                String credit = cols[4] >= 0 ? cells.get(cols[4]) : "";
+                cents = (credit.isBlank() ? 0 : Math.abs(parseCents(credit)))
+                        - (debit.isBlank() ? 0 : Math.abs(parseCents(debit)));
+            }
+            return new StatementLine(lineNumber, date, description, cents);
+        } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String s) {
+        String text = s.trim();
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(text, format);
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        throw new DateTimeParseException("Unrecognised date", text, 0);
+    }
+
+    // "$1,234.56", "-12.5", "(12.50)" (negative) -> cents
+    private static long parseCents(String s) {
+        String text = s.trim().replace("$", "").replace(",", "").replace(" ", "");
+        boolean negative = text.startsWith("(") && text.endsWith(")");
+        if (negative) text = text.substring(1, text.length() - 1);
+        long cents = new BigDecimal(text).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        return negative ? -cents : cents;
+    }
+
+    // CSV split with double-quoted fields ("" inside quotes is a quote).
+    private static List<String> split(String line, char delimiter) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
@@ -0,0 +1,68 @@
+package com.pluralsight;
+
+import java.time.LocalDate;
+
+/**
+ * The standard report periods, as inclusive date ranges relative to "today".
+ */
+public enum ReportPeriod {
+    MONTH_TO_DATE("MONTH TO DATE"),
+    PREVIOUS_MONTH("PREVIOUS MONTH"),
+    YEAR_TO_DATE("YEAR TO DATE"),
+    PREVIOUS_YEAR("PREVIOUS YEAR"),
+    ALL("ALL TRANSACTIONS");
+
+    private final String title;
+
+    ReportPeriod(String title) {
+        this.title = title;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /** First day of the period (null = no lower bound). */
+    public LocalDate start(LocalDate today) {
+        return switch (this) {
+            case MONTH_TO_DATE -> today.withDayOfMonth(1);
+            case PREVIOUS_MONTH -> today.withDayOfMonth(1).minusMonths(1);
+            case YEAR_TO_DATE -> today.withDayOfYear(1);
+            case PREVIOUS_YEAR -> today.withDayOfYear(1).minusYears(1);
+            case ALL -> null;
+        };
+    }
+
+    /**
+     * Last day of the period (null = no upper bound).
+     * The "to date" periods end at the end of the month/year, same as the original
+     * year/month match, so future-dated entries still show up.
+     */
+    public LocalDate end(LocalDate today) {
+        return switch (this) {
+            case MONTH_TO_DATE -> today.withDayOfMonth(today.lengthOfMonth());
+            case PREVIOUS_MONTH -> today.withDayOfMonth(1).minusDays(1);
+            case YEAR_TO_DATE -> today.withDayOfYear(today.lengthOfYear());
+            case PREVIOUS_YEAR -> today.withDayOfYear(1).minusDays(1);
+            case ALL -> null;
+        };
+    }
+
+    /** Query for this period, optionally narrowed to vendors containing {@code vendor}. */
+    public TransactionQuery toQuery(LocalDate today, String vendor) {
+        return new TransactionQuery(start(today), end(today), null, null, null, vendor);
+    }
+
+    /** Accepts short names used on the command line: mtd, prev-month, ytd, prev-year, all. */
+    public static ReportPeriod parse(String s) {
+        return switch (s.trim().toLowerCase()) {
+            case "mtd", "month-to-date" -> MONTH_TO_DATE;
+            case "prev-month", "previous-month" -> PREVIOUS_MONTH;
+            case "ytd", "year-to-date" -> YEAR_TO_DATE;
+            case "prev-year", "previous-year" -> PREVIOUS_YEAR;
+            case "all" -> ALL;
+            default -> throw new IllegalArgumentException("Unknown period: " + s
+                    + " (use mtd, prev-month, ytd, prev-year or all)");
+        };
+    }
+}
@@ -0,0 +1,276 @@
+package com.pluralsight;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Scanner;
+
+/**
+ * Streaming renderer for transaction reports.
+ *
+ * Rows are formatted by hand into one reused StringBuilder and written through a
+ * single buffered writer, and the total is added up in the same pass.
+ * Rows are printed in the order they are given (the queries already sort them).
+ *
+ * Usage: {@code begin(title)}, then {@code row(t)} for each transaction, then {@code close()}.
+ */
+public class ReportPrinter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String RULE =
+            "--------------------------------------------------------------------------";
+    private static final String HEADER =
+            "Date       | Time     | Description          | Vendor          |     Amount";
+
+    private final Writer out;
+    private final boolean color;
+    private final boolean csv;
+    private final boolean closeWriter;
+    private final Scanner pager;     // null = no paging
+
+    private final StringBuilder line = new StringBuilder(128);
+    private long totalCents = 0;
+    private long rows = 0;
+    private boolean quit = false;
+
+    private ReportPrinter(Writer out, boolean color, boolean csv, boolean closeWriter, Scanner pager) {
+        this.out = out;
+        this.color = color;
+        this.csv = csv;
+        this.closeWriter = closeWriter;
+        this.pager = pager;
+    }
+
+    /** Writes straight to the console, bypassing System.out's per-line flushing. */
+    public static ReportPrinter toConsole() {
+        return new ReportPrinter(consoleWriter(), true, false, false, null);
+    }
+
+    /** Console output that asks for Enter between pages (the caller fetches each page, see {@link #nextPage()}). */
+    public static ReportPrinter toConsolePaged(Scanner scanner) {
+        return new ReportPrinter(consoleWriter(), true, false, false, scanner);
+    }
+
+    /** Plain text (no colour codes) written directly to a file. */
+    public static ReportPrinter toFile(Path file) throws IOException {
+        return new ReportPrinter(fileWriter(file), false, false, true, null);
+    }
+
+    /** One CSV line per transaction (date,time,description,vendor,amount), no footer. */
+    public static ReportPrinter toCsvFile(Path file) throws IOException {
+        return new ReportPrinter(fileWriter(file), false, true, true, null);
+    }
+
+    private static Writer fileWriter(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    private static Writer consoleWriter() {
+        // Anything already printed via System.out must come out before our rows.
+        System.out.flush();
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public void begin(String title) {
+        if (csv) {
+            write("date,time,description,vendor,amount");
+            return;
+        }
+        write(colored(Reports.BLUE, "\n========== " + title + " =========="));
+        write(colored(Reports.YELLOW, HEADER));
+        write(colored(Reports.YELLOW, RULE));
+    }
+
+    /**
+     * Adds one row. Once the user stops paging, rows are still added to the
+     * total but no longer printed.
+     */
+    public void row(Transaction t) {
+        long cents = Math.round(t.getAmount() * 100);
+        totalCents += cents;
+        rows++;
+        if (quit) return;
+
+        line.setLength(0);
+        if (csv) {
+            appendDate(line, t.getDate());
+            line.append(',');
+            appendTime(line, t.getTime());
+            line.append(',');
+            appendCsv(line, t.getDescription());
+            line.append(',');
+            appendCsv(line, t.getVendor());
+            line.append(',');
+            appendAmount(line, cents, 0);
+            write(line);
+            return;
+        }
+
+        if (color) line.append(cents >= 0 ? Reports.GREEN : Reports.RED);
+        appendDate(line, t.getDate());
+        line.append(" | ");
+        appendTime(line, t.getTime());
+        line.append(" | ");
+        appendPadded(line, t.getDescription(), 20);
+        line.append(" | ");
+        appendPadded(line, t.getVendor(), 15);
+        line.append(" | ");
+        appendAmount(line, cents, 10);
+        if (color) line.append(Reports.RESET);
+        write(line);
+    }
+
+    /** Writes the footer (count + total), flushes, and closes the file if there is one. */
+    @Override
+    public void close() {
+        if (csv) {
+            // CSV stays machine-readable: no footer.
+        } else if (rows == 0) {
+            write(colored(Reports.RED, "No matching transactions found."));
+        } else {
+            write(colored(Reports.YELLOW, RULE));
+            line.setLength(0);
+            line.append(rows).append(rows == 1 ? " transaction" : " transactions").append(", total: ");
+            if (color) line.append(totalCents >= 0 ? Reports.GREEN : Reports.RED);
+            appendAmount(line, totalCents, 0);
+            if (color) line.append(Reports.RESET);
+            write(line);
+        }
+        try {
+            if (closeWriter) out.close();
+            else out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getRowCount() {
+        return rows;
+    }
+
+    public double getTotal() {
+        return totalCents / 100.0;
+    }
+
+    /**
+     * Paged console output: asks whether to show another page. Call it between pages,
+     * with no query open (a streaming result would hold its connection while the user
+     * reads). After "q", rows are still counted but no longer printed.
+     */
+    public boolean nextPage() {
+        if (pager == null || quit) return !quit;
+        write(colored(Reports.YELLOW, "-- " + rows + " rows shown. Enter = next page, q = stop --"));
+        flush();
+        quit = !pager.hasNextLine() || pager.nextLine().trim().equalsIgnoreCase("q");
+        return !quit;
+    }
+
+    private CharSequence colored(String code, String text) {
+        return color ? code + text + Reports.RESET : text;
+    }
+
+    private void write(CharSequence s) {
+        try {
+            out.append(s).append(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- Hand-rolled formatting (String.format per row dominates large reports) ---
+
+    static void appendDate(StringBuilder sb, LocalDate d) {
+        sb.append(d.getYear()).append('-');
+        appendTwoDigits(sb, d.getMonthValue());
+        sb.append('-');
+        appendTwoDigits(sb, d.getDayOfMonth());
+    }
+
+    static void appendTime(StringBuilder sb, LocalTime t) {
+        appendTwoDigits(sb, t.getHour());
+        sb.append(':');
+        appendTwoDigits(sb, t.getMinute());
+        sb.append(':');
+        appendTwoDigits(sb, t.getSecond());
+    }
+
+    /** Left-aligned, padded (or cut) to exactly {@code width} characters. */
+    static void appendPadded(StringBuilder sb, String s, int width) {
+        if (s == null) s = "";
+        if (s.length() >= width) {
+            sb.append(s, 0, width);
+        } else {
+            sb.append(s);
+            for (int i = s.length(); i < width; i++) sb.append(' ');
+        }
+    }
+
+    /** Quotes the field only if it contains a comma, quote or line break. */
+    static void appendCsv(StringBuilder sb, String s) {
+        if (s == null) return;
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char ch = s.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"') sb.append('"');
+            sb.append(ch);
+        }
+        sb.append('"');
+    }
+
+    /** Right-aligned to {@code width} characters, two decimals. */
+    static void appendAmount(StringBuilder sb, long cents, int width) {
+        long abs = Math.abs(cents);
+        long whole = abs / 100;
+        int frac = (int) (abs % 100);
+
+        int len = digits(whole) + 3 + (cents < 0 ? 1 : 0);
+        for (int i = len; i < width; i++) sb.append(' ');
+        if (cents < 0) sb.append('-');
+        sb.append(whole).append('.');
+        appendTwoDigits(sb, frac);
+    }
+
+    private static int digits(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int v) {
+        if (v < 10) sb.append('0');
+        sb.append(v);
+    }
+}
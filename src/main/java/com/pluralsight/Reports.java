@@ -1,12 +1,15 @@
 package com.pluralsight;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.YearMonth;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.Collections;
 
 public class Reports {
 
@@ -16,9 +19,17 @@ public class Reports {
     public static final String BLUE = "\u001B[34m";
     public static final String YELLOW = "\u001B[33m";
 
+    private static final int PAGE_SIZE = 40;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // How transaction reports are shown: "screen", "paged" or "file" (see option 9).
+    private static String outputMode = "screen";
+    private static Path outputDir = Path.of("reports");
+    private static Scanner pagerInput;
+
     public static void showReportsMenu(Scanner scanner) {
         boolean viewingReports = true;
-
+        pagerInput = scanner;
 
         while (viewingReports) {
             System.out.println("\n========== REPORTS MENU ==========");
@@ -27,6 +38,18 @@ public class Reports {
             System.out.println("3) Year To Date");
             System.out.println("4) Previous Year");
             System.out.println("5) Search by Vendor");
+            System.out.println("6) Top Spending Vendors");
+            System.out.println("7) Heavy Hitter Vendors (approximate)");
+            System.out.println("8) Custom Search");
+            System.out.println("9) Output Mode (currently: " + outputMode + ")");
+            System.out.println("10) Yearly Totals");
+            System.out.println("11) Archive a Closed Year");
+            System.out.println("12) Dashboard (all periods + year over year)");
+            System.out.println("13) Reconcile a Bank Statement");
+            if (Ledgers.ids().size() > 1) {
+                System.out.println("14) All Ledgers: Period Totals");
+                System.out.println("15) All Ledgers: Top Spending Vendors");
+            }
             System.out.println("0) Back");
             System.out.print("Choose an option: ");
 
@@ -48,6 +71,36 @@ public class Reports {
                 case "5":
                     searchByVendor(scanner);
                     break;
+                case "6":
+                    showTopVendors(scanner);
+                    break;
+                case "7":
+                    showHeavyHitters(scanner);
+                    break;
+                case "8":
+                    customSearch(scanner);
+                    break;
+                case "9":
+                    chooseOutputMode(scanner);
+                    break;
+                case "10":
+                    showYearlyTotals();
+                    break;
+                case "11":
+                    archiveYear(scanner);
+                    break;
+                case "12":
+                    showDashboard();
+                    break;
+                case "13":
+                    reconcileStatement(scanner);
+                    break;
+                case "14":
+                    showAllLedgerTotals(scanner);
+                    break;
+                case "15":
+                    showAllLedgerTopVendors(scanner);
+                    break;
                 case "0":
                     viewingReports = false;
                     break;
@@ -59,69 +112,236 @@ public class Reports {
 
 
     //this section is for adding methods that will display different report types
+    // The date range of each period goes straight into the SQL query (see ReportPeriod).
     private static void showMonthToDate() {
-        List<Transaction> all = TransactionManager.loadTransactions();
-        LocalDate now = LocalDate.now();
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : all) {
-            if (t.getDate().getYear() == now.getYear()
-                    && t.getDate().getMonth() == now.getMonth()) {
-                filtered.add(t);
-            }
-        }
-        displayResults(filtered, "MONTH TO DATE");
+        showPeriod(ReportPeriod.MONTH_TO_DATE);
     }
 
     private static void showPreviousMonth() {
-        List<Transaction> all = TransactionManager.loadTransactions();
-        LocalDate now = LocalDate.now();
-        YearMonth lastMonth = YearMonth.from(now).minusMonths(1);
-
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : all) {
-            if (YearMonth.from(t.getDate()).equals(lastMonth)) {
-                filtered.add(t);
-            }
-        }
-        displayResults(filtered, "PREVIOUS MONTH");
+        showPeriod(ReportPeriod.PREVIOUS_MONTH);
     }
 
     private static void showYearToDate() {
-        List<Transaction> all = TransactionManager.loadTransactions();
-        int currentYear = LocalDate.now().getYear();
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : all) {
-            if (t.getDate().getYear() == currentYear) {
-                filtered.add(t);
-            }
-        }
-        displayResults(filtered, "YEAR TO DATE");
+        showPeriod(ReportPeriod.YEAR_TO_DATE);
     }
 
     private static void showPreviousYear() {
-        List<Transaction> all = TransactionManager.loadTransactions();
-        int lastYear = LocalDate.now().getYear() - 1;
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : all) {
-            if (t.getDate().getYear() == lastYear) {
-                filtered.add(t);
-            }
-        }
-        displayResults(filtered, "PREVIOUS YEAR");
+        showPeriod(ReportPeriod.PREVIOUS_YEAR);
+    }
+
+    private static void showPeriod(ReportPeriod period) {
+        TransactionQuery query = period.toQuery(LocalDate.now(), null);
+        displayResults(period.getTitle(), query);
     }
 
     private static void searchByVendor(Scanner scanner) {
         System.out.print("Enter vendor name to search: ");
         String vendor = scanner.nextLine().trim().toLowerCase();
-        List<Transaction> all = TransactionManager.loadTransactions();
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : all) {
-            if (t.getVendor().toLowerCase().contains(vendor)) {
-                filtered.add(t);
-            }
+        TransactionQuery query = ReportPeriod.ALL.toQuery(LocalDate.now(), vendor);
+        displayResults("VENDOR SEARCH: " + vendor, query);
+
+    }
+
+    // Exact ranking; the database groups by vendor and we keep only the top N.
+    private static void showTopVendors(Scanner scanner) {
+        int n = readCount(scanner);
+        try {
+            List<VendorTotal> top = VendorRanking.topVendors(n, ReportPeriod.ALL.toQuery(LocalDate.now(), null));
+            printVendorTable("TOP " + n + " SPENDING VENDORS", top);
+        } catch (SQLException | UncheckedIOException e) {
+            System.out.println(RED + "Error loading vendor totals: " + e.getMessage() + RESET);
+        }
+    }
+
+    private static void printVendorTable(String title, List<VendorTotal> top) {
+        System.out.println(BLUE + "\n========== " + title + " ==========" + RESET);
+        if (top.isEmpty()) {
+            System.out.println(RED + "No payments found." + RESET);
+            return;
+        }
+        System.out.println(YELLOW + "Vendor                    | Payments |        Spent" + RESET);
+        System.out.println(YELLOW + "----------------------------------------------------" + RESET);
+        for (VendorTotal v : top) {
+            System.out.println(v);
         }
-        displayResults(filtered, "VENDOR SEARCH: " + vendor);
+    }
+
+    // Approximate ranking in fixed memory over a single streaming scan of payments.
+    private static void showHeavyHitters(Scanner scanner) {
+        int n = readCount(scanner);
+        HeavyHitters hitters;
+        try {
+            hitters = HeavyHitters.scanPayments(n, ReportPeriod.ALL.toQuery(LocalDate.now(), null));
+        } catch (SQLException e) {
+            System.out.println(RED + "Error streaming transactions: " + e.getMessage() + RESET);
+            return;
+        }
+        List<HeavyHitters.Counter> top = hitters.getTop(n);
 
+        System.out.println(BLUE + "\n========== HEAVY HITTER VENDORS (APPROX.) ==========" + RESET);
+        if (top.isEmpty()) {
+            System.out.println(RED + "No payments found." + RESET);
+            return;
+        }
+        System.out.println(YELLOW + "Vendor                    |   Est. Spent |  +/- Error" + RESET);
+        System.out.println(YELLOW + "-----------------------------------------------------" + RESET);
+        for (HeavyHitters.Counter c : top) {
+            System.out.println(String.format("%-25s | %12.2f | %10.2f", c.vendor, c.spent, c.error));
+        }
+        System.out.printf("Total spent (exact): %.2f%n", hitters.getTotal());
+    }
+
+    // Archived years come from the segment summaries; nothing is decompressed.
+    private static void showYearlyTotals() {
+        List<LedgerArchive.YearSummary> years = LedgerArchive.yearTotals();
+        List<Integer> archived = LedgerArchive.archivedYears();
+
+        System.out.println(BLUE + "\n========== YEARLY TOTALS ==========" + RESET);
+        if (years.isEmpty()) {
+            System.out.println(RED + "No transactions found." + RESET);
+            return;
+        }
+        System.out.println(YELLOW + "Year |   Rows |     Deposits |     Payments |          Net" + RESET);
+        System.out.println(YELLOW + "-----------------------------------------------------------" + RESET);
+        for (LedgerArchive.YearSummary y : years) {
+            System.out.println(String.format("%4d | %6d | %12.2f | %12.2f | %12.2f%s",
+                    y.year, y.rowCount, y.getDeposits(), y.getPayments(), y.getNet(),
+                    archived.contains(y.year) ? "  (archived)" : ""));
+        }
+    }
+
+    private static void archiveYear(Scanner scanner) {
+        System.out.print("Year to archive (must be before " + LocalDate.now().getYear() + "): ");
+        String input = scanner.nextLine().trim();
+        try {
+            int year = Integer.parseInt(input);
+            LedgerArchive.YearSummary summary = LedgerArchive.archiveYear(year);
+            System.out.println(GREEN + "Archived " + summary.rowCount + " transactions from " + year
+                    + " to " + LedgerArchive.segmentFile(year).toAbsolutePath() + RESET);
+        } catch (NumberFormatException e) {
+            System.out.println(RED + "Not a year: " + input + RESET);
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + e.getMessage() + RESET);
+        } catch (IOException | SQLException e) {
+            System.out.println(RED + "Archiving failed, nothing was removed: " + e.getMessage() + RESET);
+        }
+    }
+
+    // One streaming read from the start of last year feeds every period at once.
+    private static void showDashboard() {
+        Dashboard dashboard;
+        try {
+            dashboard = Dashboard.scan(LocalDate.now());
+        } catch (SQLException | UncheckedIOException e) {
+            System.out.println(RED + "Error streaming transactions: " + e.getMessage() + RESET);
+            return;
+        }
+
+        System.out.println(BLUE + "\n========== DASHBOARD ==========" + RESET);
+        System.out.println(YELLOW + "Period               |     Rows |     Deposits |     Payments |          Net" + RESET);
+        System.out.println(YELLOW + "----------------------------------------------------------------------------" + RESET);
+        for (Dashboard.Line line : dashboard.getPeriods()) {
+            System.out.println(String.format("%-20s | %s", line.label, line.total));
+        }
+
+        System.out.println(YELLOW + "\nYear over year                 |   Net (now) | Net (last yr) |      Change" + RESET);
+        System.out.println(YELLOW + "----------------------------------------------------------------------------" + RESET);
+        for (Dashboard.Comparison c : dashboard.getComparisons()) {
+            Double pct = c.getNetChangePercent();
+            System.out.println(String.format("%-30s | %11.2f | %13.2f | %+11.2f %s", c.label,
+                    c.current.total.getNet(), c.previous.total.getNet(), c.getNetChangeCents() / 100.0,
+                    pct == null ? "" : String.format("(%+.1f%%)", pct)));
+        }
+        System.out.println(dashboard.getRowsScanned() + " rows read once (" + dashboard.getScanStart()
+                + " .. " + dashboard.getScanEnd() + ")");
+    }
+
+    // Matches go to a CSV in the report folder; the screen just gets the counts.
+    private static void reconcileStatement(Scanner scanner) {
+        System.out.print("Bank statement file (CSV): ");
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) return;
+        Path statement = Path.of(input);
+        System.out.print("Days a posting may be off (blank = 3): ");
+        String days = scanner.nextLine().trim();
+
+        Path out = outputDir.resolve("reconcile-" + LocalDateTime.now().format(FILE_STAMP) + ".csv");
+        try {
+            int tolerance = days.isEmpty() ? 3 : Integer.parseInt(days);
+            Reconciliation.Summary summary = Reconciliation.toCsv(statement, tolerance, out);
+            System.out.println(BLUE + "\n========== RECONCILIATION ==========" + RESET);
+            System.out.println(GREEN + "Matched:               " + summary.getCount(Reconciliation.Status.MATCHED) + RESET);
+            System.out.println(YELLOW + "Suspicious:            " + summary.getCount(Reconciliation.Status.SUSPICIOUS) + RESET);
+            System.out.println(RED + "Only on the statement: " + summary.getCount(Reconciliation.Status.UNMATCHED_STATEMENT) + RESET);
+            System.out.println(RED + "Only in the ledger:    " + summary.getCount(Reconciliation.Status.UNMATCHED_LEDGER) + RESET);
+            System.out.println(summary.getStatementLines() + " statement lines (" + summary.getFrom() + " .. "
+                    + summary.getTo() + "), " + summary.getSkippedLines() + " unreadable");
+            System.out.println(GREEN + "Details: " + out.toAbsolutePath() + RESET);
+        } catch (NumberFormatException e) {
+            System.out.println(RED + "Not a number of days: " + days + RESET);
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + e.getMessage() + RESET);
+        } catch (IOException | SQLException | UncheckedIOException e) {
+            System.out.println(RED + "Reconciliation failed: " + e.getMessage() + RESET);
+        }
+    }
+
+    // Same query on every ledger in parallel; the per-ledger totals are added up here.
+    private static void showAllLedgerTotals(Scanner scanner) {
+        ReportPeriod period = readPeriod(scanner);
+        Map<String, PeriodTotal> perLedger;
+        try {
+            perLedger = LedgerFanOut.periodTotals(period.toQuery(LocalDate.now(), null));
+        } catch (SQLException e) {
+            System.out.println(RED + e.getMessage() + RESET);
+            return;
+        }
+
+        System.out.println(BLUE + "\n========== ALL LEDGERS: " + period.getTitle() + " ==========" + RESET);
+        System.out.println(YELLOW + "Ledger          |     Rows |     Deposits |     Payments |          Net" + RESET);
+        System.out.println(YELLOW + "-----------------------------------------------------------------------" + RESET);
+        for (Map.Entry<String, PeriodTotal> e : perLedger.entrySet()) {
+            System.out.println(String.format("%-15s | %s", e.getKey(), e.getValue()));
+        }
+        System.out.println(YELLOW + "-----------------------------------------------------------------------" + RESET);
+        System.out.println(String.format("%-15s | %s", "ALL", LedgerFanOut.combine(perLedger)));
+    }
+
+    private static void showAllLedgerTopVendors(Scanner scanner) {
+        int n = readCount(scanner);
+        try {
+            List<VendorTotal> top = LedgerFanOut.topVendors(n, ReportPeriod.ALL.toQuery(LocalDate.now(), null));
+            printVendorTable("ALL LEDGERS: TOP " + n + " SPENDING VENDORS", top);
+        } catch (SQLException e) {
+            System.out.println(RED + e.getMessage() + RESET);
+        }
+    }
+
+    private static ReportPeriod readPeriod(Scanner scanner) {
+        System.out.print("Period (1 MTD, 2 Prev Month, 3 YTD, 4 Prev Year, blank = all time): ");
+        return switch (scanner.nextLine().trim()) {
+            case "1" -> ReportPeriod.MONTH_TO_DATE;
+            case "2" -> ReportPeriod.PREVIOUS_MONTH;
+            case "3" -> ReportPeriod.YEAR_TO_DATE;
+            case "4" -> ReportPeriod.PREVIOUS_YEAR;
+            default -> ReportPeriod.ALL;
+        };
+    }
+
+    private static int readCount(Scanner scanner) {
+        System.out.print("How many vendors? (default 10, at most " + HeavyHitters.MAX_TOP + "): ");
+        String input = scanner.nextLine().trim();
+        try {
+            int n = input.isEmpty() ? 10 : Math.max(1, Integer.parseInt(input));
+            if (n > HeavyHitters.MAX_TOP) {
+                System.out.println("Showing the top " + HeavyHitters.MAX_TOP + ".");
+                n = HeavyHitters.MAX_TOP;
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            System.out.println("Not a number, showing 10.");
+            return 10;
+        }
     }
 
 
@@ -131,73 +351,101 @@ public class Reports {
     private static void customSearch(Scanner scanner) {
         System.out.println("\n--- Custom Search ---");
         System.out.print("Start Date (YYYY-MM-DD or blank): ");
-        String startInput = scanner.nextLine().trim();
+        String startInput = scanner.nextLine();
 
         System.out.print("End Date (YYYY-MM-DD or blank): ");
-        String endInput = scanner.nextLine().trim();
+        String endInput = scanner.nextLine();
 
         System.out.print("Description (or blank): ");
-        String descInput = scanner.nextLine().trim().toLowerCase();
+        String descInput = scanner.nextLine();
 
         System.out.print("Vendor (or blank): ");
-        String vendorInput = scanner.nextLine().trim().toLowerCase();
+        String vendorInput = scanner.nextLine();
 
-        System.out.print("Amount (exact match or blank): ");
-        String amountInput = scanner.nextLine().trim();
+        System.out.print("Min Amount (or blank): ");
+        String minInput = scanner.nextLine();
 
-        List<Transaction> all = TransactionManager.loadTransactions();
-        List<Transaction> filtered = new ArrayList<>();
+        System.out.print("Max Amount (or blank): ");
+        String maxInput = scanner.nextLine();
 
-        for (Transaction t : all) {
-            LocalDate date = t.getDate();
-            String description = t.getDescription().toLowerCase();
-            String vendor = t.getVendor().toLowerCase();
-            String amount = Double.toString(t.getAmount());
+        // Parse everything once up front instead of once per row.
+        TransactionQuery query;
+        try {
+            query = TransactionQuery.parse(startInput, endInput, minInput, maxInput, descInput, vendorInput);
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + e.getMessage() + RESET);
+            return;
+        }
 
-            // This is to skip the transactions that don't match the filters
-            if (!startInput.isEmpty() && date.isBefore(LocalDate.parse(startInput))) continue;
-            if (!endInput.isEmpty() && date.isAfter(LocalDate.parse(endInput))) continue;
-            if (!descInput.isEmpty() && !description.contains(descInput)) continue;
-            if (!vendorInput.isEmpty() && !vendor.contains(vendorInput)) continue;
-            if (!amountInput.isEmpty() && !amount.equals(amountInput)) continue;
+        displayResults("CUSTOM SEARCH: " + query, query);
+    }
 
-            // Only if all conditions did pass then add it to the filtered list
-            filtered.add(t);
+    //This section is for displaying results//
 
-            displayResults(filtered, "CUSTOM SEARCH RESULTS");
+    private static void chooseOutputMode(Scanner scanner) {
+        System.out.println("1) Screen (all at once)");
+        System.out.println("2) Paged (" + PAGE_SIZE + " rows at a time)");
+        System.out.println("3) File");
+        System.out.print("Choose an output mode: ");
+
+        switch (scanner.nextLine().trim()) {
+            case "1" -> outputMode = "screen";
+            case "2" -> outputMode = "paged";
+            case "3" -> {
+                System.out.print("Folder for report files (blank = " + outputDir + "): ");
+                String dir = scanner.nextLine().trim();
+                if (!dir.isEmpty()) outputDir = Path.of(dir);
+                outputMode = "file";
+            }
+            default -> System.out.println("Invalid choice, keeping " + outputMode + ".");
         }
     }
 
-    //This section is for displaying results//
-    private static void displayResults (List < Transaction > transactions, String title){
-        System.out.println(BLUE + "\n========== " + title + " ==========" + RESET);
-        if (transactions.isEmpty()) {
-            System.out.println(RED + "No matching transactions found." + RESET);
+    // Rows arrive already sorted newest first, so they are printed as they stream in, in one pass.
+    private static void displayResults(String title, TransactionQuery query) {
+        ReportPrinter printer;
+        boolean paged = false;
+        Path file = null;
+        try {
+            if (outputMode.equals("file")) {
+                String name = title.replaceAll("[^A-Za-z0-9]+", "-").toLowerCase()
+                        + "-" + LocalDateTime.now().format(FILE_STAMP) + ".txt";
+                file = outputDir.resolve(name);
+                printer = ReportPrinter.toFile(file);
+            } else if (outputMode.equals("paged") && pagerInput != null) {
+                printer = ReportPrinter.toConsolePaged(pagerInput);
+                paged = true;
+            } else {
+                printer = ReportPrinter.toConsole();
+            }
+        } catch (IOException e) {
+            System.out.println(RED + "Could not open report file: " + e.getMessage() + RESET);
             return;
         }
-        transactions.sort(Comparator.comparing(Transaction::getDate).reversed());
 
-        System.out.println(YELLOW + "Date       | Time     | Description          | Vendor           | Amount" + RESET);
-        System.out.println(YELLOW + "--------------------------------------------------------------------------" + RESET);
-
-        for (Transaction t : transactions) {
-            String amountColor;
-            if (t.getAmount() >= 0) amountColor = GREEN;
-            else amountColor = RED;
-            System.out.println(
-                    String.format("%s", amountColor) + t + RESET
-            );
+        try (printer) {
+            printer.begin(title);
+            if (paged) {
+                // One query per page, so no connection is held open while waiting for Enter.
+                PageCursor cursor = TransactionManager.streamPage(query, null, PAGE_SIZE, printer::row);
+                while (cursor != null && printer.nextPage()) {
+                    cursor = TransactionManager.streamPage(query, cursor, PAGE_SIZE, printer::row);
+                }
+                // Stopped early: the rest only counts towards the footer's total.
+                if (cursor != null) TransactionManager.streamPage(query, cursor, Integer.MAX_VALUE, printer::row);
+            } else {
+                TransactionManager.streamTransactions(query, printer::row);
+            }
+        } catch (SQLException e) {
+            System.out.println(RED + "Error searching transactions: " + e.getMessage() + RESET);
+            return;
+        } catch (UncheckedIOException e) {
+            System.out.println(RED + "Error writing report: " + e.getCause().getMessage() + RESET);
+            return;
         }
 
-        System.out.println(YELLOW + "--------------------------------------------------------------------------" + RESET);
-        double total = 0.0;
-        for (Transaction transaction : transactions) {
-            double amount = transaction.getAmount();
-            total += amount;
+        if (file != null) {
+            System.out.println(GREEN + "Wrote " + printer.getRowCount() + " rows to " + file.toAbsolutePath() + RESET);
         }
-        System.out.printf("Total: %.2f%n", total);
-        String totalColor = total >= 0 ? GREEN : RED;
-        System.out.printf(YELLOW + "Total: " + totalColor + "%.2f" + RESET + "%n", total);
-
     }
-}
\ No newline at end of file
+}
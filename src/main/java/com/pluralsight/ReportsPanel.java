@@ -2,36 +2,50 @@ package com.pluralsight;
 
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
-import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.text.NumberFormat;
 import java.time.LocalDate;
-import java.time.YearMonth;
+import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 
 /**
  * GUI re-implementation of your Reports menu.
  *
- * Note: Your existing console Reports.java is unchanged; this panel
- * just performs the same filtering logic and shows results in a table.
+ * Period reports are date-range slices of the shared ledger model (two binary
+ * searches, no copy) and follow it live; vendor and custom searches query the DB.
+ * The dashboard summarises every period in one pass over the shared model's rows.
+ *
+ * Searches run off the EDT. Only one runs at a time: starting another report, or
+ * the Cancel button, cancels the running one's query (see {@link QueryCancellation}).
  */
 public class ReportsPanel extends JPanel {
 
     private final ReportTableModel reportModel = new ReportTableModel();
+    private final DashboardTableModel dashboardModel = new DashboardTableModel();
     private final JTable table = new JTable(reportModel);
 
     private final JLabel titleLabel = new JLabel("Pick a report...");
     private final JLabel totalLabel = new JLabel();
+    private final JButton cancelButton = new JButton("Cancel");
+
+    // The search still running, if any.
+    private QueryCancellation runningSearch;
 
     // So the Refresh button can re-run the last report after new transactions are added.
     private Runnable lastReportAction = null;
 
+    // Period reports show a view of the shared model's rows, so they must be
+    // re-sliced whenever that model changes (the old view would be stale).
+    private final LedgerTableModel sharedModel;
+    private boolean liveReport = false;
+
     private final NumberFormat money = NumberFormat.getCurrencyInstance(Locale.US);
 
-    public ReportsPanel(LedgerTableModel ignoredSharedModel) {
+    public ReportsPanel(LedgerTableModel sharedModel) {
+        this.sharedModel = sharedModel;
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
 
@@ -39,12 +53,17 @@ public class ReportsPanel extends JPanel {
 
         table.setFillsViewportHeight(true);
         table.setRowHeight(22);
-        table.getColumnModel().getColumn(4).setCellRenderer(new AmountRenderer());
+        LedgerCellRenderer.install(table);
 
         add(buildTop(), BorderLayout.NORTH);
         add(new JScrollPane(table), BorderLayout.CENTER);
         add(buildBottom(), BorderLayout.SOUTH);
 
+        // Any change to the ledger's rows, including ones the Ledger tab's filter hides.
+        sharedModel.addRowsChangedListener(() -> {
+            if (liveReport && lastReportAction != null) lastReportAction.run();
+        });
+
         // Initial empty state
         setReport("", List.of());
     }
@@ -75,19 +94,33 @@ public class ReportsPanel extends JPanel {
         prevYear.addActionListener(e -> showPreviousYear());
         panel.add(prevYear);
 
+        JButton dashboard = new JButton("Dashboard");
+        dashboard.addActionListener(e -> showDashboard());
+        panel.add(dashboard);
+
         JButton vendor = new JButton("Search Vendor");
         vendor.addActionListener(e -> searchByVendor());
         panel.add(vendor);
 
+        JButton custom = new JButton("Custom Search");
+        custom.addActionListener(e -> customSearch());
+        panel.add(custom);
+
+        cancelButton.setVisible(false);
+        cancelButton.addActionListener(e -> cancelSearch());
+
         JButton refresh = new JButton("Refresh");
         refresh.addActionListener(e -> {
-            if (lastReportAction != null) {
+            if (liveReport) {
+                reloadSharedModel(); // the model listener re-runs the report
+            } else if (lastReportAction != null) {
                 lastReportAction.run();
             } else {
                 setReport("", List.of());
             }
         });
         panel.add(refresh);
+        panel.add(cancelButton);
 
         return panel;
     }
@@ -100,53 +133,57 @@ public class ReportsPanel extends JPanel {
     }
 
     private void showMonthToDate() {
-        lastReportAction = this::showMonthToDate;
-        LocalDate now = LocalDate.now();
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : TransactionManager.loadTransactions()) {
-            if (t.getDate().getYear() == now.getYear() && t.getDate().getMonth() == now.getMonth()) {
-                filtered.add(t);
-            }
-        }
-        setReport("MONTH TO DATE", filtered);
+        showPeriod(ReportPeriod.MONTH_TO_DATE);
     }
 
     private void showPreviousMonth() {
-        lastReportAction = this::showPreviousMonth;
-        LocalDate now = LocalDate.now();
-        YearMonth lastMonth = YearMonth.from(now).minusMonths(1);
-
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : TransactionManager.loadTransactions()) {
-            if (YearMonth.from(t.getDate()).equals(lastMonth)) {
-                filtered.add(t);
-            }
-        }
-        setReport("PREVIOUS MONTH", filtered);
+        showPeriod(ReportPeriod.PREVIOUS_MONTH);
     }
 
     private void showYearToDate() {
-        lastReportAction = this::showYearToDate;
-        int currentYear = LocalDate.now().getYear();
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : TransactionManager.loadTransactions()) {
-            if (t.getDate().getYear() == currentYear) {
-                filtered.add(t);
-            }
-        }
-        setReport("YEAR TO DATE", filtered);
+        showPeriod(ReportPeriod.YEAR_TO_DATE);
     }
 
     private void showPreviousYear() {
-        lastReportAction = this::showPreviousYear;
-        int lastYear = LocalDate.now().getYear() - 1;
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : TransactionManager.loadTransactions()) {
-            if (t.getDate().getYear() == lastYear) {
-                filtered.add(t);
+        showPeriod(ReportPeriod.PREVIOUS_YEAR);
+    }
+
+    private void showPeriod(ReportPeriod period) {
+        cancelSearch();
+        lastReportAction = () -> {
+            LocalDate today = LocalDate.now();
+            // A copy: the slice is a view of the model's list, which every edit changes.
+            setRows(period.getTitle(), new ArrayList<>(sharedModel.getRowsBetween(period.start(today), period.end(today))));
+        };
+        liveReport = true;
+        lastReportAction.run();
+    }
+
+    // Last year's first day to this year's last day covers every window; one pass over that slice.
+    private void showDashboard() {
+        cancelSearch();
+        lastReportAction = () -> {
+            Dashboard dashboard = new Dashboard(LocalDate.now());
+            for (LedgerRow row : sharedModel.getRowsBetween(dashboard.getScanStart(), dashboard.getScanEnd())) {
+                dashboard.add(row.getEpochDay(), row.getCents());
             }
+
+            titleLabel.setText("Report: DASHBOARD");
+            showModel(dashboardModel);
+            dashboardModel.setDashboard(dashboard);
+            totalLabel.setText(dashboard.getRowsScanned() + " rows, one pass");
+            totalLabel.setForeground(getForeground());
+        };
+        liveReport = true;
+        lastReportAction.run();
+    }
+
+    // Switching models rebuilds the columns, so the renderers go back on.
+    private void showModel(javax.swing.table.TableModel model) {
+        if (table.getModel() != model) {
+            table.setModel(model);
+            LedgerCellRenderer.install(table);
         }
-        setReport("PREVIOUS YEAR", filtered);
     }
 
     private void searchByVendor() {
@@ -154,52 +191,139 @@ public class ReportsPanel extends JPanel {
         if (vendor == null) return; // cancelled
         vendor = vendor.trim().toLowerCase();
 
-        final String vendorFinal = vendor;
-        lastReportAction = () -> {
-            // Re-run with the same vendor string
-            List<Transaction> filtered = new ArrayList<>();
-            for (Transaction t : TransactionManager.loadTransactions()) {
-                if (t.getVendor() != null && t.getVendor().toLowerCase().contains(vendorFinal)) {
-                    filtered.add(t);
+        // Re-run with the same vendor string
+        TransactionQuery query = ReportPeriod.ALL.toQuery(LocalDate.now(), vendor);
+        String title = "VENDOR SEARCH: " + vendor;
+        lastReportAction = () -> runSearch(title, query);
+        liveReport = false;
+        lastReportAction.run();
+    }
+
+    private void customSearch() {
+        JTextField start = new JTextField(10);
+        JTextField end = new JTextField(10);
+        JTextField description = new JTextField(18);
+        JTextField vendor = new JTextField(18);
+        JTextField minAmount = new JTextField(10);
+        JTextField maxAmount = new JTextField(10);
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 6, 6));
+        form.add(new JLabel("Start date (YYYY-MM-DD):"));
+        form.add(start);
+        form.add(new JLabel("End date (YYYY-MM-DD):"));
+        form.add(end);
+        form.add(new JLabel("Description contains:"));
+        form.add(description);
+        form.add(new JLabel("Vendor contains:"));
+        form.add(vendor);
+        form.add(new JLabel("Min amount:"));
+        form.add(minAmount);
+        form.add(new JLabel("Max amount:"));
+        form.add(maxAmount);
+
+        int choice = JOptionPane.showConfirmDialog(this, form, "Custom Search",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) return; // cancelled
+
+        TransactionQuery query;
+        try {
+            query = TransactionQuery.parse(start.getText(), end.getText(),
+                    minAmount.getText(), maxAmount.getText(),
+                    description.getText(), vendor.getText());
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Invalid search", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        lastReportAction = () -> runSearch("CUSTOM SEARCH: " + query, query);
+        liveReport = false;
+        lastReportAction.run();
+    }
+
+    // Runs the query on a worker thread; a newer report or Cancel stops it.
+    private void runSearch(String title, TransactionQuery query) {
+        cancelSearch();
+        QueryCancellation search = new QueryCancellation();
+        runningSearch = search;
+        titleLabel.setText("Running: " + title + " ...");
+        cancelButton.setVisible(true);
+
+        new SwingWorker<List<Transaction>, Void>() {
+            @Override
+            protected List<Transaction> doInBackground() throws Exception {
+                return search.run(() -> TransactionManager.findTransactions(query));
+            }
+
+            @Override
+            protected void done() {
+                if (search.isCancelled()) return; // whoever cancelled it has updated the panel
+                runningSearch = null;
+                cancelButton.setVisible(false);
+                try {
+                    setReport(title, get());
+                } catch (InterruptedException | ExecutionException e) {
+                    titleLabel.setText("Report failed: " + title);
+                    System.out.println("Error running report: " + e.getMessage());
                 }
             }
-            setReport("VENDOR SEARCH: " + vendorFinal, filtered);
-        };
+        }.execute();
+    }
 
-        lastReportAction.run();
+    // Reloads the shared rows off the EDT, cancellable like a search.
+    private void reloadSharedModel() {
+        cancelSearch();
+        QueryCancellation reload = new QueryCancellation();
+        runningSearch = reload;
+        titleLabel.setText("Reloading transactions ...");
+        cancelButton.setVisible(true);
+        sharedModel.reloadInBackground(reload, () -> {
+            runningSearch = null;
+            cancelButton.setVisible(false);
+        });
     }
 
+    private void cancelSearch() {
+        if (runningSearch == null) return;
+        runningSearch.cancel();
+        runningSearch = null;
+        cancelButton.setVisible(false);
+        titleLabel.setText("Cancelled.");
+    }
+
+    // Query results arrive newest first already, so they are shown as-is.
     private void setReport(String title, List<Transaction> transactions) {
-        titleLabel.setText(title.isEmpty() ? "Pick a report..." : ("Report: " + title));
+        List<LedgerRow> rows = new ArrayList<>(transactions.size());
+        for (Transaction t : transactions) {
+            rows.add(new LedgerRow(t));
+        }
+        setRows(title, rows);
+    }
 
-        // Copy into a mutable list before sorting (some callers may pass immutable lists).
-        List<Transaction> sorted = new ArrayList<>(transactions);
-        sorted.sort(Comparator.comparing(Transaction::getDate)
-                .thenComparing(Transaction::getTime)
-                .reversed());
-        reportModel.setTransactions(sorted);
+    private void setRows(String title, List<LedgerRow> rows) {
+        titleLabel.setText(title.isEmpty() ? "Pick a report..." : ("Report: " + title));
+        showModel(reportModel);
+        reportModel.setRows(rows);
 
-        double total = 0;
-        for (Transaction t : sorted) total += t.getAmount();
+        long cents = 0;
+        for (LedgerRow row : rows) cents += row.getCents();
+        double total = cents / 100.0;
         totalLabel.setText(money.format(total));
-        totalLabel.setForeground(total >= 0 ? new Color(0, 128, 0) : Color.RED.darker());
+        totalLabel.setForeground(LedgerCellRenderer.colorFor(total));
     }
 
-    private static class ReportTableModel extends AbstractTableModel {
+    private static class ReportTableModel extends AbstractTableModel implements LedgerCellRenderer.DisplayTextModel {
         private static final String[] COLS = {"Date", "Time", "Description", "Vendor", "Amount"};
-        private final List<Transaction> tx = new ArrayList<>();
+        private List<LedgerRow> rows = List.of();
 
-        void setTransactions(List<Transaction> transactions) {
-            tx.clear();
-            tx.addAll(transactions);
+        // Keeps the list as given; callers pass a list nothing else changes.
+        void setRows(List<LedgerRow> rows) {
+            this.rows = rows;
             fireTableDataChanged();
         }
 
-        // No extra persistence needed here; we always read from disk fresh when running a report.
-
         @Override
         public int getRowCount() {
-            return tx.size();
+            return rows.size();
         }
 
         @Override
@@ -215,6 +339,8 @@ public class ReportsPanel extends JPanel {
         @Override
         public Class<?> getColumnClass(int columnIndex) {
             return switch (columnIndex) {
+                case 0 -> LocalDate.class;
+                case 1 -> LocalTime.class;
                 case 4 -> Double.class;
                 default -> String.class;
             };
@@ -222,30 +348,107 @@ public class ReportsPanel extends JPanel {
 
         @Override
         public Object getValueAt(int rowIndex, int columnIndex) {
-            Transaction t = tx.get(rowIndex);
+            LedgerRow row = rows.get(rowIndex);
+            Transaction t = row.getTransaction();
             return switch (columnIndex) {
-                case 0 -> t.getDate().toString();
-                case 1 -> t.getTime().withNano(0).toString();
+                case 0 -> t.getDate();
+                case 1 -> row.getTime();
                 case 2 -> t.getDescription();
                 case 3 -> t.getVendor();
-                case 4 -> t.getAmount();
+                case 4 -> row.getAmount();
                 default -> null;
             };
         }
+
+        @Override
+        public String getDisplayText(int rowIndex, int columnIndex) {
+            LedgerRow row = rows.get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> row.getDateText();
+                case 1 -> row.getTimeText();
+                case 2 -> row.getTransaction().getDescription();
+                case 3 -> row.getTransaction().getVendor();
+                case 4 -> row.getAmountText();
+                default -> "";
+            };
+        }
     }
 
-    private static class AmountRenderer extends DefaultTableCellRenderer {
-        private final NumberFormat money = NumberFormat.getCurrencyInstance(Locale.US);
+    /** Dashboard rows: the four periods, then the year-over-year comparisons. */
+    private static class DashboardTableModel extends AbstractTableModel implements LedgerCellRenderer.DisplayTextModel {
+        private static final String[] COLS = {"Period", "From", "To", "Rows", "Deposits", "Payments", "Net", "Change"};
+        private final List<Dashboard.Line> lines = new ArrayList<>();
+        private final List<String> changes = new ArrayList<>();
+
+        void setDashboard(Dashboard dashboard) {
+            lines.clear();
+            changes.clear();
+            for (Dashboard.Line line : dashboard.getPeriods()) {
+                lines.add(line);
+                changes.add("");
+            }
+            for (Dashboard.Comparison c : dashboard.getComparisons()) {
+                Double pct = c.getNetChangePercent();
+                lines.add(c.previous);
+                changes.add("");
+                lines.add(c.current);
+                changes.add(LedgerRow.formatMoney(c.getNetChangeCents())
+                        + (pct == null ? "" : String.format(" (%+.1f%%)", pct)));
+            }
+            fireTableDataChanged();
+        }
 
         @Override
-        protected void setValue(Object value) {
-            if (value instanceof Number n) {
-                double amt = n.doubleValue();
-                setText(money.format(amt));
-                setForeground(amt >= 0 ? new Color(0, 128, 0) : Color.RED.darker());
-            } else {
-                super.setValue(value);
-            }
+        public int getRowCount() {
+            return lines.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return switch (columnIndex) {
+                case 1, 2 -> LocalDate.class;
+                case 3 -> Long.class;
+                case 4, 5, 6 -> Double.class;
+                default -> String.class;
+            };
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            Dashboard.Line line = lines.get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> line.label;
+                case 1 -> line.from;
+                case 2 -> line.to;
+                case 3 -> line.total.getRowCount();
+                case 4 -> line.total.getDeposits();
+                case 5 -> line.total.getPayments();
+                case 6 -> line.total.getNet();
+                case 7 -> changes.get(rowIndex);
+                default -> null;
+            };
+        }
+
+        @Override
+        public String getDisplayText(int rowIndex, int columnIndex) {
+            Dashboard.Line line = lines.get(rowIndex);
+            return switch (columnIndex) {
+                case 3 -> Long.toString(line.total.getRowCount());
+                case 4 -> LedgerRow.formatMoney(line.total.getDepositCents());
+                case 5 -> LedgerRow.formatMoney(line.total.getPaymentCents());
+                case 6 -> LedgerRow.formatMoney(line.total.getNetCents());
+                default -> String.valueOf(getValueAt(rowIndex, columnIndex));
+            };
         }
     }
 }
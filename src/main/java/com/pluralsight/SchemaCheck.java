@@ -0,0 +1,70 @@
+package com.pluralsight;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background "does the transactions table exist" check for a ledger's primary.
+ *
+ * The check always runs on its own thread, so creating a ledger's pools never
+ * waits for a database round-trip. Whether the first query waits for it depends
+ * on the marker file left by an earlier successful check of the same database
+ * and table definition (under {@link DbConfig#getCacheDir()}):
+ * <ul>
+ *   <li>marker present: queries go ahead right away; the check only refreshes the marker</li>
+ *   <li>no marker (first run, new database, changed schema): queries wait for the check</li>
+ * </ul>
+ * A failed check deletes the marker, so the next start waits again, and fails
+ * the future, so waiting queries fail instead of running against a missing table.
+ * In-memory databases start empty every time and never use a marker.
+ */
+final class SchemaCheck {
+
+    private static final ExecutorService CHECKS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "schema-check");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private SchemaCheck() {
+        // no instances
+    }
+
+    /** Starts the check; the returned future is what queries should wait for. */
+    static CompletableFuture<Void> start(ConnectionPool primary) {
+        Path marker = markerFile(primary.getUrl());
+        boolean verified = marker != null && Files.exists(marker);
+
+        CompletableFuture<Void> check = CompletableFuture.runAsync(() -> {
+            boolean ok = TransactionManager.ensureSchema(primary);
+            if (marker != null) updateMarker(marker, ok);
+            if (!ok) throw new IllegalStateException("the transactions table could not be checked or created");
+        }, CHECKS);
+        return verified ? CompletableFuture.completedFuture(null) : check;
+    }
+
+    // One marker per database URL and table definition; null when markers don't apply.
+    private static Path markerFile(String url) {
+        if (url.contains(":mem:")) return null;
+        String key = Integer.toHexString((url + "|" + TransactionManager.schemaVersion()).hashCode());
+        return DbConfig.getCacheDir().resolve("schema-" + key + ".ok");
+    }
+
+    private static void updateMarker(Path marker, boolean ok) {
+        try {
+            if (ok) {
+                Files.createDirectories(marker.getParent());
+                Files.writeString(marker, "schema " + TransactionManager.schemaVersion() + "\n");
+            } else {
+                Files.deleteIfExists(marker);
+            }
+        } catch (IOException e) {
+            // Only costs the wait on the next start.
+            System.out.println("Could not update schema marker " + marker + ": " + e.getMessage());
+        }
+    }
+}
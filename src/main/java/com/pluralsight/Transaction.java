@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 public class Transaction {
+    private long id;            // database id; 0 until saved (and for archived rows)
     private LocalDate date;
     private LocalTime time;
     private String description;
@@ -11,6 +12,11 @@ public class Transaction {
     private double amount;
 
     public Transaction(LocalDate date, LocalTime time, String description, String vendor, double amount) {
+        this(0, date, time, description, vendor, amount);
+    }
+
+    public Transaction(long id, LocalDate date, LocalTime time, String description, String vendor, double amount) {
+        this.id = id;
         this.date = date;
         this.time = time;
         this.description = description;
@@ -19,6 +25,7 @@ public class Transaction {
     }
 
     // Getters
+    public long getId() { return id; }
     public LocalDate getDate() { return date; }
     public LocalTime getTime() { return time; }
     public String getDescription() { return description; }
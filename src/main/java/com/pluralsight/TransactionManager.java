@@ -3,20 +3,39 @@ package com.pluralsight;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
 
 /**
  * Persists transactions to a MySQL database (instead of a CSV file).
  *
- * Connection settings come from {@link DbConfig}.
+ * Connection settings come from {@link DbConfig}; every call works on the
+ * current ledger's database (see {@link Ledgers}). Queries read from a replica
+ * when one is configured; saves and deletes go to the primary.
+ *
+ * Every statement gets the configured timeout (-Dledger.db.queryTimeoutSeconds) and
+ * can be cancelled through the calling thread's {@link QueryCancellation}.
+ *
+ * Saves reject duplicates: every row carries a fingerprint of its fields in a
+ * unique column, and the ledger's {@link DuplicateFilter} decides which new rows
+ * need a lookup first.
  */
 public class TransactionManager {
 
-    private static final String DB_URL = DbConfig.URL;
-    private static final String DB_USER = DbConfig.getUser();
-    private static final String DB_PASSWORD = DbConfig.getPassword();
-
     // Table + columns are named to avoid reserved keywords.
     private static final String CREATE_TABLE_SQL = """
             CREATE TABLE IF NOT EXISTS transactions (
@@ -26,82 +45,836 @@ public class TransactionManager {
                 description VARCHAR(255) NOT NULL,
                 vendor VARCHAR(255) NOT NULL,
                 amount DECIMAL(10,2) NOT NULL,
-                PRIMARY KEY (id)
+                fingerprint BIGINT NULL,
+                PRIMARY KEY (id),
+                CONSTRAINT uq_transactions_fingerprint UNIQUE (fingerprint)
             )
             """;
 
-    static {
-        // Make sure the table exists when the app starts.
-        ensureSchema();
+    /** What {@link #saveTransaction} returns when an identical transaction is already saved. */
+    public static final long DUPLICATE = -1;
+
+    // Pools are shared by every caller (GUI, console, batch jobs) so connections are reused.
+    private static Connection readConnection() throws SQLException {
+        return Ledgers.database().readConnection();
     }
 
-    private static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+    private static Connection writeConnection() throws SQLException {
+        return Ledgers.database().writeConnection();
     }
 
-    private static void ensureSchema() {
-        try (Connection c = getConnection();
+    /** Closes idle pooled connections; call once when a batch run is finished. */
+    public static void shutdown() {
+        Ledgers.shutdownAll();
+    }
+
+    /**
+     * Creates the table if needed; run in the background once per ledger when its
+     * pool is created (see {@link SchemaCheck}).
+     *
+     * @return false if the check failed
+     */
+    static boolean ensureSchema(ConnectionPool pool) {
+        try (Connection c = pool.getConnection();
              Statement s = c.createStatement()) {
+            s.setQueryTimeout(DbConfig.getQueryTimeoutSeconds());
             s.executeUpdate(CREATE_TABLE_SQL);
+            if (!hasFingerprints(s)) addFingerprints(c);
+            return true;
         } catch (SQLException e) {
             System.out.println("Error ensuring database schema: " + e.getMessage());
-            System.out.println("DB URL: " + DB_URL);
+            System.out.println("DB URL: " + pool.getUrl());
+            return false;
+        }
+    }
+
+    private static boolean hasFingerprints(Statement s) {
+        try {
+            s.executeQuery("SELECT fingerprint FROM transactions WHERE 1 = 0").close();
+            return true;
+        } catch (SQLException e) {
+            return false;
         }
     }
 
     /**
-     * Inserts a new transaction row.
+     * Upgrades a table created before duplicate detection: adds the fingerprint
+     * column, fills it in and makes it unique. Rows that are already duplicates of
+     * an earlier row keep an empty fingerprint (nothing is deleted).
      */
-    public static void saveTransaction(Transaction transaction) {
+    private static void addFingerprints(Connection c) throws SQLException {
+        System.out.println("Adding duplicate-detection fingerprints to the transactions table...");
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("ALTER TABLE transactions ADD COLUMN fingerprint BIGINT NULL");
+        }
+
+        Map<Long, Long> firstIdByFingerprint = new HashMap<>();
+        int duplicates = 0;
+        try (PreparedStatement ps = prepareStreaming(c,
+                "SELECT id, tx_date, tx_time, description, vendor, amount FROM transactions ORDER BY id");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Transaction t = readTransaction(rs);
+                if (firstIdByFingerprint.putIfAbsent(DuplicateFilter.fingerprint(t), t.getId()) != null) duplicates++;
+            }
+        }
+
+        c.setAutoCommit(false);
+        try (PreparedStatement ps = c.prepareStatement("UPDATE transactions SET fingerprint = ? WHERE id = ?")) {
+            int pending = 0;
+            for (Map.Entry<Long, Long> e : firstIdByFingerprint.entrySet()) {
+                ps.setLong(1, e.getKey());
+                ps.setLong(2, e.getValue());
+                ps.addBatch();
+                if (++pending == 1000) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) ps.executeBatch();
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("ALTER TABLE transactions ADD CONSTRAINT uq_transactions_fingerprint UNIQUE (fingerprint)");
+        }
+        if (duplicates > 0) {
+            System.out.println(duplicates + " existing duplicate row(s) left without a fingerprint.");
+        }
+    }
+
+    /** Bloom filter of every fingerprint in the table (see {@link LedgerDatabase#duplicates()}). */
+    static DuplicateFilter loadDuplicateFilter(ConnectionPool pool) throws SQLException {
+        long[] fingerprints = new long[1024];
+        int n = 0;
+        try (Connection c = pool.getConnection();
+             PreparedStatement ps = prepareStreaming(c,
+                     "SELECT fingerprint FROM transactions WHERE fingerprint IS NOT NULL");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                if (n == fingerprints.length) fingerprints = Arrays.copyOf(fingerprints, n * 2);
+                fingerprints[n++] = rs.getLong(1);
+            }
+        }
+        DuplicateFilter filter = new DuplicateFilter(n);
+        for (int i = 0; i < n; i++) filter.add(fingerprints[i]);
+        return filter;
+    }
+
+    /** Changes whenever the table definition does, so old "schema verified" markers stop matching. */
+    static String schemaVersion() {
+        return Integer.toHexString(CREATE_TABLE_SQL.hashCode());
+    }
+
+    private static final String INSERT_SQL = """
+            INSERT INTO transactions (tx_date, tx_time, description, vendor, amount, fingerprint)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Inserts a new transaction row, unless one with the same date, time, vendor,
+     * amount and description is already saved.
+     *
+     * @return the new row's database id, {@link #DUPLICATE}, or 0 if it couldn't be saved
+     */
+    public static long saveTransaction(Transaction transaction) {
+        long fingerprint = DuplicateFilter.fingerprint(transaction);
+        try {
+            // Before borrowing a connection: loading the filter needs one of its own.
+            DuplicateFilter filter = Ledgers.database().duplicates();
+            if (!archivedFingerprints(List.of(transaction)).isEmpty()) return DUPLICATE;
+
+            try (Connection c = writeConnection()) {
+                if (filter.mightContain(fingerprint) && !savedFingerprints(c, List.of(fingerprint), 0).isEmpty()) {
+                    return DUPLICATE;
+                }
+
+                try (PreparedStatement ps = prepare(c, INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    bindRow(ps, transaction, fingerprint);
+                    ps.executeUpdate();
+                    filter.add(fingerprint);
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        return keys.next() ? keys.getLong(1) : 0;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            // Saved by another process since our filter was loaded.
+            if (isDuplicateKey(e)) return DUPLICATE;
+            System.out.println("Error saving transaction: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Overwrites the row with {@code transaction}'s id with its other fields.
+     *
+     * @return false if the row doesn't exist (anymore), the new values duplicate
+     *         another row, or the update failed
+     */
+    public static boolean updateTransaction(Transaction transaction) {
+        if (transaction.getId() <= 0) {
+            System.out.println("Error updating transaction: it has no database id (unsaved or archived)");
+            return false;
+        }
         final String sql = """
-                INSERT INTO transactions (tx_date, tx_time, description, vendor, amount)
-                VALUES (?, ?, ?, ?, ?)
+                UPDATE transactions
+                SET tx_date = ?, tx_time = ?, description = ?, vendor = ?, amount = ?, fingerprint = ?
+                WHERE id = ?
                 """;
 
-        try (Connection c = getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        long fingerprint = DuplicateFilter.fingerprint(transaction);
+        try {
+            DuplicateFilter filter = Ledgers.database().duplicates();
+            if (!archivedFingerprints(List.of(transaction)).isEmpty()) {
+                System.out.println("Not updated: an identical transaction is already archived.");
+                return false;
+            }
 
-            ps.setDate(1, Date.valueOf(transaction.getDate()));
-            ps.setTime(2, Time.valueOf(transaction.getTime()));
-            ps.setString(3, transaction.getDescription());
-            ps.setString(4, transaction.getVendor());
-            ps.setBigDecimal(5, java.math.BigDecimal.valueOf(transaction.getAmount()));
+            try (Connection c = writeConnection()) {
+                if (filter.mightContain(fingerprint)
+                        && !savedFingerprints(c, List.of(fingerprint), transaction.getId()).isEmpty()) {
+                    System.out.println("Not updated: an identical transaction is already saved.");
+                    return false;
+                }
 
-            ps.executeUpdate();
+                try (PreparedStatement ps = prepare(c, sql)) {
+                    bindRow(ps, transaction, fingerprint);
+                    ps.setLong(7, transaction.getId());
+                    boolean updated = ps.executeUpdate() == 1;
+                    if (updated) filter.add(fingerprint);
+                    return updated;
+                }
+            }
         } catch (SQLException e) {
-            System.out.println("Error saving transaction: " + e.getMessage());
+            if (isDuplicateKey(e)) {
+                System.out.println("Not updated: an identical transaction is already saved.");
+            } else {
+                System.out.println("Error updating transaction: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the row with this id.
+     *
+     * @return false if there was no such row or the delete failed
+     */
+    public static boolean deleteTransaction(long id) {
+        try (Connection c = writeConnection();
+             PreparedStatement ps = prepare(c, "DELETE FROM transactions WHERE id = ?")) {
+
+            ps.setLong(1, id);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            System.out.println("Error deleting transaction: " + e.getMessage());
+            return false;
         }
     }
 
+    // Parameters 1-6 of the INSERT/UPDATE statements.
+    private static void bindRow(PreparedStatement ps, Transaction t, long fingerprint) throws SQLException {
+        ps.setDate(1, Date.valueOf(t.getDate()));
+        ps.setTime(2, Time.valueOf(t.getTime()));
+        ps.setString(3, t.getDescription());
+        ps.setString(4, t.getVendor());
+        ps.setBigDecimal(5, java.math.BigDecimal.valueOf(t.getAmount()));
+        ps.setLong(6, fingerprint);
+    }
+
+    /** Which of these fingerprints are saved, ignoring the row with id {@code exceptId}. */
+    private static Set<Long> savedFingerprints(Connection c, List<Long> fingerprints, long exceptId) throws SQLException {
+        Set<Long> saved = new HashSet<>();
+        if (fingerprints.isEmpty()) return saved;
+        String marks = String.join(", ", Collections.nCopies(fingerprints.size(), "?"));
+        try (PreparedStatement ps = prepare(c,
+                "SELECT fingerprint FROM transactions WHERE fingerprint IN (" + marks + ") AND id <> ?")) {
+            int i = 1;
+            for (long f : fingerprints) ps.setLong(i++, f);
+            ps.setLong(i, exceptId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) saved.add(rs.getLong(1));
+            }
+        }
+        return saved;
+    }
+
     /**
-     * Loads all transactions from the database.
+     * Which of these are already archived. Archived rows leave the table (and its
+     * unique fingerprint column), so rows dated in an archived year are checked
+     * against that year's segment instead.
+     */
+    private static Set<Long> archivedFingerprints(List<Transaction> transactions) throws SQLException {
+        try {
+            return LedgerArchive.fingerprints(transactions);
+        } catch (IOException | UncheckedIOException e) {
+            throw new SQLException("Error reading archive: " + e.getMessage(), e);
+        }
+    }
+
+    // Unique-key violation: SQLState 23505 (H2, standard) or MySQL error 1062, possibly inside a batch error.
+    private static boolean isDuplicateKey(SQLException e) {
+        for (SQLException x = e; x != null; x = x.getNextException()) {
+            if ("23505".equals(x.getSQLState()) || x.getErrorCode() == 1062) return true;
+            if (x.getCause() instanceof SQLException cause && cause != x && isDuplicateKey(cause)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Inserts many rows in one transaction using JDBC batches (bulk imports, test data).
+     * Rows that are already saved, or repeat an earlier row of the list, are skipped.
+     * Unlike {@link #saveTransaction} errors are thrown, and nothing is saved on failure.
+     * For MySQL add rewriteBatchedStatements=true to the URL so each batch is sent as
+     * one multi-row INSERT.
+     *
+     * @return the number of rows inserted
+     */
+    public static int saveTransactions(List<Transaction> transactions) throws SQLException {
+        try {
+            return insertNew(transactions);
+        } catch (SQLException e) {
+            if (!isDuplicateKey(e)) throw e;
+            // Another process saved some of these after our filter was loaded: reload it and retry once.
+            Ledgers.database().reloadDuplicates();
+            return insertNew(transactions);
+        }
+    }
+
+    private static int insertNew(List<Transaction> transactions) throws SQLException {
+        // Both before borrowing the connection: loading the filter needs one of its own.
+        DuplicateFilter filter = Ledgers.database().duplicates();
+        Set<Long> archived = archivedFingerprints(transactions);
+        try (Connection c = writeConnection();
+             PreparedStatement ps = prepare(c, INSERT_SQL)) {
+            Set<Long> inList = new HashSet<>(archived);
+            c.setAutoCommit(false);
+            try {
+                int inserted = 0;
+                for (int from = 0; from < transactions.size(); from += 1000) {
+                    List<Transaction> chunk = transactions.subList(from, Math.min(from + 1000, transactions.size()));
+
+                    // Only rows the filter can't rule out are looked up, in one query per chunk.
+                    long[] fingerprints = new long[chunk.size()];
+                    List<Long> maybeSaved = new ArrayList<>();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        fingerprints[i] = DuplicateFilter.fingerprint(chunk.get(i));
+                        if (filter.mightContain(fingerprints[i])) maybeSaved.add(fingerprints[i]);
+                    }
+                    Set<Long> saved = savedFingerprints(c, maybeSaved, 0);
+
+                    int pending = 0;
+                    for (int i = 0; i < chunk.size(); i++) {
+                        if (saved.contains(fingerprints[i]) || !inList.add(fingerprints[i])) continue;
+                        bindRow(ps, chunk.get(i), fingerprints[i]);
+                        ps.addBatch();
+                        pending++;
+                    }
+                    if (pending > 0) ps.executeBatch();
+                    inserted += pending;
+                }
+                c.commit();
+                inList.removeAll(archived);
+                for (long f : inList) filter.add(f);
+                return inserted;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Loads all transactions (live rows merged with archived years), newest first.
      */
     public static List<Transaction> loadTransactions() {
         List<Transaction> transactions = new ArrayList<>();
+        try {
+            streamTransactions(new TransactionQuery(null, null, null, null, null, null), transactions::add);
+        } catch (SQLException | UncheckedIOException e) {
+            QueryCancellation.checkpoint(); // a cancelled query fails too; report that instead
+            System.out.println("Error loading transactions: " + e.getMessage());
+        }
+        return transactions;
+    }
+
+    /** {min id, max id, row count} of the live table ({0, 0, 0} when empty). */
+    static long[] idBounds() throws SQLException {
+        try (Connection c = readConnection();
+             PreparedStatement ps = prepare(c, "SELECT MIN(id), MAX(id), COUNT(*) FROM transactions");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)};
+        }
+    }
 
+    /**
+     * Live rows with fromId <= id <= toId, newest first, into a list of their own.
+     * Parallel loads run one of these per id range on its own pooled connection.
+     */
+    static List<Transaction> readIdRange(long fromId, long toId, int expectedRows) throws SQLException {
         final String sql = """
-                SELECT tx_date, tx_time, description, vendor, amount
+                SELECT id, tx_date, tx_time, description, vendor, amount
                 FROM transactions
+                WHERE id >= ? AND id <= ?
                 ORDER BY tx_date DESC, tx_time DESC, id DESC
                 """;
 
-        try (Connection c = getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        List<Transaction> rows = new ArrayList<>(expectedRows);
+        try (Connection c = readConnection();
+             PreparedStatement ps = prepareStreaming(c, sql)) {
+            ps.setLong(1, fromId);
+            ps.setLong(2, toId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readTransaction(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Runs a custom search. Date and amount ranges go into the SQL WHERE clause;
+     * the remaining text criteria are checked by the query's compiled predicate.
+     */
+    public static List<Transaction> findTransactions(TransactionQuery query) {
+        List<Transaction> transactions = new ArrayList<>();
+        try {
+            streamTransactions(query, transactions::add);
+        } catch (SQLException | UncheckedIOException e) {
+            QueryCancellation.checkpoint(); // a cancelled query fails too; report that instead
+            System.out.println("Error searching transactions: " + e.getMessage());
+        }
+        return transactions;
+    }
+
+    /**
+     * Streams the matching transactions (newest first) to the consumer, one row at a
+     * time, without building a list. Errors are thrown so batch jobs can fail loudly.
+     *
+     * Archived years that overlap the query's date range are merged in as they stream
+     * (see {@link LedgerArchive}); reading a segment can throw UncheckedIOException.
+     */
+    public static void streamTransactions(TransactionQuery query, Consumer<Transaction> consumer) throws SQLException {
+        streamPage(query, null, Integer.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Streams one page of matching transactions (newest first): at most {@code limit}
+     * rows that come after {@code after} (null for the first page). Returns the cursor
+     * for the next page, or null when there are no more rows.
+     *
+     * The cursor is pushed into the WHERE clause, so a later page costs the same as the
+     * first one instead of re-reading (OFFSET) everything before it.
+     */
+    public static PageCursor streamPage(TransactionQuery query, PageCursor after, int limit,
+                                        Consumer<Transaction> consumer) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String where = query.whereClause(params);
+        if (after != null) where = after.addKeysetCondition(where, params);
+
+        // Text criteria are checked here, not in SQL, so only then can't the database stop early.
+        // +2: the row at the cursor itself and one more to know whether another page exists.
+        boolean sqlLimit = limit < Integer.MAX_VALUE - 2 && !query.hasTextCriteria();
+
+        final String sql = """
+                SELECT id, tx_date, tx_time, description, vendor, amount
+                FROM transactions
+                %s
+                ORDER BY tx_date DESC, tx_time DESC, id DESC
+                %s
+                """.formatted(where, sqlLimit ? "LIMIT " + (limit + 2) : "");
+
+        Predicate<Transaction> rest = query.textPredicate();
+        Page page = new Page(after, limit, consumer);
+
+        // Archived rows weren't filtered by SQL, so they get the full predicate.
+        Predicate<Transaction> coldFilter = query.asPredicate();
+        LocalDate coldEnd = query.getEndDate();
+        if (after != null && (coldEnd == null || after.getDate().isBefore(coldEnd))) coldEnd = after.getDate();
+        Lock archived = Ledgers.database().archiveLock().readLock();
+        archived.lock();
+        try (LedgerArchive.Rows cold = LedgerArchive.rows(query.getStartDate(), coldEnd)) {
+            Transaction nextCold = nextMatching(cold, coldFilter);
+
+            try (Connection c = readConnection();
+                 PreparedStatement ps = prepareStreaming(c, sql)) {
+
+                bind(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (!page.isDone() && rs.next()) {
+                        QueryCancellation.checkpoint();
+                        Transaction t = readTransaction(rs);
+                        while (nextCold != null && !page.isDone() && LedgerArchive.isNewer(nextCold, t)) {
+                            page.offer(nextCold);
+                            nextCold = nextMatching(cold, coldFilter);
+                        }
+                        if (rest.test(t)) page.offer(t);
+                    }
+                }
+            }
+
+            while (nextCold != null && !page.isDone()) {
+                QueryCancellation.checkpoint();
+                page.offer(nextCold);
+                nextCold = nextMatching(cold, coldFilter);
+            }
+        } finally {
+            archived.unlock();
+        }
+        return page.nextCursor();
+    }
 
+    /** Drops rows up to the cursor, passes on {@code limit} rows and notices if there are more. */
+    private static class Page {
+        private final PageCursor after;
+        private final int limit;
+        private final Consumer<Transaction> consumer;
+
+        private int seenAtCursor;
+        private int emitted;
+        private boolean more;
+        private Transaction last;
+        private int lastRun;   // rows with the same key as the last one (for the next cursor's skip)
+
+        Page(PageCursor after, int limit, Consumer<Transaction> consumer) {
+            this.after = after;
+            this.limit = limit;
+            this.consumer = consumer;
+        }
+
+        void offer(Transaction t) {
+            if (after != null) {
+                int c = after.compareTo(t);
+                if (c < 0) return;                                   // on an earlier page
+                if (c == 0 && seenAtCursor++ < after.getSkip()) return;
+            }
+            if (emitted == limit) {
+                more = true;
+                return;
+            }
+            consumer.accept(t);
+            emitted++;
+            if (last != null && sameKey(last, t)) {
+                lastRun++;
+            } else {
+                last = t;
+                lastRun = after != null && after.sameKey(t) ? after.getSkip() + 1 : 1;
+            }
+        }
+
+        boolean isDone() {
+            return more;
+        }
+
+        private static boolean sameKey(Transaction a, Transaction b) {
+            return a.getId() == b.getId() && a.getDate().equals(b.getDate()) && a.getTime().equals(b.getTime());
+        }
+
+        PageCursor nextCursor() {
+            return more ? new PageCursor(last.getDate(), last.getTime(), last.getId(), lastRun) : null;
+        }
+    }
+
+    private static Transaction nextMatching(Iterator<Transaction> it, Predicate<Transaction> filter) {
+        while (it.hasNext()) {
+            Transaction t = it.next();
+            if (filter.test(t)) return t;
+        }
+        return null;
+    }
+
+    /**
+     * Streams one row per vendor with the total spent on payments in the query's
+     * date range. The grouping happens in the database, so only one row per vendor
+     * crosses the wire. A vendor criterion is applied to the grouped names.
+     *
+     * Payments in archived years overlapping the range are grouped in memory and
+     * combined with the database's groups. At most
+     * {@link DbConfig#getArchivedVendorsInMemory()} archived vendors are held at once:
+     * past that the vendors are split in two by hash and each half is done on its own
+     * (one more archive scan and query each).
+     * Errors are thrown, like {@link #streamTransactions}, so a failed report isn't
+     * mistaken for an empty one.
+     */
+    public static void forEachVendorSpend(TransactionQuery query, Consumer<VendorTotal> consumer) throws SQLException {
+        Lock archived = Ledgers.database().archiveLock().readLock();
+        archived.lock();
+        try {
+            forEachVendorSpend(query, 0, 0, DbConfig.getArchivedVendorsInMemory(), consumer);
+        } catch (SQLException | UncheckedIOException e) {
+            QueryCancellation.checkpoint(); // a cancelled query fails too; report that instead
+            throw e;
+        } finally {
+            archived.unlock();
+        }
+    }
+
+    // The vendors whose hash ends in the {@code bits} low bits of {@code part}.
+    private static void forEachVendorSpend(TransactionQuery query, int bits, int part, int maxVendors,
+                                           Consumer<VendorTotal> consumer) throws SQLException {
+        Map<String, VendorTotal> cold = archivedVendorSpend(query, bits, part, maxVendors);
+        if (cold == null) {
+            forEachVendorSpend(query, bits + 1, part, maxVendors, consumer);
+            forEachVendorSpend(query, bits + 1, part | 1 << bits, maxVendors, consumer);
+            return;
+        }
+
+        List<Object> params = new ArrayList<>();
+        final String sql = """
+                SELECT vendor, -SUM(amount) AS spent, COUNT(*) AS tx_count
+                FROM transactions
+                %s
+                GROUP BY vendor
+                """.formatted(query.payments().whereClause(params));
+
+        try (Connection c = readConnection();
+             PreparedStatement ps = prepareStreaming(c, sql)) {
+
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    QueryCancellation.checkpoint();
+                    String vendor = rs.getString("vendor");
+                    if (!inPart(vendor, bits, part) || !query.matchesVendor(vendor)) continue;
+                    VendorTotal v = new VendorTotal(vendor, rs.getBigDecimal("spent").doubleValue(), rs.getLong("tx_count"));
+                    VendorTotal archived = cold.remove(vendor);
+                    consumer.accept(archived != null ? archived.plus(v) : v);
+                }
+            }
+        }
+        for (VendorTotal v : cold.values()) {
+            consumer.accept(v);
+        }
+    }
+
+    /** Archived payments of this part's vendors grouped by vendor, or null if there are more than maxVendors. */
+    private static Map<String, VendorTotal> archivedVendorSpend(TransactionQuery query, int bits, int part,
+                                                                int maxVendors) {
+        Map<String, VendorTotal> totals = new HashMap<>();
+        Predicate<Transaction> payments = query.payments().asPredicate();
+        try (LedgerArchive.Rows it = LedgerArchive.rows(query.getStartDate(), query.getEndDate())) {
+            while (it.hasNext()) {
+                QueryCancellation.checkpoint();
+                Transaction t = it.next();
+                if (!payments.test(t) || !inPart(t.getVendor(), bits, part) || !query.matchesVendor(t.getVendor())) {
+                    continue;
+                }
+                VendorTotal one = new VendorTotal(t.getVendor(), -t.getAmount(), 1);
+                totals.merge(t.getVendor(), one, VendorTotal::plus);
+                if (totals.size() > maxVendors && bits < 30) return null;
+            }
+        }
+        return totals;
+    }
+
+    private static boolean inPart(String vendor, int bits, int part) {
+        int h = vendor.hashCode() * 0x9E3779B9;   // spread the bits String.hashCode leaves alike
+        return ((h ^ h >>> 16) & ((1 << bits) - 1)) == part;
+    }
+
+    /**
+     * Every vendor in the live table with its number of transactions, in one
+     * GROUP BY (for the vendor autocomplete; archived years aren't read).
+     */
+    public static void forEachVendorCount(ObjLongConsumer<String> consumer) throws SQLException {
+        try (Connection c = readConnection();
+             PreparedStatement ps = prepareStreaming(c,
+                     "SELECT vendor, COUNT(*) AS tx_count FROM transactions GROUP BY vendor");
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                LocalDate date = rs.getDate("tx_date").toLocalDate();
-                LocalTime time = rs.getTime("tx_time").toLocalTime();
-                String description = rs.getString("description");
-                String vendor = rs.getString("vendor");
-                double amount = rs.getBigDecimal("amount").doubleValue();
+                consumer.accept(rs.getString("vendor"), rs.getLong("tx_count"));
+            }
+        }
+    }
 
-                transactions.add(new Transaction(date, time, description, vendor, amount));
+    private static Map<String, VendorTotal> archivedVendorSpend(TransactionQuery query) {
+        Map<String, VendorTotal> totals = new HashMap<>();
+        Predicate<Transaction> payments = query.payments().asPredicate();
+        try (LedgerArchive.Rows it = LedgerArchive.rows(query.getStartDate(), query.getEndDate())) {
+            while (it.hasNext()) {
+                QueryCancellation.checkpoint();
+                Transaction t = it.next();
+                if (!payments.test(t)) continue;
+                VendorTotal one = new VendorTotal(t.getVendor(), -t.getAmount(), 1);
+                totals.merge(t.getVendor(), one, VendorTotal::plus);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Row count and deposit/payment totals for the query, live table plus archive.
+     * Date/amount-only queries are summed by the database; text criteria are
+     * checked on streamed rows instead.
+     */
+    public static PeriodTotal periodTotal(TransactionQuery query) throws SQLException {
+        if (query.hasTextCriteria()) {
+            PeriodTotal total = new PeriodTotal();
+            streamTransactions(query, total::add);
+            return total;
+        }
+
+        List<Object> params = new ArrayList<>();
+        final String sql = """
+                SELECT COUNT(*) AS tx_count,
+                       SUM(CASE WHEN amount >= 0 THEN amount ELSE 0 END) AS deposits,
+                       SUM(CASE WHEN amount < 0 THEN amount ELSE 0 END) AS payments
+                FROM transactions
+                %s
+                """.formatted(query.whereClause(params));
+
+        Lock archived = Ledgers.database().archiveLock().readLock();
+        archived.lock();
+        try {
+            PeriodTotal live;
+            try (Connection c = readConnection();
+                 PreparedStatement ps = prepare(c, sql)) {
+
+                bind(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    live = new PeriodTotal(rs.getLong("tx_count"), cents(rs, "deposits"), cents(rs, "payments"));
+                }
+            }
+            return live.plus(LedgerArchive.total(query));
+        } catch (IOException e) {
+            throw new SQLException("Error reading archive: " + e.getMessage(), e);
+        } finally {
+            archived.unlock();
+        }
+    }
+
+    // SUM over no rows is NULL.
+    private static long cents(ResultSet rs, String column) throws SQLException {
+        java.math.BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? 0 : value.movePointRight(2).longValue();
+    }
+
+    /** Deposit/payment totals per year for the live table only (archived years come from segment summaries). */
+    static List<LedgerArchive.YearSummary> liveYearTotals() {
+        List<LedgerArchive.YearSummary> totals = new ArrayList<>();
+
+        final String sql = """
+                SELECT YEAR(tx_date) AS yr,
+                       COUNT(*) AS tx_count,
+                       SUM(CASE WHEN amount >= 0 THEN amount ELSE 0 END) AS deposits,
+                       SUM(CASE WHEN amount < 0 THEN amount ELSE 0 END) AS payments
+                FROM transactions
+                GROUP BY YEAR(tx_date)
+                """;
+
+        try (Connection c = readConnection();
+             PreparedStatement ps = prepare(c, sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                totals.add(new LedgerArchive.YearSummary(
+                        rs.getInt("yr"),
+                        rs.getLong("tx_count"),
+                        cents(rs, "deposits"),
+                        cents(rs, "payments")));
             }
         } catch (SQLException e) {
-            System.out.println("Error loading transactions: " + e.getMessage());
+            System.out.println("Error loading year totals: " + e.getMessage());
         }
+        return totals;
+    }
 
-        return transactions;
+    /**
+     * Archival hook: streams every row dated from..to (newest first) to the sink
+     * without buffering them, deletes them, runs {@code beforeCommit} (which puts the
+     * segment in place) and commits. The rows stay locked until then, and any failure
+     * rolls the delete back: if this throws, nothing was committed.
+     */
+    static void moveOutOfDatabase(LocalDate from, LocalDate to, Consumer<Transaction> sink,
+                                  Runnable beforeCommit) throws SQLException {
+        final String select = """
+                SELECT id, tx_date, tx_time, description, vendor, amount
+                FROM transactions
+                WHERE tx_date >= ? AND tx_date <= ?
+                ORDER BY tx_date DESC, tx_time DESC, id DESC
+                FOR UPDATE
+                """;
+        final String delete = "DELETE FROM transactions WHERE tx_date >= ? AND tx_date <= ?";
+
+        try (Connection c = writeConnection()) {
+            c.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = prepareStreaming(c, select)) {
+                    ps.setDate(1, Date.valueOf(from));
+                    ps.setDate(2, Date.valueOf(to));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            sink.accept(readTransaction(rs));
+                        }
+                    }
+                }
+                try (PreparedStatement ps = prepare(c, delete)) {
+                    ps.setDate(1, Date.valueOf(from));
+                    ps.setDate(2, Date.valueOf(to));
+                    ps.executeUpdate();
+                }
+                beforeCommit.run();
+                c.commit();
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+        // The delete may have taken a while; keep reads on the primary until replicas catch up.
+        Ledgers.database().markWritten();
+    }
+
+    private static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private static PreparedStatement prepare(Connection c, String sql) throws SQLException {
+        return track(c.prepareStatement(sql));
+    }
+
+    private static PreparedStatement prepare(Connection c, String sql, int autoGeneratedKeys) throws SQLException {
+        return track(c.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    // Every statement gets the configured timeout and can be stopped through the thread's QueryCancellation.
+    private static <S extends Statement> S track(S statement) throws SQLException {
+        statement.setQueryTimeout(DbConfig.getQueryTimeoutSeconds());
+        try {
+            QueryCancellation.track(statement);
+        } catch (CancellationException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    // Forward-only + Integer.MIN_VALUE fetch size makes MySQL stream rows instead of buffering them all.
+    // Other drivers (e.g. an embedded test database) reject that value and just get a large fetch size.
+    private static PreparedStatement prepareStreaming(Connection c, String sql) throws SQLException {
+        PreparedStatement ps = track(c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+        boolean mysql = c.getMetaData().getURL().startsWith("jdbc:mysql:");
+        ps.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+        return ps;
+    }
+
+    private static Transaction readTransaction(ResultSet rs) throws SQLException {
+        LocalDate date = rs.getDate("tx_date").toLocalDate();
+        LocalTime time = rs.getTime("tx_time").toLocalTime();
+        String description = rs.getString("description");
+        String vendor = rs.getString("vendor");
+        double amount = rs.getBigDecimal("amount").doubleValue();
+
+        return new Transaction(rs.getLong("id"), date, time, description, vendor, amount);
     }
 }
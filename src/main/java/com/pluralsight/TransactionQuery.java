@@ -0,0 +1,191 @@
+package com.pluralsight;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Multi-criteria search, parsed once and compiled into a single predicate.
+ *
+ * Date and amount ranges are also pushed down to SQL by
+ * {@link TransactionManager#findTransactions(TransactionQuery)}, so the
+ * predicate mostly has the text criteria left to check.
+ */
+public class TransactionQuery {
+
+    // Amounts are stored with two decimals, so "amount < 0" is "amount <= -0.01".
+    private static final BigDecimal LARGEST_PAYMENT = new BigDecimal("-0.01");
+
+    private final LocalDate startDate;   // inclusive, null = open
+    private final LocalDate endDate;     // inclusive, null = open
+    private final BigDecimal minAmount;  // inclusive, null = open
+    private final BigDecimal maxAmount;  // inclusive, null = open
+    private final String description;   // case-insensitive "contains", null = any
+    private final String vendor;        // case-insensitive "contains", null = any
+
+    private final Predicate<Transaction> predicate;
+
+    public TransactionQuery(LocalDate startDate, LocalDate endDate,
+                            BigDecimal minAmount, BigDecimal maxAmount,
+                            String description, String vendor) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.description = blankToNull(description);
+        this.vendor = blankToNull(vendor);
+        this.predicate = compile();
+    }
+
+    /**
+     * Builds a query from raw user input; blank fields mean "no filter".
+     *
+     * @throws IllegalArgumentException if a date or amount can't be parsed
+     */
+    public static TransactionQuery parse(String start, String end,
+                                         String minAmount, String maxAmount,
+                                         String description, String vendor) {
+        try {
+            return new TransactionQuery(
+                    isBlank(start) ? null : LocalDate.parse(start.trim()),
+                    isBlank(end) ? null : LocalDate.parse(end.trim()),
+                    isBlank(minAmount) ? null : new BigDecimal(minAmount.trim()),
+                    isBlank(maxAmount) ? null : new BigDecimal(maxAmount.trim()),
+                    description,
+                    vendor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates must look like YYYY-MM-DD.", e);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Amounts must be numbers (example: 12.50).", e);
+        } catch (ArithmeticException e) {
+            // More cents than a long holds (e.g. 1e30); see toCents.
+            throw new IllegalArgumentException("Amounts are too large.", e);
+        }
+    }
+
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public BigDecimal getMinAmount() { return minAmount; }
+    public BigDecimal getMaxAmount() { return maxAmount; }
+
+    /** The compiled predicate for every criterion (usable on in-memory rows too). */
+    public Predicate<Transaction> asPredicate() {
+        return predicate;
+    }
+
+    /** Only the text criteria; dates and amounts are assumed filtered by SQL. */
+    Predicate<Transaction> textPredicate() {
+        return textChecks(t -> true);
+    }
+
+    /**
+     * Orders the checks cheapest and most selective first:
+     * primitive amount compare, then epoch-day compare, then the substring scans.
+     * Criteria that weren't given don't appear in the chain at all.
+     */
+    private Predicate<Transaction> compile() {
+        Predicate<Transaction> p = t -> true;
+
+        if (minAmount != null || maxAmount != null) {
+            // Compare in cents so amounts like 0.1 + 0.2 don't miss by a rounding error.
+            long min = minAmount == null ? Long.MIN_VALUE : toCents(minAmount);
+            long max = maxAmount == null ? Long.MAX_VALUE : toCents(maxAmount);
+            p = p.and(t -> {
+                long cents = Math.round(t.getAmount() * 100);
+                return cents >= min && cents <= max;
+            });
+        }
+        if (startDate != null || endDate != null) {
+            long from = startDate == null ? Long.MIN_VALUE : startDate.toEpochDay();
+            long to = endDate == null ? Long.MAX_VALUE : endDate.toEpochDay();
+            p = p.and(t -> {
+                long day = t.getDate().toEpochDay();
+                return day >= from && day <= to;
+            });
+        }
+        return textChecks(p);
+    }
+
+    private Predicate<Transaction> textChecks(Predicate<Transaction> p) {
+        // Vendors are short, so check them before descriptions.
+        if (vendor != null) {
+            String needle = vendor;
+            p = p.and(t -> containsIgnoreCase(t.getVendor(), needle));
+        }
+        if (description != null) {
+            String needle = description;
+            p = p.and(t -> containsIgnoreCase(t.getDescription(), needle));
+        }
+        return p;
+    }
+
+    /** True when there are vendor/description criteria that SQL doesn't apply. */
+    boolean hasTextCriteria() {
+        return description != null || vendor != null;
+    }
+
+    /** True when any amount bound is set. */
+    boolean hasAmountCriteria() {
+        return minAmount != null || maxAmount != null;
+    }
+
+    /** Case-insensitive vendor check on its own (true when there's no vendor criterion). */
+    public boolean matchesVendor(String name) {
+        return vendor == null || containsIgnoreCase(name, vendor);
+    }
+
+    /** The same query narrowed to payments (amount < 0). */
+    public TransactionQuery payments() {
+        BigDecimal max = (maxAmount == null || maxAmount.compareTo(LARGEST_PAYMENT) > 0)
+                ? LARGEST_PAYMENT : maxAmount;
+        return new TransactionQuery(startDate, endDate, minAmount, max, description, vendor);
+    }
+
+    /** SQL WHERE fragment for the date/amount ranges (empty when there are none). */
+    String whereClause(List<Object> params) {
+        List<String> parts = new ArrayList<>();
+        if (startDate != null) { parts.add("tx_date >= ?"); params.add(java.sql.Date.valueOf(startDate)); }
+        if (endDate != null) { parts.add("tx_date <= ?"); params.add(java.sql.Date.valueOf(endDate)); }
+        if (minAmount != null) { parts.add("amount >= ?"); params.add(minAmount); }
+        if (maxAmount != null) { parts.add("amount <= ?"); params.add(maxAmount); }
+        return parts.isEmpty() ? "" : "WHERE " + String.join(" AND ", parts);
+    }
+
+    // Case-insensitive contains without lower-casing (and copying) every row's text.
+    static boolean containsIgnoreCase(String haystack, String needle) {
+        if (haystack == null) return false;
+        int max = haystack.length() - needle.length();
+        for (int i = 0; i <= max; i++) {
+            if (haystack.regionMatches(true, i, needle, 0, needle.length())) return true;
+        }
+        return false;
+    }
+
+    // Throws ArithmeticException if the amount doesn't fit in a long of cents.
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static String blankToNull(String s) {
+        return isBlank(s) ? null : s.trim();
+    }
+
+    public String toString() {
+        List<String> parts = new ArrayList<>();
+        if (startDate != null) parts.add("from " + startDate);
+        if (endDate != null) parts.add("to " + endDate);
+        if (minAmount != null) parts.add("amount >= " + minAmount);
+        if (maxAmount != null) parts.add("amount <= " + maxAmount);
+        if (vendor != null) parts.add("vendor ~ " + vendor);
+        if (description != null) parts.add("description ~ " + description);
+        return parts.isEmpty() ? "all transactions" : String.join(", ", parts);
+    }
+}
@@ -0,0 +1,59 @@
+package com.pluralsight;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Exact "top spending vendors" report.
+ *
+ * Vendor totals are grouped by the database and streamed in; only the best
+ * N seen so far are kept, in a min-heap whose root is the current N-th place.
+ * Memory is O(N) no matter how many distinct vendors the ledger has.
+ */
+public class VendorRanking {
+
+    private static final Comparator<VendorTotal> BY_SPENT =
+            Comparator.comparingDouble(VendorTotal::getSpent);
+
+    /**
+     * Returns the N vendors with the most spent on payments in the query's range, biggest first.
+     *
+     * @throws SQLException if the database query fails (reading the archive throws UncheckedIOException)
+     */
+    public static List<VendorTotal> topVendors(int n, TransactionQuery query) throws SQLException {
+        PriorityQueue<VendorTotal> heap = new PriorityQueue<>(Math.max(1, n), BY_SPENT);
+        TransactionManager.forEachVendorSpend(query, v -> offer(heap, n, v));
+        return sorted(heap);
+    }
+
+    /** Top N of vendor totals that are already in memory (e.g. merged from several ledgers). */
+    public static List<VendorTotal> topOf(int n, Iterable<VendorTotal> totals) {
+        PriorityQueue<VendorTotal> heap = new PriorityQueue<>(Math.max(1, n), BY_SPENT);
+        for (VendorTotal v : totals) offer(heap, n, v);
+        return sorted(heap);
+    }
+
+    private static void offer(PriorityQueue<VendorTotal> heap, int n, VendorTotal v) {
+        if (n <= 0) return;
+        if (heap.size() < n) {
+            heap.add(v);
+        } else if (v.getSpent() > heap.peek().getSpent()) {
+            // Replace the smallest of the current top N.
+            heap.poll();
+            heap.add(v);
+        }
+    }
+
+    private static List<VendorTotal> sorted(PriorityQueue<VendorTotal> heap) {
+        List<VendorTotal> top = new ArrayList<>(heap);
+        top.sort(BY_SPENT.reversed());
+        return top;
+    }
+
+    private VendorRanking() {
+        // no instances
+    }
+}
@@ -0,0 +1,29 @@
+package com.pluralsight;
+
+/**
+ * How much was spent at one vendor, and over how many payments.
+ */
+public class VendorTotal {
+    private final String vendor;
+    private final double spent;
+    private final long count;
+
+    public VendorTotal(String vendor, double spent, long count) {
+        this.vendor = vendor;
+        this.spent = spent;
+        this.count = count;
+    }
+
+    // Getters
+    public String getVendor() { return vendor; }
+    public double getSpent() { return spent; }
+    public long getCount() { return count; }
+
+    VendorTotal plus(VendorTotal other) {
+        return new VendorTotal(vendor, spent + other.spent, count + other.count);
+    }
+
+    public String toString() {
+        return String.format("%-25s | %8d | %12.2f", vendor, count, spent);
+    }
+}
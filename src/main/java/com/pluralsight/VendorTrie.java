@@ -0,0 +1,176 @@
+package com.pluralsight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Prefix trie of vendor names for autocomplete, ranked by how often each vendor
+ * is used.
+ *
+ * Matching ignores case; spellings that differ only in case count as one vendor,
+ * shown the way it is spelled most often. Short prefixes match thousands of
+ * vendors, so every node with more than {@link #CACHE_FROM} vendors below it
+ * keeps its top {@link #TOP} ready; smaller subtrees are simply walked. Either
+ * way a lookup never looks at more than {@link #CACHE_FROM} vendors. Counts only
+ * go up, which is what keeps the cached lists exact.
+ *
+ * Not thread-safe; the Add tab uses it on the event thread only.
+ */
+public class VendorTrie {
+
+    static final int TOP = 10;
+    static final int CACHE_FROM = 64;
+
+    private static final Comparator<Vendor> RANKING = Comparator.comparingLong((Vendor v) -> v.count).reversed()
+            .thenComparing(v -> v.name);
+
+    /** A vendor at the end of its path. */
+    private static class Vendor {
+        String name;        // spelling with the largest single add (i.e. GROUP BY row)
+        long nameCount;
+        long count;
+
+        Vendor(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final char[] NO_KEYS = {};
+    private static final Node[] NO_CHILDREN = {};
+
+    private static class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        Vendor vendor;
+        int vendorsBelow;   // including this node's own
+        Vendor[] top;       // best TOP below, best first; only on large subtrees
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node n = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = n;
+            return n;
+        }
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    /** Number of distinct vendors (ignoring case). */
+    public int size() {
+        return size;
+    }
+
+    /** Records one more use of {@code vendor} (a save). */
+    public void add(String vendor) {
+        add(vendor, 1);
+    }
+
+    /** Records {@code count} uses of {@code vendor} (e.g. one GROUP BY row). */
+    public void add(String vendor, long count) {
+        String name = vendor == null ? "" : vendor.strip();
+        if (name.isEmpty() || count <= 0) return;
+        String key = name.toLowerCase(Locale.ROOT);
+
+        // Find or create the path; remember it to update the counts and lists on the way back.
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node next = node.child(key.charAt(i));
+            node = next != null ? next : node.addChild(key.charAt(i));
+            path[i + 1] = node;
+        }
+
+        Vendor v = node.vendor;
+        boolean isNew = v == null;
+        if (isNew) {
+            v = node.vendor = new Vendor(name);
+            size++;
+        }
+        v.count += count;
+        if (count > v.nameCount) {
+            v.name = name;
+            v.nameCount = count;
+        }
+
+        for (Node n : path) {
+            if (isNew) n.vendorsBelow++;
+            if (n.top != null) n.top = promote(n.top, v);
+            else if (n.vendorsBelow > CACHE_FROM) n.top = collect(n, TOP).toArray(new Vendor[0]);
+        }
+    }
+
+    /**
+     * Up to {@code limit} (at most {@link #TOP}) vendors starting with {@code prefix}
+     * (ignoring case), most used first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = prefix == null ? "" : prefix.stripLeading().toLowerCase(Locale.ROOT);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        List<String> names = new ArrayList<>();
+        if (node == null || limit <= 0) return names;
+        limit = Math.min(limit, TOP);
+
+        List<Vendor> best = node.top != null
+                ? Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length))
+                : collect(node, limit);
+        for (Vendor v : best) names.add(v.name);
+        return names;
+    }
+
+    // v's count went up: move it to its place in the list, or into it if it now beats the last one.
+    private static Vendor[] promote(Vendor[] top, Vendor v) {
+        int at = -1;
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == v) at = i;
+        }
+        if (at < 0) {
+            if (top.length == TOP && RANKING.compare(v, top[TOP - 1]) >= 0) return top;
+            top = top.length < TOP ? Arrays.copyOf(top, top.length + 1) : top;
+            at = top.length - 1;
+            top[at] = v;
+        }
+        while (at > 0 && RANKING.compare(top[at], top[at - 1]) < 0) {
+            Vendor tmp = top[at - 1];
+            top[at - 1] = top[at];
+            top[at] = tmp;
+            at--;
+        }
+        return top;
+    }
+
+    // The best `limit` vendors under `node`, walking the subtree with a bounded heap.
+    private static List<Vendor> collect(Node node, int limit) {
+        PriorityQueue<Vendor> heap = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        List<Node> stack = new ArrayList<>();
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            Node n = stack.remove(stack.size() - 1);
+            if (n.vendor != null) {
+                heap.add(n.vendor);
+                if (heap.size() > limit) heap.poll();
+            }
+            stack.addAll(Arrays.asList(n.children));
+        }
+        List<Vendor> best = new ArrayList<>(heap);
+        best.sort(RANKING);
+        return best;
+    }
+}
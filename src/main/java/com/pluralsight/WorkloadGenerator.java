@@ -0,0 +1,139 @@
+package com.pluralsight;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Produces realistic-looking synthetic transactions for filling a test ledger.
+ *
+ * - Vendors follow a Zipf distribution: a few vendors get most of the payments,
+ *   with a long tail that shows up only now and then.
+ * - Dates are seasonal: busier in November/December, quieter in January and
+ *   February, and busier on weekends.
+ * - Times cluster around the afternoon.
+ * - Payment amounts are log-normal around a typical amount per vendor; about one
+ *   row in twelve is a deposit (pay cheques, refunds).
+ *
+ * The same seed always produces the same rows. Not thread-safe; use one generator
+ * per thread (with different seeds).
+ */
+public class WorkloadGenerator {
+
+    private static final String[] BRANDS = {
+            "Amazon", "Walmart", "Target", "Costco", "Starbucks", "Shell", "Kroger", "Home Depot",
+            "Netflix", "Spotify", "Uber", "Lyft", "Whole Foods", "Chipotle", "CVS", "Walgreens",
+            "Best Buy", "IKEA", "Apple", "Comcast", "Verizon", "PG&E", "Trader Joe's", "Safeway"
+    };
+    private static final String[] CATEGORIES = {
+            "Groceries", "Fuel", "Dining", "Subscription", "Household", "Utilities", "Travel", "Pharmacy"
+    };
+    private static final String[] DEPOSITS = {"Payroll", "Refund", "Transfer In", "Interest"};
+
+    // Relative activity per month (Jan..Dec) and per weekday (Mon..Sun).
+    private static final double[] MONTH_WEIGHT = {0.7, 0.75, 0.9, 0.95, 1.0, 1.05, 1.1, 1.05, 0.95, 1.0, 1.3, 1.6};
+    private static final double[] WEEKDAY_WEIGHT = {0.85, 0.85, 0.9, 0.95, 1.15, 1.3, 1.1};
+
+    private final Random random;
+    private final String[] vendors;
+    private final double[] vendorMedian;   // typical payment per vendor
+    private final double[] vendorCdf;      // Zipf
+    private final LocalDate firstDay;
+    private final double[] dayCdf;         // seasonal
+
+    /**
+     * @param vendorCount number of distinct vendors (rank 1 is the most frequent)
+     * @param zipfExponent skew of the vendor distribution (around 1.0 is typical)
+     */
+    public WorkloadGenerator(long seed, int vendorCount, double zipfExponent, LocalDate from, LocalDate to) {
+        if (vendorCount < 1) throw new IllegalArgumentException("vendorCount must be at least 1");
+        if (to.isBefore(from)) throw new IllegalArgumentException("to must not be before from");
+
+        this.random = new Random(seed);
+        this.firstDay = from;
+
+        // Vendor names and typical amounts don't depend on the seed, so every
+        // generator (one per writer thread) agrees on who vendor #n is.
+        Random fixed = new Random(42);
+        vendors = new String[vendorCount];
+        vendorMedian = new double[vendorCount];
+        double[] weights = new double[vendorCount];
+        for (int i = 0; i < vendorCount; i++) {
+            vendors[i] = i < BRANDS.length ? BRANDS[i] : BRANDS[i % BRANDS.length] + " #" + (i / BRANDS.length);
+            vendorMedian[i] = Math.exp(2 + fixed.nextDouble() * 3.5);   // about $7 .. $245
+            weights[i] = 1.0 / Math.pow(i + 1, zipfExponent);
+        }
+        vendorCdf = cumulative(weights);
+
+        int days = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+        double[] dayWeights = new double[days];
+        for (int i = 0; i < days; i++) {
+            LocalDate d = from.plusDays(i);
+            dayWeights[i] = MONTH_WEIGHT[d.getMonthValue() - 1] * WEEKDAY_WEIGHT[d.getDayOfWeek().getValue() - 1];
+        }
+        dayCdf = cumulative(dayWeights);
+    }
+
+    /** A year of history ending today, 500 vendors with a typical Zipf skew. */
+    public static WorkloadGenerator typical(long seed) {
+        LocalDate today = LocalDate.now();
+        return new WorkloadGenerator(seed, 500, 1.07, today.minusYears(1).plusDays(1), today);
+    }
+
+    public Transaction next() {
+        LocalDate date = firstDay.plusDays(pick(dayCdf));
+        LocalTime time = nextTime(date.getDayOfWeek());
+
+        if (random.nextInt(12) == 0) {
+            String source = DEPOSITS[random.nextInt(DEPOSITS.length)];
+            double amount = source.equals("Payroll") ? logNormal(2400, 0.25) : logNormal(60, 1.0);
+            return new Transaction(date, time, source, "Employer / Bank", round(amount));
+        }
+
+        int v = pick(vendorCdf);
+        String description = CATEGORIES[v % CATEGORIES.length];
+        return new Transaction(date, time, description, vendors[v], -round(logNormal(vendorMedian[v], 0.6)));
+    }
+
+    public String getVendor(int rank) {
+        return vendors[rank];
+    }
+
+    public int getVendorCount() {
+        return vendors.length;
+    }
+
+    // Around 14:00 on weekdays, a bit later on weekends; whole seconds like the database.
+    private LocalTime nextTime(DayOfWeek day) {
+        double center = day.getValue() >= 6 ? 15.5 : 14.0;
+        double hours = Math.max(0, Math.min(23.999, center + random.nextGaussian() * 3.5));
+        return LocalTime.ofSecondOfDay((long) (hours * 3600));
+    }
+
+    private double logNormal(double median, double sigma) {
+        return median * Math.exp(random.nextGaussian() * sigma);
+    }
+
+    private static double round(double amount) {
+        return Math.max(0.01, Math.round(amount * 100) / 100.0);
+    }
+
+    private int pick(double[] cdf) {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+    }
+
+    // Normalized running sum, so a uniform [0,1) draw can be looked up by binary search.
+    private static double[] cumulative(double[] weights) {
+        double[] cdf = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < cdf.length; i++) cdf[i] /= sum;
+        return cdf;
+    }
+}
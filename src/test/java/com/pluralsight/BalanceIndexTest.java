@@ -0,0 +1,110 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BalanceIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private static LedgerRow row(LocalDate date, long cents) {
+        return new LedgerRow(new Transaction(date, LocalTime.NOON, "test", "vendor", cents / 100.0));
+    }
+
+    // Brute force: everything dated on or before the day.
+    private static long expected(List<LedgerRow> rows, long epochDay) {
+        long sum = 0;
+        for (LedgerRow r : rows) {
+            if (r.getEpochDay() <= epochDay) sum += r.getCents();
+        }
+        return sum;
+    }
+
+    private static void assertMatches(BalanceIndex index, List<LedgerRow> rows, long fromDay, long toDay) {
+        for (long day = fromDay; day <= toDay; day++) {
+            assertEquals(expected(rows, day), index.sumThrough(day), "balance through " + LocalDate.ofEpochDay(day));
+        }
+        assertEquals(expected(rows, Long.MAX_VALUE), index.total());
+    }
+
+    @Test
+    void emptyIndexIsZeroEverywhere() {
+        BalanceIndex index = new BalanceIndex();
+        index.rebuild(List.of());
+        assertEquals(0, index.sumThrough(START.toEpochDay()));
+        assertEquals(0, index.total());
+    }
+
+    @Test
+    void prefixSumsMatchBruteForce() {
+        Random random = new Random(42);
+        List<LedgerRow> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(row(START.plusDays(random.nextInt(400)), random.nextInt(20_000) - 12_000));
+        }
+        BalanceIndex index = new BalanceIndex();
+        index.rebuild(rows);
+
+        // Including days before the first row and after the last one.
+        assertMatches(index, rows, START.toEpochDay() - 10, START.toEpochDay() + 410);
+    }
+
+    @Test
+    void addBelowTheOriginGrowsTheWindow() {
+        List<LedgerRow> rows = new ArrayList<>(List.of(row(START, 1_000), row(START.plusDays(3), -250)));
+        BalanceIndex index = new BalanceIndex();
+        index.rebuild(rows);
+
+        // Far before the slack kept below the first day, then far after the end.
+        LedgerRow older = row(START.minusYears(5), 700);
+        LedgerRow newer = row(START.plusYears(4), -300);
+        for (LedgerRow r : List.of(older, newer)) {
+            index.add(r.getEpochDay(), r.getCents());
+            rows.add(r);
+        }
+
+        assertMatches(index, rows, START.minusYears(5).toEpochDay() - 2, START.minusYears(5).toEpochDay() + 2);
+        assertMatches(index, rows, START.toEpochDay() - 2, START.toEpochDay() + 5);
+        assertMatches(index, rows, START.plusYears(4).toEpochDay() - 2, START.plusYears(4).toEpochDay() + 2);
+    }
+
+    @Test
+    void addToAnEmptyIndex() {
+        BalanceIndex index = new BalanceIndex();
+        index.add(START.toEpochDay(), 1_234);
+        assertEquals(0, index.sumThrough(START.toEpochDay() - 1));
+        assertEquals(1_234, index.sumThrough(START.toEpochDay()));
+        assertEquals(1_234, index.total());
+    }
+
+    @Test
+    void editAndDeleteAsPointUpdates() {
+        Random random = new Random(7);
+        List<LedgerRow> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add(row(START.plusDays(random.nextInt(100)), random.nextInt(10_000) - 5_000));
+        }
+        BalanceIndex index = new BalanceIndex();
+        index.rebuild(rows);
+
+        for (int i = 0; i < 100; i++) {
+            LedgerRow old = rows.remove(random.nextInt(rows.size()));
+            index.add(old.getEpochDay(), -old.getCents());           // delete
+            if (i % 2 == 0) {
+                // Edit: the same row moved to another day with another amount.
+                LedgerRow edited = row(START.plusDays(random.nextInt(100)), random.nextInt(10_000) - 5_000);
+                index.add(edited.getEpochDay(), edited.getCents());
+                rows.add(edited);
+            }
+        }
+
+        assertMatches(index, rows, START.toEpochDay() - 1, START.toEpochDay() + 101);
+    }
+}
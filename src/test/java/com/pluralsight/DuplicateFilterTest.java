@@ -0,0 +1,175 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The fingerprint and Bloom filter, and the duplicate paths of the saves on an
+ * embedded H2 ledger with one connection (so a save that borrowed a second one
+ * would stall) and one archived year.
+ */
+class DuplicateFilterTest {
+
+    private static final Transaction ARCHIVED = new Transaction(LocalDate.of(2020, 5, 4), LocalTime.of(10, 30),
+            "Groceries", "Corner Shop", -42.10);
+
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void createLedger() throws Exception {
+        System.setProperty("ledger.db.url", "jdbc:h2:" + dir.resolve("db/ledger") + ";MODE=MySQL");
+        System.setProperty("ledger.archive.dir", dir.resolve("archive").toString());
+        System.setProperty("ledger.cache.dir", dir.resolve("cache").toString());
+        System.setProperty("ledger.db.poolSize", "1");
+
+        TransactionManager.saveTransactions(List.of(ARCHIVED,
+                new Transaction(LocalDate.of(2020, 8, 1), LocalTime.NOON, "Rent", "Landlord", -900)));
+        LedgerArchive.archiveYear(2020);
+    }
+
+    @AfterAll
+    static void closeLedger() {
+        TransactionManager.shutdown();
+        System.clearProperty("ledger.db.poolSize");
+    }
+
+    private static Transaction live(String description, double amount) {
+        return new Transaction(LocalDate.of(2024, 2, 3), LocalTime.of(9, 15), description, "Cafe", amount);
+    }
+
+    @Test
+    void fingerprintIgnoresCaseAndExtraSpaces() {
+        Transaction t = live("Morning coffee", -3.50);
+        assertEquals(DuplicateFilter.fingerprint(t), DuplicateFilter.fingerprint(
+                new Transaction(t.getDate(), t.getTime(), "  morning   COFFEE ", " cafe", -3.50)));
+
+        // Every field counts, including the amount to the cent and the time to the second.
+        assertNotEquals(DuplicateFilter.fingerprint(t), DuplicateFilter.fingerprint(live("Morning coffee", -3.51)));
+        assertNotEquals(DuplicateFilter.fingerprint(t), DuplicateFilter.fingerprint(
+                new Transaction(t.getDate(), t.getTime().plusSeconds(1), "Morning coffee", "Cafe", -3.50)));
+        // Fields don't run into each other.
+        assertNotEquals(DuplicateFilter.fingerprint(new Transaction(t.getDate(), t.getTime(), "ab", "c", 1)),
+                DuplicateFilter.fingerprint(new Transaction(t.getDate(), t.getTime(), "a", "bc", 1)));
+    }
+
+    @Test
+    void filterHasNoFalseNegativesAndFewFalsePositives() {
+        Random random = new Random(3);
+        DuplicateFilter filter = new DuplicateFilter(50_000);
+        long[] added = new long[50_000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = random.nextLong();
+            filter.add(added[i]);
+        }
+        for (long f : added) assertTrue(filter.mightContain(f));
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(random.nextLong())) falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+        assertFalse(filter.isFull());
+    }
+
+    @Test
+    void filterFillsUpPastItsCapacity() {
+        DuplicateFilter filter = new DuplicateFilter(0);
+        for (long i = 0; i <= 100_000; i++) filter.add(i * 0x9E3779B97F4A7C15L);
+        assertTrue(filter.isFull());
+    }
+
+    @Test
+    void secondSaveIsADuplicate() {
+        long id = TransactionManager.saveTransaction(live("Lunch", -12.00));
+        assertTrue(id > 0);
+        assertEquals(TransactionManager.DUPLICATE, TransactionManager.saveTransaction(live(" LUNCH ", -12.00)));
+        assertTrue(TransactionManager.saveTransaction(live("Lunch", -12.01)) > 0);
+    }
+
+    @Test
+    void rowSavedBehindTheFiltersBackIsStillADuplicate() throws Exception {
+        Transaction t = live("Saved by another process", -7.25);
+        try (Connection c = Ledgers.database().writeConnection();
+             PreparedStatement ps = c.prepareStatement("INSERT INTO transactions "
+                     + "(tx_date, tx_time, description, vendor, amount, fingerprint) VALUES (?, ?, ?, ?, ?, ?)")) {
+            ps.setObject(1, t.getDate());
+            ps.setObject(2, t.getTime());
+            ps.setString(3, t.getDescription());
+            ps.setString(4, t.getVendor());
+            ps.setDouble(5, t.getAmount());
+            ps.setLong(6, DuplicateFilter.fingerprint(t));
+            ps.executeUpdate();
+        }
+        assertEquals(TransactionManager.DUPLICATE, TransactionManager.saveTransaction(t));
+    }
+
+    @Test
+    void bulkSaveSkipsSavedRowsAndRepeats() throws Exception {
+        Transaction saved = live("Bulk saved", -1.00);
+        assertTrue(TransactionManager.saveTransaction(saved) > 0);
+
+        Transaction fresh = live("Bulk fresh", -2.00);
+        assertEquals(1, TransactionManager.saveTransactions(List.of(saved, fresh, live("bulk  FRESH", -2.00))));
+        assertEquals(0, TransactionManager.saveTransactions(List.of(fresh)));
+    }
+
+    @Test
+    void updateOntoAnotherRowIsRefused() {
+        assertTrue(TransactionManager.saveTransaction(live("Taken", -5.00)) > 0);
+        long id = TransactionManager.saveTransaction(live("Free", -5.00));
+        assertTrue(id > 0);
+
+        Transaction t = live("Taken", -5.00);
+        assertFalse(TransactionManager.updateTransaction(new Transaction(id, t.getDate(), t.getTime(),
+                t.getDescription(), t.getVendor(), t.getAmount())));
+        // Saving a row over itself is not a duplicate.
+        assertTrue(TransactionManager.updateTransaction(new Transaction(id, t.getDate(), t.getTime(),
+                "Free", t.getVendor(), t.getAmount())));
+    }
+
+    @Test
+    void archivedRowsAreDuplicatesToo() throws Exception {
+        Transaction again = new Transaction(ARCHIVED.getDate(), ARCHIVED.getTime(), "groceries",
+                "CORNER SHOP", ARCHIVED.getAmount());
+        assertEquals(TransactionManager.DUPLICATE, TransactionManager.saveTransaction(again));
+
+        Transaction late = new Transaction(ARCHIVED.getDate(), ARCHIVED.getTime(), "Late entry", "Corner Shop", -1);
+        assertEquals(1, TransactionManager.saveTransactions(List.of(again, late)));
+
+        long id = TransactionManager.saveTransaction(live("Moved back", -42.10));
+        assertTrue(id > 0);
+        assertFalse(TransactionManager.updateTransaction(new Transaction(id, ARCHIVED.getDate(), ARCHIVED.getTime(),
+                ARCHIVED.getDescription(), ARCHIVED.getVendor(), ARCHIVED.getAmount())));
+    }
+
+    @Test
+    void reloadingTheFilterDoesNotNeedASecondConnection() {
+        // With one pooled connection, loading the filter while holding the write connection would stall.
+        Ledgers.database().reloadDuplicates();
+        long id = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> TransactionManager.saveTransaction(live("After reload", -9.99)));
+        assertTrue(id > 0);
+
+        Ledgers.database().reloadDuplicates();
+        assertEquals(TransactionManager.DUPLICATE, assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> TransactionManager.saveTransaction(live("After reload", -9.99))));
+    }
+}
@@ -0,0 +1,88 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeavyHittersTest {
+
+    // Skewed stream: a few big vendors among many small ones, weights without ties.
+    private static String vendor(Random random) {
+        return random.nextInt(4) == 0 ? "Big " + random.nextInt(5) : "Small " + random.nextInt(5_000);
+    }
+
+    @Test
+    void sameCountersAsALinearScanForTheSmallest() {
+        Random random = new Random(9);
+        int capacity = 64;
+        HeavyHitters hitters = new HeavyHitters(capacity);
+
+        // Space-Saving with the smallest counter found by scanning every counter.
+        Map<String, double[]> expected = new HashMap<>();   // vendor -> {spent, error}
+        for (int i = 0; i < 50_000; i++) {
+            String v = vendor(random);
+            double weight = 1 + random.nextDouble() * 100;
+            hitters.offer(v, weight);
+
+            double[] c = expected.get(v);
+            if (c != null) {
+                c[0] += weight;
+            } else if (expected.size() < capacity) {
+                expected.put(v, new double[]{weight, 0});
+            } else {
+                String min = null;
+                for (Map.Entry<String, double[]> e : expected.entrySet()) {
+                    if (min == null || e.getValue()[0] < expected.get(min)[0]) min = e.getKey();
+                }
+                double[] old = expected.remove(min);
+                expected.put(v, new double[]{old[0] + weight, old[0]});
+            }
+        }
+
+        List<HeavyHitters.Counter> all = hitters.getTop(capacity);
+        assertEquals(expected.size(), all.size());
+        for (HeavyHitters.Counter c : all) {
+            double[] e = expected.get(c.vendor);
+            assertNotNull(e, c.vendor);
+            assertEquals(e[0], c.spent, 1e-6);
+            assertEquals(e[1], c.error, 1e-6);
+        }
+    }
+
+    @Test
+    void heavyVendorsAreKeptWithinTheirBounds() {
+        Random random = new Random(4);
+        int capacity = 40;
+        HeavyHitters hitters = new HeavyHitters(capacity);
+        Map<String, Double> exact = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String v = vendor(random);
+            double weight = 1 + random.nextInt(50);
+            hitters.offer(v, weight);
+            exact.merge(v, weight, Double::sum);
+        }
+
+        double total = exact.values().stream().mapToDouble(Double::doubleValue).sum();
+        assertEquals(total, hitters.getTotal(), 1e-6);
+
+        Map<String, HeavyHitters.Counter> kept = new HashMap<>();
+        for (HeavyHitters.Counter c : hitters.getTop(capacity)) kept.put(c.vendor, c);
+        for (Map.Entry<String, Double> e : exact.entrySet()) {
+            HeavyHitters.Counter c = kept.get(e.getKey());
+            if (e.getValue() > total / capacity) assertNotNull(c, e.getKey() + " is above total / capacity");
+            if (c != null) {
+                assertTrue(c.spent >= e.getValue() - 1e-6 && c.spent - c.error <= e.getValue() + 1e-6, e.getKey());
+            }
+        }
+
+        List<HeavyHitters.Counter> top = hitters.getTop(5);
+        for (HeavyHitters.Counter c : top) assertTrue(c.vendor.startsWith("Big "), c.vendor);
+    }
+}
@@ -0,0 +1,112 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cross-ledger reports over two embedded H2 ledgers ("east" and "west"), one of
+ * them with an archived year.
+ */
+class LedgerFanOutTest {
+
+    private static final TransactionQuery ALL = new TransactionQuery(null, null, null, null, null, null);
+
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void createLedgers() throws Exception {
+        System.setProperty("ledger.ids", "east,west");
+        System.setProperty("ledger.east.db.url", "jdbc:h2:" + dir.resolve("east") + ";MODE=MySQL");
+        System.setProperty("ledger.west.db.url", "jdbc:h2:" + dir.resolve("west") + ";MODE=MySQL");
+        System.setProperty("ledger.archive.dir", dir.resolve("archive").toString());
+        System.setProperty("ledger.cache.dir", dir.resolve("cache").toString());
+
+        // Dora is never first in either ledger but is first overall.
+        save("east", payment(2020, "Alpha", 50), payment(2024, "Bravo", 30), payment(2024, "Dora", 40),
+                deposit(2024, 1000));
+        save("west", payment(2024, "Alpha", 10), payment(2024, "Charlie", 70), payment(2024, "Bravo", 25),
+                payment(2024, "Dora", 40), deposit(2024, 500));
+        Ledgers.withLedger("east", () -> LedgerArchive.archiveYear(2020));
+    }
+
+    @AfterAll
+    static void closeLedgers() {
+        TransactionManager.shutdown();
+        System.clearProperty("ledger.ids");
+    }
+
+    private static Transaction payment(int year, String vendor, double amount) {
+        return new Transaction(LocalDate.of(year, 3, 1), LocalTime.NOON, "payment", vendor, -amount);
+    }
+
+    private static Transaction deposit(int year, double amount) {
+        return new Transaction(LocalDate.of(year, 3, 2), LocalTime.NOON, "deposit", "Employer", amount);
+    }
+
+    private static void save(String ledger, Transaction... rows) throws Exception {
+        Ledgers.withLedger(ledger, () -> TransactionManager.saveTransactions(List.of(rows)));
+    }
+
+    private static List<String> names(List<VendorTotal> top) {
+        List<String> names = new ArrayList<>();
+        for (VendorTotal v : top) names.add(v.getVendor() + "=" + Math.round(v.getSpent()));
+        return names;
+    }
+
+    @Test
+    void topVendorsSumsEveryLedgerBeforeRanking() throws SQLException {
+        List<VendorTotal> top = LedgerFanOut.topVendors(3, ALL);
+        assertEquals(List.of("Dora=80", "Charlie=70", "Alpha=60"), names(top));
+        assertEquals(2, top.get(0).getCount());
+    }
+
+    @Test
+    void eachLedgerRanksOnlyItsOwnRows() throws Exception {
+        List<VendorTotal> east = Ledgers.withLedger("east", () -> VendorRanking.topVendors(1, ALL));
+        List<VendorTotal> west = Ledgers.withLedger("west", () -> VendorRanking.topVendors(1, ALL));
+        assertEquals(List.of("Alpha=50"), names(east));     // from the archived year
+        assertEquals(List.of("Charlie=70"), names(west));
+    }
+
+    @Test
+    void periodTotalsPerLedgerAndCombined() throws SQLException {
+        Map<String, PeriodTotal> perLedger = LedgerFanOut.periodTotals(ALL);
+        assertEquals(List.of("east", "west"), new ArrayList<>(perLedger.keySet()));
+        assertEquals(4, perLedger.get("east").getRowCount());
+        assertEquals(-12_000, perLedger.get("east").getPaymentCents());
+        assertEquals(5, perLedger.get("west").getRowCount());
+
+        PeriodTotal all = LedgerFanOut.combine(perLedger);
+        assertEquals(9, all.getRowCount());
+        assertEquals(150_000, all.getDepositCents());
+        assertEquals(-26_500, all.getPaymentCents());
+    }
+
+    @Test
+    void oneFailingLedgerFailsTheWholeReport() {
+        System.setProperty("ledger.ids", "east,west,broken");
+        System.setProperty("ledger.broken.db.url", "jdbc:h2:" + dir.resolve("missing") + ";IFEXISTS=TRUE");
+        try {
+            SQLException e = assertThrows(SQLException.class, () -> LedgerFanOut.topVendors(3, ALL));
+            assertTrue(e.getMessage().contains("broken"), e.getMessage());
+            assertThrows(SQLException.class, () -> LedgerFanOut.periodTotals(ALL));
+        } finally {
+            System.setProperty("ledger.ids", "east,west");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.AbstractTableModel;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class LedgerRowSorterTest {
+
+    // One long column; the key is the value.
+    private static LedgerRowSorter sorter(long... keys) {
+        return new LedgerRowSorter(new KeysModel(keys));
+    }
+
+    private static int[] viewOrder(LedgerRowSorter sorter, SortOrder order) {
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(0, order)));
+        int[] v = new int[sorter.getViewRowCount()];
+        for (int i = 0; i < v.length; i++) v[i] = sorter.convertRowIndexToModel(i);
+        return v;
+    }
+
+    @Test
+    void oppositeOrderWithDistinctKeysIsReversed() {
+        assertArrayEquals(new int[]{3, 2, 1, 0}, viewOrder(sorter(40, 30, 20, 10), SortOrder.ASCENDING));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, viewOrder(sorter(40, 30, 20, 10), SortOrder.DESCENDING));
+    }
+
+    @Test
+    void equalKeysKeepTheModelOrderWhenTheOrderFlips() {
+        // Descending with ties (e.g. rows sharing a day): ascending must not reverse the tied rows.
+        assertArrayEquals(new int[]{4, 2, 3, 0, 1}, viewOrder(sorter(30, 30, 20, 20, 10), SortOrder.ASCENDING));
+        assertArrayEquals(new int[]{1, 2, 0, 3}, viewOrder(sorter(5, 7, 7, 5), SortOrder.DESCENDING));
+    }
+
+    private static final class KeysModel extends AbstractTableModel implements LedgerRowSorter.KeyedModel {
+        private final long[] keys;
+
+        KeysModel(long[] keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public int getRowCount() {
+            return keys.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 1;
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return keys[row];
+        }
+
+        @Override
+        public long getSortKey(int row, int column) {
+            return keys[row];
+        }
+    }
+}
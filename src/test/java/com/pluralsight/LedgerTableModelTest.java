@@ -0,0 +1,173 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.SwingUtilities;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Running balances in {@link LedgerTableModel} after loads, back-dated inserts, edits
+ * and deletes, checked against a brute-force sum over the saved rows (embedded H2).
+ */
+class LedgerTableModelTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    // Oldest first, the reverse of the table's newest-first order.
+    private static final Comparator<Transaction> OLDEST_FIRST = Comparator.comparing(Transaction::getDate)
+            .thenComparing(Transaction::getTime).thenComparingLong(Transaction::getId);
+
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void createLedger() throws Exception {
+        System.setProperty("ledger.db.url", "jdbc:h2:" + dir.resolve("db/ledger") + ";MODE=MySQL");
+        System.setProperty("ledger.archive.dir", dir.resolve("archive").toString());
+        System.setProperty("ledger.cache.dir", dir.resolve("cache").toString());
+
+        Random random = new Random(11);
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            rows.add(randomTransaction(random, "seed " + i));
+        }
+        TransactionManager.saveTransactions(rows);
+    }
+
+    @AfterAll
+    static void closeLedger() {
+        TransactionManager.shutdown();
+    }
+
+    // Few days and few times, so many rows share a day (and some a second).
+    private static Transaction randomTransaction(Random random, String description) {
+        return new Transaction(START.plusDays(random.nextInt(40)), LocalTime.of(8 + random.nextInt(3), 0),
+                description, "Vendor " + random.nextInt(5), (random.nextInt(40_000) - 25_000) / 100.0);
+    }
+
+    private static long cents(Transaction t) {
+        return Math.round(t.getAmount() * 100);
+    }
+
+    // Every shown balance equals the sum of that row and every older saved row.
+    private static void assertBalances(LedgerTableModel model) {
+        List<Transaction> saved = TransactionManager.loadTransactions();
+        saved.sort(OLDEST_FIRST);
+
+        for (int i = 0; i < model.getRowCount(); i++) {
+            Transaction t = model.getTransactionAt(i);
+            long expected = 0;
+            for (Transaction s : saved) {
+                if (OLDEST_FIRST.compare(s, t) > 0) break;
+                expected += cents(s);
+            }
+            assertEquals(expected, model.getSortKey(i, LedgerTableModel.BALANCE_COLUMN), "row " + i + ": " + t);
+            assertEquals(LedgerRow.formatMoney(expected), model.getDisplayText(i, LedgerTableModel.BALANCE_COLUMN));
+            assertEquals(expected / 100.0, (Double) model.getValueAt(i, LedgerTableModel.BALANCE_COLUMN), 1e-9);
+        }
+
+        for (int d = -1; d <= 41; d += 3) {
+            LocalDate day = START.plusDays(d);
+            long expected = 0;
+            for (Transaction s : saved) {
+                if (!s.getDate().isAfter(day)) expected += cents(s);
+            }
+            assertEquals(expected / 100.0, model.getBalanceAsOf(day), 1e-9, "as of " + day);
+        }
+    }
+
+    @Test
+    void balancesFollowBackDatedInsertsEditsAndDeletes() {
+        LedgerTableModel model = new LedgerTableModel();
+        model.reloadAll();
+        assertBalances(model);
+
+        Random random = new Random(5);
+        for (int i = 0; i < 60; i++) {
+            switch (i % 3) {
+                case 0 -> assertEquals(LedgerTableModel.SaveResult.SAVED,
+                        model.addTransaction(randomTransaction(random, "added " + i)));
+                case 1 -> {
+                    // Moves the row to another day (possibly older) with another amount.
+                    Transaction t = model.getTransactionAt(random.nextInt(model.getRowCount()));
+                    Transaction moved = randomTransaction(random, t.getDescription() + " edited");
+                    assertTrue(model.updateTransaction(new Transaction(t.getId(), moved.getDate(), moved.getTime(),
+                            moved.getDescription(), moved.getVendor(), moved.getAmount())));
+                }
+                default -> assertTrue(model.deleteTransaction(
+                        model.getTransactionAt(random.nextInt(model.getRowCount())).getId()));
+            }
+            if (i % 10 == 9) assertBalances(model);
+        }
+    }
+
+    @Test
+    void balancesIgnoreTheFilter() {
+        LedgerTableModel model = new LedgerTableModel();
+        model.reloadAll();
+        model.applyFilter(t -> t.getAmount() > 0);
+        assertTrue(model.getRowCount() > 0);
+        assertBalances(model);
+
+        model.setDateRange(START.plusDays(10), START.plusDays(20));
+        assertBalances(model);
+    }
+
+    @Test
+    void unchangedBalanceKeepsItsText() {
+        LedgerTableModel model = new LedgerTableModel();
+        model.reloadAll();
+        int oldest = model.getRowCount() - 1;
+        String before = model.getDisplayText(oldest, LedgerTableModel.BALANCE_COLUMN);
+
+        // Newer than every row: no older balance changes.
+        model.addTransaction(new Transaction(START.plusDays(100), LocalTime.NOON, "newest", "Vendor", 1.00));
+        assertSame(before, model.getDisplayText(model.getRowCount() - 1, LedgerTableModel.BALANCE_COLUMN));
+    }
+
+    @Test
+    void backgroundReloadSwapsRowsInOnTheEdt() throws Exception {
+        LedgerTableModel model = new LedgerTableModel();
+        CountDownLatch loaded = new CountDownLatch(1);
+        AtomicBoolean onEdt = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> model.reloadInBackground(new QueryCancellation(), () -> {
+            onEdt.set(SwingUtilities.isEventDispatchThread());
+            loaded.countDown();
+        }));
+        assertTrue(loaded.await(30, TimeUnit.SECONDS));
+        assertTrue(onEdt.get());
+        assertEquals(TransactionManager.loadTransactions().size(), model.getRowCount());
+    }
+
+    @Test
+    void cancelledBackgroundReloadKeepsTheRows() throws Exception {
+        LedgerTableModel model = new LedgerTableModel();
+        QueryCancellation reload = new QueryCancellation();
+        reload.cancel();
+        AtomicBoolean done = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> model.reloadInBackground(reload, () -> done.set(true)));
+
+        // Give the worker time to finish, then flush the EDT behind it.
+        Thread.sleep(500);
+        SwingUtilities.invokeAndWait(() -> { });
+        assertFalse(done.get());
+        assertEquals(0, model.getRowCount());
+    }
+}
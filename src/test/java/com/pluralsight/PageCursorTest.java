@@ -0,0 +1,186 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset paging through {@link TransactionManager#streamPage}, on an embedded H2
+ * ledger with one archived year. Archived rows have no id, so rows sharing a date
+ * and time are real ties that only the cursor's skip count tells apart.
+ */
+class PageCursorTest {
+
+    private static final LocalDate TIE_DAY = LocalDate.of(2020, 6, 1);
+    private static final LocalTime TIE_TIME = LocalTime.of(12, 0);
+
+    private static final TransactionQuery ALL = new TransactionQuery(null, null, null, null, null, null);
+
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void createLedger() throws Exception {
+        System.setProperty("ledger.db.url", "jdbc:h2:" + dir.resolve("db/ledger") + ";MODE=MySQL");
+        System.setProperty("ledger.archive.dir", dir.resolve("archive").toString());
+        System.setProperty("ledger.cache.dir", dir.resolve("cache").toString());
+
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            rows.add(new Transaction(TIE_DAY, TIE_TIME, "archived tie " + i, "Tie Co", -10 - i));
+        }
+        for (int i = 0; i < 20; i++) {
+            rows.add(new Transaction(LocalDate.of(2020, 1, 1).plusDays(i * 17), LocalTime.of(9, i), "archived " + i, "Shop " + i % 3, -i - 1));
+        }
+        TransactionManager.saveTransactions(rows);
+        LedgerArchive.archiveYear(2020);
+
+        rows.clear();
+        // Late entries for the archived year on the tied key, now with ids.
+        for (int i = 0; i < 3; i++) {
+            rows.add(new Transaction(TIE_DAY, TIE_TIME, "live tie " + i, "Tie Co", 5 + i));
+        }
+        for (int i = 0; i < 25; i++) {
+            rows.add(new Transaction(LocalDate.of(2021, 3, 1).plusDays(i / 4), LocalTime.of(8, 0), "live " + i, "Shop " + i % 3, 100 + i));
+        }
+        TransactionManager.saveTransactions(rows);
+    }
+
+    @AfterAll
+    static void closeLedger() {
+        TransactionManager.shutdown();
+    }
+
+    private static List<String> all(TransactionQuery query) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        TransactionManager.streamTransactions(query, t -> keys.add(key(t)));
+        return keys;
+    }
+
+    // Pages through the query, passing the cursor through its text form like a client would.
+    private static List<String> paged(TransactionQuery query, int limit) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        PageCursor cursor = null;
+        int pages = 0;
+        do {
+            List<String> page = new ArrayList<>();
+            cursor = TransactionManager.streamPage(query, cursor, limit, t -> page.add(key(t)));
+            if (cursor != null) {
+                assertEquals(limit, page.size(), "only the last page may be short");
+                cursor = PageCursor.decode(cursor.encode());
+            }
+            keys.addAll(page);
+            assertTrue(++pages <= keys.size() + 1, "paging doesn't advance");
+        } while (cursor != null);
+        return keys;
+    }
+
+    private static String key(Transaction t) {
+        return t.getDate() + " " + t.getTime() + " #" + t.getId() + " " + t.getDescription();
+    }
+
+    @Test
+    void fullListMergesArchivedAndLiveRows() throws SQLException {
+        List<String> keys = all(ALL);
+        assertEquals(55, keys.size());
+        assertTrue(LedgerArchive.archivedYears().contains(2020));
+    }
+
+    @Test
+    void everyPageSizeReturnsTheSameRowsOnce() throws SQLException {
+        List<String> expected = all(ALL);
+        for (int limit : new int[]{1, 2, 3, 4, 7, 10, 54, 55, 56, 1000}) {
+            assertEquals(expected, paged(ALL, limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void pageBreaksInsideTiedArchivedRows() throws SQLException {
+        TransactionQuery ties = new TransactionQuery(TIE_DAY, TIE_DAY, null, null, null, null);
+        List<String> expected = all(ties);
+        assertEquals(10, expected.size());
+
+        for (int limit = 1; limit <= 11; limit++) {
+            assertEquals(expected, paged(ties, limit), "limit " + limit);
+        }
+
+        // Live rows (with ids) come before the archived rows (id 0) on the same key.
+        List<String> first = new ArrayList<>();
+        PageCursor cursor = TransactionManager.streamPage(ties, null, 4, t -> first.add(key(t)));
+        assertEquals(0, cursor.getId());
+        assertEquals(1, cursor.getSkip());
+        assertTrue(first.get(2).contains("live tie"));
+        assertTrue(first.get(3).contains("archived tie"));
+    }
+
+    @Test
+    void pageBoundaries() throws SQLException {
+        int total = all(ALL).size();
+
+        // Exactly one full page: no cursor, since there is nothing after it.
+        assertNull(TransactionManager.streamPage(ALL, null, total, t -> { }));
+
+        // One row short: a cursor, then a final page of one row.
+        PageCursor cursor = TransactionManager.streamPage(ALL, null, total - 1, t -> { });
+        List<Transaction> last = new ArrayList<>();
+        assertNull(TransactionManager.streamPage(ALL, cursor, total - 1, last::add));
+        assertEquals(1, last.size());
+    }
+
+    @Test
+    void textCriteriaArePagedTheSameWay() throws SQLException {
+        TransactionQuery shop = new TransactionQuery(null, null, null, null, null, "shop 1");
+        List<String> expected = all(shop);
+        assertTrue(expected.size() > 5);
+        for (int limit : new int[]{1, 2, 5}) {
+            assertEquals(expected, paged(shop, limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void newerRowsDoNotShiftLaterPages() throws SQLException {
+        TransactionQuery year2020 = new TransactionQuery(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31),
+                null, null, null, null);
+        List<String> expected = all(year2020);
+
+        List<String> keys = new ArrayList<>();
+        PageCursor cursor = TransactionManager.streamPage(year2020, null, 5, t -> keys.add(key(t)));
+        // Newer than everything already returned; removed again so the other tests see the same rows.
+        long id = TransactionManager.saveTransaction(new Transaction(LocalDate.of(2020, 12, 31), LocalTime.of(23, 59),
+                "added while paging", "Late Co", -1));
+        assertTrue(id > 0);
+        try {
+            while (cursor != null) {
+                cursor = TransactionManager.streamPage(year2020, cursor, 5, t -> keys.add(key(t)));
+            }
+        } finally {
+            TransactionManager.deleteTransaction(id);
+        }
+        assertEquals(expected, keys);
+    }
+
+    @Test
+    void cursorTextRoundTrips() {
+        PageCursor cursor = new PageCursor(TIE_DAY, TIE_TIME, 0, 3);
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+        assertEquals(cursor.getDate(), decoded.getDate());
+        assertEquals(cursor.getTime(), decoded.getTime());
+        assertEquals(cursor.getId(), decoded.getId());
+        assertEquals(cursor.getSkip(), decoded.getSkip());
+
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+    }
+}
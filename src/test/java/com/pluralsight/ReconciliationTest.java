@@ -0,0 +1,143 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each reconciliation pass (same day, shifted day, fuzzy) and the statement header
+ * parsing, against a small embedded H2 ledger.
+ */
+class ReconciliationTest {
+
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void createLedger() throws Exception {
+        System.setProperty("ledger.db.url", "jdbc:h2:" + dir.resolve("db/ledger") + ";MODE=MySQL");
+        System.setProperty("ledger.archive.dir", dir.resolve("archive").toString());
+        System.setProperty("ledger.cache.dir", dir.resolve("cache").toString());
+
+        TransactionManager.saveTransactions(List.of(
+                row(1, "Blue Bottle Coffee", -4.50),
+                row(5, "City Power", -80.00),
+                row(10, "Acme Hardware", -25.00),
+                row(15, "Luigi's Pizzeria", -30.00),
+                row(18, "Gym", -40.00),
+                row(25, "Employer Inc", 2000.00)));
+    }
+
+    @AfterAll
+    static void closeLedger() {
+        TransactionManager.shutdown();
+    }
+
+    private static Transaction row(int day, String vendor, double amount) {
+        return new Transaction(LocalDate.of(2024, 3, day), LocalTime.NOON, "ledger row", vendor, amount);
+    }
+
+    private static List<Reconciliation.Match> reconcile(String name, String... lines) throws Exception {
+        Path statement = dir.resolve(name);
+        Files.write(statement, List.of(lines));
+        List<Reconciliation.Match> matches = new ArrayList<>();
+        Reconciliation.reconcile(statement, 3, matches::add);
+        return matches;
+    }
+
+    private static Reconciliation.Match find(List<Reconciliation.Match> matches, String description) {
+        for (Reconciliation.Match m : matches) {
+            if (m.line != null && m.line.description.equals(description)) return m;
+        }
+        throw new AssertionError("no match for " + description + " in " + matches.size() + " matches");
+    }
+
+    @Test
+    void everyPass() throws Exception {
+        List<Reconciliation.Match> matches = reconcile("statement.csv",
+                "Date,Description,Amount",
+                "2024-03-01,BLUE BOTTLE COFFEE #12,-4.50",
+                "2024-03-07,CITY POWER CO,-80.00",
+                "2024-03-11,ZZQ LTD,-25.00",
+                "2024-03-15,LUIGIS PIZZERIA,-36.00",
+                "2024-03-20,UNKNOWN,-9.99",
+                "2024-03-25,EMPLOYER INC PAYROLL,\"2,000.00\"");
+
+        Reconciliation.Match exact = find(matches, "BLUE BOTTLE COFFEE #12");
+        assertEquals(Reconciliation.Status.MATCHED, exact.status);
+        assertEquals("", exact.note);
+
+        Reconciliation.Match shifted = find(matches, "CITY POWER CO");
+        assertEquals(Reconciliation.Status.MATCHED, shifted.status);
+        assertEquals("posted 2 day(s) apart", shifted.note);
+
+        Reconciliation.Match otherVendor = find(matches, "ZZQ LTD");
+        assertEquals(Reconciliation.Status.SUSPICIOUS, otherVendor.status);
+        assertEquals("Acme Hardware", otherVendor.ledger.getVendor());
+        assertTrue(otherVendor.note.endsWith("vendor differs"), otherVendor.note);
+
+        Reconciliation.Match tip = find(matches, "LUIGIS PIZZERIA");
+        assertEquals(Reconciliation.Status.SUSPICIOUS, tip.status);
+        assertEquals("Luigi's Pizzeria", tip.ledger.getVendor());
+        assertTrue(tip.note.startsWith("same vendor, amount differs"), tip.note);
+
+        assertEquals(Reconciliation.Status.UNMATCHED_STATEMENT, find(matches, "UNKNOWN").status);
+        assertEquals(Reconciliation.Status.MATCHED, find(matches, "EMPLOYER INC PAYROLL").status);
+
+        // The one ledger row nobody claimed comes last.
+        Reconciliation.Match last = matches.get(matches.size() - 1);
+        assertEquals(Reconciliation.Status.UNMATCHED_LEDGER, last.status);
+        assertEquals("Gym", last.ledger.getVendor());
+        assertEquals(7, matches.size());
+    }
+
+    @Test
+    void debitAndCreditAmountColumns() throws Exception {
+        List<Reconciliation.Match> matches = reconcile("split.csv",
+                "Posting Date,Payee,Debit Amount,Credit Amount,Balance",
+                "03/01/2024,BLUE BOTTLE COFFEE,4.50,,995.50",
+                "03/25/2024,EMPLOYER INC,,2000.00,2995.50");
+
+        Reconciliation.Match payment = find(matches, "BLUE BOTTLE COFFEE");
+        assertEquals(Reconciliation.Status.MATCHED, payment.status);
+        assertEquals(-450, payment.line.cents);
+
+        Reconciliation.Match deposit = find(matches, "EMPLOYER INC");
+        assertEquals(Reconciliation.Status.MATCHED, deposit.status);
+        assertEquals(200_000, deposit.line.cents);
+    }
+
+    @Test
+    void withdrawalAndDepositColumnsInAnyOrder() throws Exception {
+        List<Reconciliation.Match> matches = reconcile("bank.psv",
+                "Deposits|Withdrawals|Memo|Date",
+                "|40.00|GYM MEMBERSHIP|2024-03-18");
+
+        Reconciliation.Match gym = find(matches, "GYM MEMBERSHIP");
+        assertEquals(Reconciliation.Status.MATCHED, gym.status);
+        assertEquals(-4_000, gym.line.cents);
+    }
+
+    @Test
+    void noHeaderIsPositional() throws Exception {
+        List<Reconciliation.Match> matches = reconcile("plain.csv",
+                "2024-03-05,CITY,POWER,(80.00)");
+
+        Reconciliation.Match power = find(matches, "CITY POWER");
+        assertEquals(Reconciliation.Status.MATCHED, power.status);
+        assertNotNull(power.ledger);
+        assertEquals(-8_000, power.line.cents);
+    }
+}
@@ -0,0 +1,89 @@
+package com.pluralsight;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Vendor totals over an archive with many more distinct vendors than are grouped
+ * in memory at once (-Dledger.archive.vendorsInMemory), so
+ * {@link TransactionManager#forEachVendorSpend} has to split them several times.
+ */
+class VendorSpendTest {
+
+    private static final int VENDORS = 1_000;
+
+    private static final TransactionQuery ALL = new TransactionQuery(null, null, null, null, null, null);
+
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void createLedger() throws Exception {
+        System.setProperty("ledger.db.url", "jdbc:h2:" + dir.resolve("db/ledger") + ";MODE=MySQL");
+        System.setProperty("ledger.archive.dir", dir.resolve("archive").toString());
+        System.setProperty("ledger.cache.dir", dir.resolve("cache").toString());
+        System.setProperty("ledger.archive.vendorsInMemory", "100");
+
+        List<Transaction> rows = new ArrayList<>();
+        LocalDate day = LocalDate.of(2019, 1, 1);
+        for (int i = 0; i < VENDORS; i++) {
+            rows.add(new Transaction(day.plusDays(i % 365), LocalTime.ofSecondOfDay(i % 86_400), "archived",
+                    "Vendor " + i, -(1 + i % 100)));
+        }
+        rows.add(new Transaction(day, LocalTime.NOON, "refund", "Vendor 7", 5));   // not a payment
+        TransactionManager.saveTransactions(rows);
+        LedgerArchive.archiveYear(2019);
+
+        // Live payments, some at archived vendors.
+        TransactionManager.saveTransactions(List.of(
+                new Transaction(LocalDate.of(2024, 1, 2), LocalTime.NOON, "live", "Vendor 7", -10),
+                new Transaction(LocalDate.of(2024, 1, 3), LocalTime.NOON, "live", "Vendor 999", -2.50),
+                new Transaction(LocalDate.of(2024, 1, 4), LocalTime.NOON, "live", "Live Only", -40)));
+    }
+
+    @AfterAll
+    static void closeLedger() {
+        TransactionManager.shutdown();
+        System.clearProperty("ledger.archive.vendorsInMemory");
+    }
+
+    private static Map<String, VendorTotal> spend(TransactionQuery query) throws SQLException {
+        Map<String, VendorTotal> totals = new HashMap<>();
+        TransactionManager.forEachVendorSpend(query, v ->
+                assertNull(totals.put(v.getVendor(), v), "vendor passed twice: " + v.getVendor()));
+        return totals;
+    }
+
+    @Test
+    void everyVendorOnceWithArchivedAndLiveCombined() throws SQLException {
+        Map<String, VendorTotal> totals = spend(ALL);
+        assertEquals(VENDORS + 1, totals.size());
+
+        assertEquals(18, totals.get("Vendor 7").getSpent(), 1e-9);
+        assertEquals(2, totals.get("Vendor 7").getCount());
+        assertEquals(102.5, totals.get("Vendor 999").getSpent(), 1e-9);
+        assertEquals(40, totals.get("Live Only").getSpent(), 1e-9);
+        assertEquals(1, totals.get("Vendor 345").getCount());
+    }
+
+    @Test
+    void vendorCriterionAppliesToBothSides() throws SQLException {
+        Map<String, VendorTotal> totals = spend(new TransactionQuery(null, null, null, null, null, "vendor 999"));
+        assertEquals(List.of("Vendor 999"), new ArrayList<>(totals.keySet()));
+        assertEquals(102.5, totals.get("Vendor 999").getSpent(), 1e-9);
+    }
+}